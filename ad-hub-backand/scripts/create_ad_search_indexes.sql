@@ -0,0 +1,23 @@
+-- Триграммные индексы для поиска объявлений: подстрочный поиск (LOWER(title|description) LIKE '%...%')
+-- и нечеткий поиск с опечатками (оператор <% по заголовку). Без расширения pg_trgm
+-- нечеткий поиск отключается при запуске приложения.
+-- Использование: psql -U postgres -d ad_hub -f create_ad_search_indexes.sql
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_ads_title_trgm
+    ON ads USING gin (LOWER(title) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_ads_description_trgm
+    ON ads USING gin (LOWER(description) gin_trgm_ops);
+
+-- Проверка: план должен использовать Bitmap Index Scan по idx_ads_title_trgm
+-- BEGIN;
+-- SELECT set_config('pg_trgm.word_similarity_threshold', '0.45', true);
+-- EXPLAIN SELECT id FROM ads WHERE 'samsnug galaxy' <% LOWER(title);
+-- COMMIT;
+
+-- Полнотекстовый индекс по основам слов (ads.search_terms заполняет приложение).
+-- Выражение должно совпадать с запросом в AdRepository.searchAdsWithFilters
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_ads_search_terms_fts
+    ON ads USING gin (to_tsvector('simple', COALESCE(search_terms, '')));
@@ -0,0 +1,14 @@
+-- Триграммные индексы для поиска пользователей в админ-панели по подстроке
+-- (LOWER(username|email) LIKE '%...%'). Без них запрос читает всю таблицу users.
+-- Использование: psql -U postgres -d ad_hub -f create_user_search_indexes.sql
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm
+    ON users USING gin (LOWER(username) gin_trgm_ops);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm
+    ON users USING gin (LOWER(email) gin_trgm_ops);
+
+-- Проверка: план должен использовать Bitmap Index Scan по idx_users_*_trgm
+-- EXPLAIN SELECT id FROM users WHERE LOWER(username) LIKE '%ivan%' OR LOWER(email) LIKE '%ivan%';
@@ -3,9 +3,11 @@ package com.bsuir.adhubbackand;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories(basePackages = "com.bsuir.adhubbackand.repositories")
+@EnableScheduling
 public class AdHubBackandApplication {
 
     public static void main(String[] args) {
@@ -39,10 +39,15 @@ public class SecurityConfig {
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers("/error").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/ads").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/ads/feed").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/ads/{id}").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/ads/{id}/comments").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/ads/{id}/similar").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/categories").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/users/{userId}/ratings").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/users/leaderboard").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/users/{userId}/leaderboard-rank").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/search/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -2,6 +2,7 @@ package com.bsuir.adhubbackand.controllers;
 
 import com.bsuir.adhubbackand.model.dto.request.comment.CreateCommentRequest;
 import com.bsuir.adhubbackand.model.dto.request.comment.UpdateCommentRequest;
+import com.bsuir.adhubbackand.model.dto.response.CommentPageResponse;
 import com.bsuir.adhubbackand.model.dto.response.CommentResponse;
 import com.bsuir.adhubbackand.security.UserDetailsImpl;
 import com.bsuir.adhubbackand.services.AdCommentService;
@@ -12,8 +13,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/ads")
 @RequiredArgsConstructor
@@ -31,8 +30,11 @@ public class AdCommentController {
     }
 
     @GetMapping("/{id}/comments")
-    public ResponseEntity<List<CommentResponse>> getComments(@PathVariable Long id) {
-        List<CommentResponse> comments = commentService.getCommentsByAdId(id);
+    public ResponseEntity<CommentPageResponse> getComments(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        CommentPageResponse comments = commentService.getCommentsByAdId(id, cursor, size);
         return ResponseEntity.ok(comments);
     }
 
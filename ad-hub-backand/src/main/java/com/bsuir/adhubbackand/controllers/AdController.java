@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/ads")
@@ -45,9 +46,12 @@ public class AdController {
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String location,
             @RequestParam(required = false) String search,
-            @RequestParam(required = false) AdStatus status
+            @RequestParam(required = false) AdStatus status,
+            @RequestParam(required = false) SortBy sortBy,
+            @AuthenticationPrincipal UserDetailsImpl userDetails
     ) {
-        AdListResponse ads = adService.getAds(page, size, categoryId, minPrice, maxPrice, location, search, status);
+        Long currentUserId = userDetails != null ? userDetails.getId() : null;
+        AdListResponse ads = adService.getAds(page, size, categoryId, minPrice, maxPrice, location, search, status, sortBy, currentUserId);
         return ResponseEntity.ok(ads);
     }
 
@@ -58,11 +62,17 @@ public class AdController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
             @RequestParam(required = false) String location,
+            @RequestParam(required = false) String near,
+            @RequestParam(required = false) Double radiusKm,
             @RequestParam(required = false) SortBy sortBy,
             @RequestParam(required = false) Integer page,
-            @RequestParam(required = false) Integer size
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Boolean fuzzy,
+            @RequestParam(required = false, defaultValue = "false") boolean facets,
+            @AuthenticationPrincipal UserDetailsImpl userDetails
     ) {
-        AdListResponse ads = adService.searchAds(query, categoryId, minPrice, maxPrice, location, sortBy, page, size);
+        Long currentUserId = userDetails != null ? userDetails.getId() : null;
+        AdListResponse ads = adService.searchAds(query, categoryId, minPrice, maxPrice, location, near, radiusKm, sortBy, page, size, fuzzy, facets, currentUserId);
         return ResponseEntity.ok(ads);
     }
 
@@ -77,12 +87,36 @@ public class AdController {
         return ResponseEntity.ok(ads);
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<AdListResponse> getFeed(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal UserDetailsImpl userDetails
+    ) {
+        Long currentUserId = userDetails != null ? userDetails.getId() : null;
+        AdListResponse ads = adService.getFeed(page, size, currentUserId);
+        return ResponseEntity.ok(ads);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<AdResponse> getAdById(@PathVariable Long id) {
-        AdResponse ad = adService.getAdById(id);
+    public ResponseEntity<AdResponse> getAdById(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        Long currentUserId = userDetails != null ? userDetails.getId() : null;
+        AdResponse ad = adService.getAdById(id, currentUserId);
         return ResponseEntity.ok(ad);
     }
 
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<List<AdResponse>> getSimilarAds(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        Long currentUserId = userDetails != null ? userDetails.getId() : null;
+        List<AdResponse> ads = adService.getSimilarAds(id, limit, currentUserId);
+        return ResponseEntity.ok(ads);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<AdResponse> updateAd(
             @PathVariable Long id,
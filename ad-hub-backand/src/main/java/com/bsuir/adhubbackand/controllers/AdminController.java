@@ -1,12 +1,20 @@
 package com.bsuir.adhubbackand.controllers;
 
+import com.bsuir.adhubbackand.model.dto.request.admin.BatchModerationRequest;
 import com.bsuir.adhubbackand.model.dto.request.admin.UpdateUserRoleRequest;
+import com.bsuir.adhubbackand.model.dto.response.admin.BatchModerationResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.ClaimedAdsResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.DictionaryReloadResponse;
 import com.bsuir.adhubbackand.model.dto.response.admin.ModerationActionResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.ModerationQueueStatsResponse;
 import com.bsuir.adhubbackand.model.dto.response.admin.PendingAdResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.SearchStatisticsResponse;
 import com.bsuir.adhubbackand.model.dto.response.admin.UserListResponse;
 import com.bsuir.adhubbackand.security.UserDetailsImpl;
 import com.bsuir.adhubbackand.services.AdminAdService;
 import com.bsuir.adhubbackand.services.AdminUserService;
+import com.bsuir.adhubbackand.services.PremoderationDictionary;
+import com.bsuir.adhubbackand.services.SearchStatisticsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +32,8 @@ public class AdminController {
 
     private final AdminAdService adminAdService;
     private final AdminUserService adminUserService;
+    private final PremoderationDictionary premoderationDictionary;
+    private final SearchStatisticsService searchStatisticsService;
 
     // Модерация объявлений
     @GetMapping("/ads/pending")
@@ -34,18 +44,56 @@ public class AdminController {
         return ResponseEntity.ok(pendingAds);
     }
 
+    @GetMapping("/ads/pending/claim")
+    public ResponseEntity<ClaimedAdsResponse> claimPendingAds(
+            @RequestParam(required = false) Integer n,
+            @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        ClaimedAdsResponse response = adminAdService.claimPendingAds(currentUser.getId(), n);
+        return ResponseEntity.ok(response);
+    }
+
+    @DeleteMapping("/ads/pending/claim")
+    public ResponseEntity<Void> releaseClaims(@AuthenticationPrincipal UserDetailsImpl currentUser) {
+        adminAdService.releaseClaims(currentUser.getId());
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/ads/pending/stats")
+    public ResponseEntity<ModerationQueueStatsResponse> getQueueStats() {
+        return ResponseEntity.ok(adminAdService.getQueueStats());
+    }
+
     @PostMapping("/ads/{id}/approve")
-    public ResponseEntity<ModerationActionResponse> approveAd(@PathVariable Long id) {
-        ModerationActionResponse response = adminAdService.approveAd(id);
+    public ResponseEntity<ModerationActionResponse> approveAd(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        ModerationActionResponse response = adminAdService.approveAd(id, currentUser.getId());
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/ads/{id}/reject")
-    public ResponseEntity<ModerationActionResponse> rejectAd(@PathVariable Long id) {
-        ModerationActionResponse response = adminAdService.rejectAd(id);
+    public ResponseEntity<ModerationActionResponse> rejectAd(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        ModerationActionResponse response = adminAdService.rejectAd(id, currentUser.getId());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/ads/moderation/batch")
+    public ResponseEntity<BatchModerationResponse> moderateBatch(
+            @Valid @RequestBody BatchModerationRequest request,
+            @AuthenticationPrincipal UserDetailsImpl currentUser) {
+        BatchModerationResponse response = adminAdService.moderateBatch(request, currentUser.getId());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/premoderation/dictionary/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DictionaryReloadResponse> reloadPremoderationDictionary() {
+        boolean reloaded = premoderationDictionary.reload();
+        return ResponseEntity.ok(new DictionaryReloadResponse(reloaded, premoderationDictionary.size()));
+    }
+
     // Управление пользователями
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
@@ -93,25 +141,7 @@ public class AdminController {
     @GetMapping("/statistics/search")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<SearchStatisticsResponse> getSearchStatistics() {
-        // TODO: Реализовать сбор статистики поиска
-        SearchStatisticsResponse stats = new SearchStatisticsResponse(
-                0L, // totalSearches
-                0L, // searchesToday
-                0L, // searchesThisWeek
-                0L, // searchesThisMonth
-                List.of() // topQueries
-        );
+        SearchStatisticsResponse stats = searchStatisticsService.getStatistics();
         return ResponseEntity.ok(stats);
     }
-
-    public record SearchStatisticsResponse(
-            Long totalSearches,
-            Long searchesToday,
-            Long searchesThisWeek,
-            Long searchesThisMonth,
-            List<TopQuery> topQueries
-    ) {
-        public record TopQuery(String query, Long count) {}
-    }
 }
-
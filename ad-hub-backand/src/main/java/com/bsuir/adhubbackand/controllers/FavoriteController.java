@@ -18,8 +18,10 @@ public class FavoriteController {
 
     @GetMapping("/favorites")
     public ResponseEntity<FavoriteListResponse> getUserFavorites(
-            @AuthenticationPrincipal UserDetailsImpl userDetails) {
-        FavoriteListResponse favorites = favoriteService.getUserFavorites(userDetails.getId());
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        FavoriteListResponse favorites = favoriteService.getUserFavorites(userDetails.getId(), cursor, size);
         return ResponseEntity.ok(favorites);
     }
 
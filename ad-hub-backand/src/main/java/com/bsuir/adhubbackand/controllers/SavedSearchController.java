@@ -0,0 +1,44 @@
+package com.bsuir.adhubbackand.controllers;
+
+import com.bsuir.adhubbackand.model.dto.request.search.SavedSearchRequest;
+import com.bsuir.adhubbackand.model.dto.response.SavedSearchResponse;
+import com.bsuir.adhubbackand.security.UserDetailsImpl;
+import com.bsuir.adhubbackand.services.SavedSearchService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/saved-searches")
+@RequiredArgsConstructor
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    @GetMapping
+    public ResponseEntity<List<SavedSearchResponse>> getSavedSearches(
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        return ResponseEntity.ok(savedSearchService.getUserSavedSearches(userDetails.getId()));
+    }
+
+    @PostMapping
+    public ResponseEntity<SavedSearchResponse> createSavedSearch(
+            @Valid @RequestBody SavedSearchRequest request,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        SavedSearchResponse response = savedSearchService.createSavedSearch(userDetails.getId(), request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteSavedSearch(
+            @PathVariable Long id,
+            @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        savedSearchService.deleteSavedSearch(id, userDetails.getId());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.bsuir.adhubbackand.controllers;
+
+import com.bsuir.adhubbackand.model.dto.response.SearchSuggestionsResponse;
+import com.bsuir.adhubbackand.model.dto.response.TrendingSearchesResponse;
+import com.bsuir.adhubbackand.model.enums.TrendingWindow;
+import com.bsuir.adhubbackand.services.AutocompleteService;
+import com.bsuir.adhubbackand.services.TrendingSearchTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int DEFAULT_TRENDING_LIMIT = 10;
+    private static final int MAX_TRENDING_LIMIT = 50;
+
+    private final TrendingSearchTracker trendingSearchTracker;
+    private final AutocompleteService autocompleteService;
+
+    @GetMapping("/suggest")
+    public ResponseEntity<SearchSuggestionsResponse> suggest(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer limit) {
+        int effectiveLimit = limit != null && limit > 0 ? limit : AutocompleteService.MAX_SUGGESTIONS;
+        return ResponseEntity.ok(autocompleteService.suggest(prefix, effectiveLimit));
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<TrendingSearchesResponse> getTrending(
+            @RequestParam(required = false, defaultValue = "LAST_DAY") TrendingWindow window,
+            @RequestParam(required = false) Integer limit) {
+        int effectiveLimit = limit != null && limit > 0 ? Math.min(limit, MAX_TRENDING_LIMIT) : DEFAULT_TRENDING_LIMIT;
+        return ResponseEntity.ok(trendingSearchTracker.getTrending(window, effectiveLimit));
+    }
+}
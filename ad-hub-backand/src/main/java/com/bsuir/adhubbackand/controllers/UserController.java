@@ -79,8 +79,10 @@ public class UserController {
 
     @GetMapping("/me/favorites")
     public ResponseEntity<FavoriteListResponse> getMyFavorites(
-            @AuthenticationPrincipal UserDetailsImpl userDetails) {
-        FavoriteListResponse favorites = favoriteService.getUserFavorites(userDetails.getId());
+            @AuthenticationPrincipal UserDetailsImpl userDetails,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer size) {
+        FavoriteListResponse favorites = favoriteService.getUserFavorites(userDetails.getId(), cursor, size);
         return ResponseEntity.ok(favorites);
     }
 }
\ No newline at end of file
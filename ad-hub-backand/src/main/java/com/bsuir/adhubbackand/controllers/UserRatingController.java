@@ -1,6 +1,8 @@
 package com.bsuir.adhubbackand.controllers;
 
 import com.bsuir.adhubbackand.model.dto.request.user.UserRatingRequest;
+import com.bsuir.adhubbackand.model.dto.response.SellerLeaderboardResponse;
+import com.bsuir.adhubbackand.model.dto.response.SellerRankResponse;
 import com.bsuir.adhubbackand.model.dto.response.UserRatingsResponse;
 import com.bsuir.adhubbackand.security.UserDetailsImpl;
 import com.bsuir.adhubbackand.services.UserRatingService;
@@ -30,11 +32,27 @@ public class UserRatingController {
     }
 
     @GetMapping("/{userId}/ratings")
-    public ResponseEntity<UserRatingsResponse> getUserRatings(@PathVariable Long userId) {
-        UserRatingsResponse ratings = userRatingService.getUserRatingsWithStats(userId);
+    public ResponseEntity<UserRatingsResponse> getUserRatings(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        UserRatingsResponse ratings = userRatingService.getUserRatingsWithStats(userId, page, size);
         return ResponseEntity.ok(ratings);
     }
 
+    @GetMapping("/leaderboard")
+    public ResponseEntity<SellerLeaderboardResponse> getTopSellers(
+            @RequestParam(required = false) Integer limit) {
+        SellerLeaderboardResponse leaderboard = userRatingService.getTopSellers(limit);
+        return ResponseEntity.ok(leaderboard);
+    }
+
+    @GetMapping("/{userId}/leaderboard-rank")
+    public ResponseEntity<SellerRankResponse> getSellerRank(@PathVariable Long userId) {
+        SellerRankResponse rank = userRatingService.getSellerRank(userId);
+        return ResponseEntity.ok(rank);
+    }
+
     @GetMapping("/me/ratings")
     public ResponseEntity<List<UserRatingsResponse.RatingItem>> getMyRatings(
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
@@ -0,0 +1,7 @@
+package com.bsuir.adhubbackand.exception;
+
+public class DuplicateAdException extends RuntimeException {
+    public DuplicateAdException(Long duplicateAdId) {
+        super("Такое объявление уже опубликовано: ID " + duplicateAdId);
+    }
+}
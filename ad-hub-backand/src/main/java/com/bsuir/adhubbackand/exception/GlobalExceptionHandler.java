@@ -55,7 +55,7 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED).body(error);
     }
 
-    @ExceptionHandler({EmailAlreadyExistsException.class, UsernameAlreadyExistsException.class, CategoryAlreadyExistsException.class})
+    @ExceptionHandler({EmailAlreadyExistsException.class, UsernameAlreadyExistsException.class, CategoryAlreadyExistsException.class, DuplicateAdException.class})
     public ResponseEntity<ErrorResponse> handleResourceAlreadyExistsException(RuntimeException ex) {
         log.warn("Resource already exists: {}", ex.getMessage());
         ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.CONFLICT.value());
@@ -77,7 +77,8 @@ public class GlobalExceptionHandler {
             AdNotFoundException.class,
             CategoryNotFoundException.class,
             CommentNotFoundException.class,
-            NotificationNotFoundException.class
+            NotificationNotFoundException.class,
+            SavedSearchNotFoundException.class
     })
     public ResponseEntity<ErrorResponse> handleNotFoundException(Exception ex) {
         log.warn("Resource not found: {}", ex.getMessage());
@@ -85,7 +86,7 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
-    @ExceptionHandler({SelfRatingException.class, DuplicateFavoriteException.class, AdStatusNotAllowedException.class, CategoryHasAdsException.class})
+    @ExceptionHandler({SelfRatingException.class, DuplicateFavoriteException.class, AdStatusNotAllowedException.class, CategoryHasAdsException.class, InvalidCursorException.class, InvalidSavedSearchException.class, InvalidGeoQueryException.class})
     public ResponseEntity<ErrorResponse> handleBusinessLogicException(RuntimeException ex) {
         log.warn("Business logic violation: {}", ex.getMessage());
         ErrorResponse error = new ErrorResponse(ex.getMessage(), HttpStatus.BAD_REQUEST.value());
@@ -0,0 +1,7 @@
+package com.bsuir.adhubbackand.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String cursor) {
+        super("Некорректный курсор пагинации: " + cursor);
+    }
+}
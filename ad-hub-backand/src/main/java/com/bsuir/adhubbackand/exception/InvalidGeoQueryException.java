@@ -0,0 +1,7 @@
+package com.bsuir.adhubbackand.exception;
+
+public class InvalidGeoQueryException extends RuntimeException {
+    public InvalidGeoQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bsuir.adhubbackand.exception;
+
+public class SavedSearchNotFoundException extends RuntimeException {
+    public SavedSearchNotFoundException(Long savedSearchId) {
+        super("Сохраненный поиск с ID " + savedSearchId + " не найден");
+    }
+}
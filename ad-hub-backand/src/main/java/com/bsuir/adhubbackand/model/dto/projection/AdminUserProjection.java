@@ -0,0 +1,23 @@
+package com.bsuir.adhubbackand.model.dto.projection;
+
+import com.bsuir.adhubbackand.model.enums.UserStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка пользователей для админ-панели вместе с названием роли,
+ * выбранная одним запросом без загрузки сущностей.
+ */
+public record AdminUserProjection(
+        Long id,
+        String username,
+        String email,
+        String firstName,
+        String lastName,
+        String phone,
+        String roleName,
+        UserStatus status,
+        BigDecimal rating,
+        LocalDateTime createdAt,
+        LocalDateTime lastLogin
+) {}
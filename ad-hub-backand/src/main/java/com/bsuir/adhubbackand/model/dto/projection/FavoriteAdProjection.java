@@ -0,0 +1,27 @@
+package com.bsuir.adhubbackand.model.dto.projection;
+
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.model.enums.FileType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Плоская строка избранного: запись избранного, краткие данные объявления
+ * и его основное изображение (если есть), выбранные одним JOIN-запросом.
+ */
+public record FavoriteAdProjection(
+        Long favoriteId,
+        Long adId,
+        String adTitle,
+        String adDescription,
+        BigDecimal adPrice,
+        String adCurrency,
+        String adLocation,
+        AdStatus adStatus,
+        Long mediaId,
+        String mediaFileUrl,
+        FileType mediaFileType,
+        Boolean mediaIsPrimary,
+        Integer mediaDisplayOrder,
+        LocalDateTime favoritedAt
+) {}
@@ -0,0 +1,16 @@
+package com.bsuir.adhubbackand.model.dto.request.admin;
+
+import com.bsuir.adhubbackand.model.enums.ModerationAction;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public record BatchModerationRequest(
+        @NotEmpty(message = "Список объявлений не должен быть пустым")
+        @Size(max = 500, message = "За один запрос можно обработать не более 500 объявлений")
+        List<@NotNull(message = "ID объявления обязателен") Long> adIds,
+
+        @NotNull(message = "Действие обязательно")
+        ModerationAction action
+) {}
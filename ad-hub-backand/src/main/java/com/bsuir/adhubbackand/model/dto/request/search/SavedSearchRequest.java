@@ -0,0 +1,25 @@
+package com.bsuir.adhubbackand.model.dto.request.search;
+
+import jakarta.validation.constraints.*;
+import java.math.BigDecimal;
+
+public record SavedSearchRequest(
+        @NotBlank(message = "Название обязательно")
+        @Size(max = 100, message = "Название не должно превышать 100 символов")
+        String name,
+
+        @Size(max = 1000, message = "Текст запроса не должен превышать 1000 символов")
+        String query,
+
+        @Positive(message = "ID категории должен быть положительным")
+        Long categoryId,
+
+        @PositiveOrZero(message = "Минимальная цена не может быть отрицательной")
+        BigDecimal minPrice,
+
+        @PositiveOrZero(message = "Максимальная цена не может быть отрицательной")
+        BigDecimal maxPrice,
+
+        @Size(max = 200, message = "Местоположение не должно превышать 200 символов")
+        String location
+) {}
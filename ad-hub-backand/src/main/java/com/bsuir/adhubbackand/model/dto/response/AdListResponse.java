@@ -9,6 +9,12 @@ public record AdListResponse(
         long totalElements,
         int totalPages,
         boolean hasNext,
-        boolean hasPrevious
-) {}
-
+        boolean hasPrevious,
+        boolean fuzzy,
+        SearchFacetsResponse facets
+) {
+    public AdListResponse(List<AdResponse> content, int page, int size, long totalElements,
+                          int totalPages, boolean hasNext, boolean hasPrevious) {
+        this(content, page, size, totalElements, totalPages, hasNext, hasPrevious, false, null);
+    }
+}
@@ -12,15 +12,22 @@ public record AdResponse(
         BigDecimal price,
         String currency,
         String location,
+        Double latitude,
+        Double longitude,
         AdStatus status,
         Long userId,
         String userUsername,
         Long categoryId,
         String categoryName,
         Integer viewCount,
+        Integer favoriteCount,
+        Integer commentCount,
         List<MediaItem> mediaFiles,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Boolean isFavorite,
+        String snippet,
+        Double distanceKm
 ) {
     public record MediaItem(
             Long id,
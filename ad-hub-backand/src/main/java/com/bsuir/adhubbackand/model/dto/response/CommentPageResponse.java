@@ -0,0 +1,9 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.util.List;
+
+public record CommentPageResponse(
+        List<CommentResponse> comments,
+        String nextCursor,
+        boolean hasNext
+) {}
@@ -4,6 +4,8 @@ import java.util.List;
 
 public record FavoriteListResponse(
         List<FavoriteResponse> favorites,
-        long totalCount
+        long totalCount,
+        Long nextCursor,
+        boolean hasNext
 ) {}
 
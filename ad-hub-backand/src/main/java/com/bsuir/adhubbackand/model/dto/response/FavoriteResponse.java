@@ -1,5 +1,7 @@
 package com.bsuir.adhubbackand.model.dto.response;
 
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 public record FavoriteResponse(
@@ -7,6 +9,10 @@ public record FavoriteResponse(
         Long adId,
         String adTitle,
         String adDescription,
+        BigDecimal adPrice,
+        String adCurrency,
+        String adLocation,
+        AdStatus adStatus,
         AdResponse.MediaItem primaryImage,
         LocalDateTime createdAt
 ) {}
@@ -0,0 +1,15 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record SavedSearchResponse(
+        Long id,
+        String name,
+        String query,
+        Long categoryId,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        String location,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,28 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record SearchFacetsResponse(
+        List<CategoryCount> categories,
+        List<PriceRange> priceRanges,
+        List<LocationCount> locations
+) {
+    public record CategoryCount(
+            Long categoryId,
+            String categoryName,
+            long count
+    ) {}
+
+    // Границы null - открытый диапазон
+    public record PriceRange(
+            BigDecimal from,
+            BigDecimal to,
+            long count
+    ) {}
+
+    public record LocationCount(
+            String location,
+            long count
+    ) {}
+}
@@ -0,0 +1,8 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.util.List;
+
+public record SearchSuggestionsResponse(
+        String prefix,
+        List<String> suggestions
+) {}
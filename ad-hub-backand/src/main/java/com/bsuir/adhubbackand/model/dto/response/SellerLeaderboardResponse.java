@@ -0,0 +1,18 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record SellerLeaderboardResponse(
+        List<SellerItem> sellers,
+        int totalRanked
+) {
+    public record SellerItem(
+            int rank,
+            Long userId,
+            String username,
+            BigDecimal score,
+            BigDecimal averageRating,
+            int ratingCount
+    ) {}
+}
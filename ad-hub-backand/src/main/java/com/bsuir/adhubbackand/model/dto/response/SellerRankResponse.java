@@ -0,0 +1,10 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import java.math.BigDecimal;
+
+public record SellerRankResponse(
+        Long userId,
+        Integer rank,
+        int totalRanked,
+        BigDecimal score
+) {}
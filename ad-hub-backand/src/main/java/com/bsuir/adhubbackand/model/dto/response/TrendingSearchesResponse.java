@@ -0,0 +1,13 @@
+package com.bsuir.adhubbackand.model.dto.response;
+
+import com.bsuir.adhubbackand.model.enums.TrendingWindow;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record TrendingSearchesResponse(
+        TrendingWindow window,
+        List<TrendingQuery> queries,
+        LocalDateTime updatedAt
+) {
+    public record TrendingQuery(String query, long count) {}
+}
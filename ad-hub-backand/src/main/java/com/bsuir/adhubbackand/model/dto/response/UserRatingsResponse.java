@@ -2,11 +2,16 @@ package com.bsuir.adhubbackand.model.dto.response;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 public record UserRatingsResponse(
         BigDecimal averageRating,
         Integer totalCount,
-        List<RatingItem> items
+        Map<Integer, Integer> distribution,
+        List<RatingItem> items,
+        int page,
+        int size,
+        boolean hasNext
 ) {
     public record RatingItem(
             Long fromUserId,
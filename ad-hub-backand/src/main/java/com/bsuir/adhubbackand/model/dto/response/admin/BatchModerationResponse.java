@@ -0,0 +1,27 @@
+package com.bsuir.adhubbackand.model.dto.response.admin;
+
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.model.enums.ModerationAction;
+import java.util.List;
+
+public record BatchModerationResponse(
+        ModerationAction action,
+        AdStatus newStatus,
+        int requestedCount,
+        int updatedCount,
+        List<AdOutcome> results
+) {
+    public record AdOutcome(
+            Long adId,
+            Outcome outcome,
+            AdStatus currentStatus
+    ) {}
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        STATUS_NOT_ALLOWED,
+        // Объявление на модерации, но арендовано другим модератором
+        CLAIMED_BY_OTHER
+    }
+}
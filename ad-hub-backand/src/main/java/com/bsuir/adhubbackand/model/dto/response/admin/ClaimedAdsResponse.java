@@ -0,0 +1,9 @@
+package com.bsuir.adhubbackand.model.dto.response.admin;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record ClaimedAdsResponse(
+        List<PendingAdResponse> ads,
+        LocalDateTime leaseUntil
+) {}
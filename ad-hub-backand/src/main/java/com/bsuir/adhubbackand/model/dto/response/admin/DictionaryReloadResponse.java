@@ -0,0 +1,6 @@
+package com.bsuir.adhubbackand.model.dto.response.admin;
+
+public record DictionaryReloadResponse(
+        boolean reloaded,
+        int phraseCount
+) {}
@@ -0,0 +1,14 @@
+package com.bsuir.adhubbackand.model.dto.response.admin;
+
+public record ModerationQueueStatsResponse(
+        long queueDepth,
+        long leasedCount,
+        long availableCount,
+        long oldestWaitSeconds,
+        long averageWaitSeconds,
+        long claimedTotal,
+        long requeuedTotal,
+        long decidedTotal,
+        long averageTimeInQueueSeconds,
+        long maxTimeInQueueSeconds
+) {}
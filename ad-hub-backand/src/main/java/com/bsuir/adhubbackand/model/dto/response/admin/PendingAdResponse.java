@@ -3,6 +3,7 @@ package com.bsuir.adhubbackand.model.dto.response.admin;
 import com.bsuir.adhubbackand.model.enums.AdStatus;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 public record PendingAdResponse(
         Long id,
@@ -19,6 +20,30 @@ public record PendingAdResponse(
         String categoryName,
         Integer viewCount,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
-) {}
+        LocalDateTime updatedAt,
+        List<String> moderationFlags,
+        List<DuplicateAd> duplicates,
+        List<SharedPhoto> sharedPhotos
+) {
+    // Почти повтор из того же автора или той же категории; distance - различающиеся биты SimHash
+    public record DuplicateAd(
+            Long adId,
+            Long userId,
+            String title,
+            AdStatus status,
+            int distance,
+            boolean sameUser
+    ) {}
+
+    // Почти такое же фото в объявлении другого продавца; distance - различающиеся биты dHash
+    public record SharedPhoto(
+            Long mediaId,
+            Long otherMediaId,
+            Long otherAdId,
+            Long otherUserId,
+            String otherAdTitle,
+            AdStatus otherAdStatus,
+            int distance
+    ) {}
+}
 
@@ -1,9 +1,11 @@
 package com.bsuir.adhubbackand.model.dto.response.admin;
 
+import com.bsuir.adhubbackand.model.enums.AdStatus;
 import com.bsuir.adhubbackand.model.enums.UserStatus;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public record UserListResponse(
         List<UserListItem> users,
@@ -26,7 +28,8 @@ public record UserListResponse(
             BigDecimal rating,
             LocalDateTime createdAt,
             LocalDateTime lastLogin,
-            long adsCount
+            long adsCount,
+            Map<AdStatus, Long> adsCountByStatus
     ) {}
 }
 
@@ -10,7 +10,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ads")
+@Table(name = "ads", indexes = {
+        @Index(name = "idx_ads_user_id_status", columnList = "user_id, status"),
+        @Index(name = "idx_ads_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_ads_status_favorite_count", columnList = "status, favorite_count"),
+        @Index(name = "idx_ads_status_comment_count", columnList = "status, comment_count"),
+        @Index(name = "idx_ads_status_geohash", columnList = "status, geohash"),
+        @Index(name = "idx_ads_status_normalized_price", columnList = "status, normalized_price"),
+        @Index(name = "idx_ads_category_status_hot_score", columnList = "category_id, status, hot_score")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -41,10 +49,26 @@ public class Ad {
     @Builder.Default
     private String currency = "BYN";
 
+    // Цена в базовой валюте по курсам CurrencyRates - для фильтров и сортировки по цене
+    @Column(name = "normalized_price", precision = 16, scale = 2)
+    private BigDecimal normalizedPrice;
+
     @Size(max = 200, message = "Местоположение не должно превышать 200 символов")
     @Column(name = "location", length = 200)
     private String location;
 
+    // Координаты населенного пункта из location (см. GeoGazetteer)
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    // Геохеш координат для поиска по радиусу; пустая строка - местоположение не распознано.
+    // Побайтовое сравнение нужно, чтобы ячейка геохеша была диапазоном индекса
+    @Column(name = "geohash", columnDefinition = "varchar(12) COLLATE \"C\"")
+    private String geohash;
+
     @NotNull(message = "Статус обязателен")
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false, length = 20)
@@ -66,6 +90,56 @@ public class Ad {
     @Builder.Default
     private Integer viewCount = 0;
 
+    // Денормализованные счетчики: пишутся только пакетными UPDATE из AdStatsService
+    @Column(name = "favorite_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer favoriteCount = 0;
+
+    @Column(name = "comment_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer commentCount = 0;
+
+    @Column(name = "media_count", insertable = false, updatable = false,
+            columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer mediaCount = 0;
+
+    // Логарифмическая оценка "горячести" с затуханием (см. HotScoreService)
+    @Column(name = "hot_score")
+    private Double hotScore;
+
+    // Очередь модерации: когда объявление встало в очередь и кто его взял в работу до какого времени
+    @Column(name = "moderation_queued_at")
+    private LocalDateTime moderationQueuedAt;
+
+    @Column(name = "moderation_claimed_by")
+    private Long moderationClaimedBy;
+
+    @Column(name = "moderation_lease_until")
+    private LocalDateTime moderationLeaseUntil;
+
+    // Замечания автоматической пре-модерации, по одному в строке
+    @Column(name = "moderation_flags", columnDefinition = "TEXT")
+    private String moderationFlags;
+
+    // Основы слов заголовка и описания для полнотекстового поиска (см. SearchTextAnalyzer)
+    @Column(name = "search_terms", columnDefinition = "TEXT")
+    private String searchTerms;
+
+    // Сколько первых основ search_terms относится к заголовку
+    @Column(name = "search_title_length")
+    private Integer searchTitleLength;
+
+    // Смещения слов описания в тексте (см. SearchTextAnalyzer.index)
+    @Column(name = "search_offsets", columnDefinition = "TEXT")
+    private String searchOffsets;
+
+    // SimHash основ заголовка и описания для поиска почти повторов (см. DuplicateAdDetector)
+    @Column(name = "simhash")
+    private Long simhash;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
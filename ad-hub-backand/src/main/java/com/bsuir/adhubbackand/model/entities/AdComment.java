@@ -8,7 +8,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ad_comments")
+@Table(name = "ad_comments", indexes = {
+        @Index(name = "idx_ad_comments_ad_id_created_at_id", columnList = "ad_id, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
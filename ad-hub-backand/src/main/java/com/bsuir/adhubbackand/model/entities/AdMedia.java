@@ -10,7 +10,9 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "ad_media")
+@Table(name = "ad_media", indexes = {
+        @Index(name = "idx_ad_media_ad_id_is_primary", columnList = "ad_id, is_primary")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -46,6 +48,10 @@ public class AdMedia {
     @Builder.Default
     private Integer displayOrder = 0;
 
+    // Перцептивный хеш изображения (dHash) для поиска одинаковых фото (см. PhotoHashIndex)
+    @Column(name = "perceptual_hash")
+    private Long perceptualHash;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
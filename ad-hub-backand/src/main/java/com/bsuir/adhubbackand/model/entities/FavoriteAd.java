@@ -7,7 +7,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "favorite_ads")
+@Table(name = "favorite_ads", indexes = {
+        @Index(name = "idx_favorite_ads_user_id_id", columnList = "user_id, id"),
+        @Index(name = "idx_favorite_ads_ad_id", columnList = "ad_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
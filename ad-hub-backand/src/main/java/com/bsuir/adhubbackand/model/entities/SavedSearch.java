@@ -0,0 +1,50 @@
+package com.bsuir.adhubbackand.model.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "saved_searches", indexes = {
+        @Index(name = "idx_saved_searches_user_id", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SavedSearch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @NotBlank(message = "Название обязательно")
+    @Size(max = 100, message = "Название не должно превышать 100 символов")
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Size(max = 1000, message = "Текст запроса не должен превышать 1000 символов")
+    @Column(name = "query_text", columnDefinition = "TEXT")
+    private String queryText;
+
+    // Фильтры в том же виде, что и search_history.filters
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "filters", columnDefinition = "jsonb")
+    private String filters;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
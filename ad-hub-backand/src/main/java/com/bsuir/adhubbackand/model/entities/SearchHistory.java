@@ -10,7 +10,10 @@ import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "search_history")
+@Table(name = "search_history", indexes = {
+        @Index(name = "idx_search_history_search_date", columnList = "search_date"),
+        @Index(name = "idx_search_history_user_id_search_date", columnList = "user_id, search_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,44 @@
+package com.bsuir.adhubbackand.model.entities;
+
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Агрегат поисковых запросов за час или сутки. Строки пишет только фоновая
+ * задача свертки истории поиска, статистика для админ-панели читает их вместо search_history.
+ */
+@Entity
+@Table(name = "search_stats_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_search_stats_rollups_bucket", columnNames = {"granularity", "bucket_start"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchStatsRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull(message = "Гранулярность обязательна")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private StatsGranularity granularity;
+
+    @NotNull(message = "Начало интервала обязательно")
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_searches", nullable = false)
+    private Long totalSearches;
+
+    @Column(name = "distinct_queries", nullable = false)
+    private Long distinctQueries;
+
+    @Column(name = "zero_result_searches", nullable = false)
+    private Long zeroResultSearches;
+}
@@ -0,0 +1,40 @@
+package com.bsuir.adhubbackand.model.entities;
+
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Один из самых частых запросов за час или сутки (см. {@link SearchStatsRollup}).
+ */
+@Entity
+@Table(name = "search_top_queries", indexes = {
+        @Index(name = "idx_search_top_queries_bucket", columnList = "granularity, bucket_start")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchTopQuery {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @NotNull(message = "Гранулярность обязательна")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", nullable = false, length = 10)
+    private StatsGranularity granularity;
+
+    @NotNull(message = "Начало интервала обязательно")
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "query_text", columnDefinition = "TEXT", nullable = false)
+    private String queryText;
+
+    @Column(name = "search_count", nullable = false)
+    private Long searchCount;
+}
@@ -0,0 +1,27 @@
+package com.bsuir.adhubbackand.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Снимок состояния счетчиков популярных запросов для восстановления после перезапуска.
+ * Хранится одной строкой, перезаписываемой периодически.
+ */
+@Entity
+@Table(name = "trending_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TrendingSnapshot {
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "saved_at", nullable = false)
+    private LocalDateTime savedAt;
+}
@@ -0,0 +1,63 @@
+package com.bsuir.adhubbackand.model.entities;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Агрегаты оценок пользователя: сумма, количество и гистограмма по баллам 1-5.
+ * Обновляются инкрементально при каждой оценке в той же транзакции.
+ */
+@Entity
+@Table(name = "user_rating_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserRatingStats {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @NotNull(message = "Сумма оценок обязательна")
+    @Column(name = "rating_sum", nullable = false, precision = 14, scale = 1)
+    @Builder.Default
+    private BigDecimal ratingSum = BigDecimal.ZERO;
+
+    @PositiveOrZero(message = "Количество оценок не может быть отрицательным")
+    @Column(name = "rating_count", nullable = false)
+    @Builder.Default
+    private Integer ratingCount = 0;
+
+    @Column(name = "score_1_count", nullable = false)
+    @Builder.Default
+    private Integer score1Count = 0;
+
+    @Column(name = "score_2_count", nullable = false)
+    @Builder.Default
+    private Integer score2Count = 0;
+
+    @Column(name = "score_3_count", nullable = false)
+    @Builder.Default
+    private Integer score3Count = 0;
+
+    @Column(name = "score_4_count", nullable = false)
+    @Builder.Default
+    private Integer score4Count = 0;
+
+    @Column(name = "score_5_count", nullable = false)
+    @Builder.Default
+    private Integer score5Count = 0;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
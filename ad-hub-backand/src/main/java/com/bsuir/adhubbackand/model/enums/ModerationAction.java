@@ -0,0 +1,16 @@
+package com.bsuir.adhubbackand.model.enums;
+
+public enum ModerationAction {
+    APPROVE(AdStatus.ACTIVE),
+    REJECT(AdStatus.BLOCKED);
+
+    private final AdStatus targetStatus;
+
+    ModerationAction(AdStatus targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+
+    public AdStatus getTargetStatus() {
+        return targetStatus;
+    }
+}
@@ -1,17 +1,31 @@
 package com.bsuir.adhubbackand.model.enums;
 
+import org.springframework.data.domain.Sort;
+
 public enum SortBy {
-    PRICE_ASC("price", "ASC"),
-    PRICE_DESC("price", "DESC"),
-    DATE_ASC("createdAt", "ASC"),
-    DATE_DESC("createdAt", "DESC"),
-    POPULARITY_DESC("viewCount", "DESC");
+    // По цене в базовой валюте: объявления в разных валютах сравнимы между собой
+    PRICE_ASC("normalizedPrice", "normalized_price", "ASC"),
+    PRICE_DESC("normalizedPrice", "normalized_price", "DESC"),
+    DATE_ASC("createdAt", "created_at", "ASC"),
+    DATE_DESC("createdAt", "created_at", "DESC"),
+    POPULARITY_DESC("viewCount", "view_count", "DESC"),
+    FAVORITES_DESC("favoriteCount", "favorite_count", "DESC"),
+    COMMENTS_DESC("commentCount", "comment_count", "DESC"),
+    // Недавние просмотры и избранное с затуханием по времени (см. HotScoreService)
+    HOT("hotScore", "hot_score", "DESC"),
+    // Релевантность текстовому запросу, считается в SearchRelevanceService
+    RELEVANCE(null, null, "DESC"),
+    // Расстояние от точки near, только для поиска по радиусу
+    DISTANCE(null, "distance_km", "ASC");
 
     private final String field;
+    // Имя колонки в таблице ads - для сортировки в нативных запросах
+    private final String column;
     private final String direction;
 
-    SortBy(String field, String direction) {
+    SortBy(String field, String column, String direction) {
         this.field = field;
+        this.column = column;
         this.direction = direction;
     }
 
@@ -19,8 +33,32 @@ public enum SortBy {
         return field;
     }
 
+    public String getColumn() {
+        return column;
+    }
+
     public String getDirection() {
         return direction;
     }
-}
 
+    /**
+     * Сортировка по полю сущности - для JPQL и производных запросов.
+     */
+    public Sort toSort() {
+        return Sort.by(order(field));
+    }
+
+    /**
+     * Сортировка по колонке ads - для нативных запросов.
+     */
+    public Sort toColumnSort() {
+        return Sort.by(order(column));
+    }
+
+    // Объявления без оценки горячести (новые колонки или сброшенные оценки) - в конце ленты,
+    // а не в начале, как NULL при DESC в PostgreSQL; индекс idx_ads_status_hot_score_desc
+    private Sort.Order order(String property) {
+        Sort.Order order = new Sort.Order(Sort.Direction.fromString(direction), property);
+        return this == HOT ? order.nullsLast() : order;
+    }
+}
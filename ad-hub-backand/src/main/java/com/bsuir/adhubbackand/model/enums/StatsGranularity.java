@@ -0,0 +1,6 @@
+package com.bsuir.adhubbackand.model.enums;
+
+public enum StatsGranularity {
+    HOUR,
+    DAY
+}
@@ -0,0 +1,29 @@
+package com.bsuir.adhubbackand.model.enums;
+
+import java.time.Duration;
+
+/**
+ * Скользящие окна популярных запросов: окно делится на интервалы,
+ * устаревший интервал целиком выбрасывается при наступлении нового.
+ */
+public enum TrendingWindow {
+    LAST_HOUR(Duration.ofMinutes(5), 12),
+    LAST_DAY(Duration.ofHours(1), 24),
+    LAST_WEEK(Duration.ofDays(1), 7);
+
+    private final Duration bucketDuration;
+    private final int bucketCount;
+
+    TrendingWindow(Duration bucketDuration, int bucketCount) {
+        this.bucketDuration = bucketDuration;
+        this.bucketCount = bucketCount;
+    }
+
+    public Duration getBucketDuration() {
+        return bucketDuration;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+}
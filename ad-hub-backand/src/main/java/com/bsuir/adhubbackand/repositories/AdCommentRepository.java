@@ -1,5 +1,6 @@
 package com.bsuir.adhubbackand.repositories;
 
+import com.bsuir.adhubbackand.model.dto.response.CommentResponse;
 import com.bsuir.adhubbackand.model.entities.AdComment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -9,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -37,6 +39,24 @@ public interface AdCommentRepository extends JpaRepository<AdComment, Long> {
     @Query("SELECT ac FROM AdComment ac WHERE ac.ad.id = :adId AND ac.isActive = true ORDER BY ac.createdAt DESC")
     List<AdComment> findActiveCommentsByAdOrderByDate(@Param("adId") Long adId, Pageable pageable);
 
+    @Query("SELECT new com.bsuir.adhubbackand.model.dto.response.CommentResponse(" +
+            "ac.id, ac.ad.id, u.id, u.username, ac.commentText, ac.isActive, ac.createdAt, ac.updatedAt) " +
+            "FROM AdComment ac JOIN ac.user u " +
+            "WHERE ac.ad.id = :adId AND ac.isActive = true " +
+            "ORDER BY ac.createdAt DESC, ac.id DESC")
+    List<CommentResponse> findActiveCommentsFirstPage(@Param("adId") Long adId, Pageable pageable);
+
+    @Query("SELECT new com.bsuir.adhubbackand.model.dto.response.CommentResponse(" +
+            "ac.id, ac.ad.id, u.id, u.username, ac.commentText, ac.isActive, ac.createdAt, ac.updatedAt) " +
+            "FROM AdComment ac JOIN ac.user u " +
+            "WHERE ac.ad.id = :adId AND ac.isActive = true " +
+            "AND (ac.createdAt < :cursorCreatedAt OR (ac.createdAt = :cursorCreatedAt AND ac.id < :cursorId)) " +
+            "ORDER BY ac.createdAt DESC, ac.id DESC")
+    List<CommentResponse> findActiveCommentsAfterCursor(@Param("adId") Long adId,
+                                                        @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                                        @Param("cursorId") Long cursorId,
+                                                        Pageable pageable);
+
     @Modifying
     @Query("UPDATE AdComment ac SET ac.isActive = false WHERE ac.id = :commentId")
     void deactivateComment(@Param("commentId") Long commentId);
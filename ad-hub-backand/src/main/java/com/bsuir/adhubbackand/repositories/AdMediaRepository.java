@@ -2,12 +2,14 @@ package com.bsuir.adhubbackand.repositories;
 
 import com.bsuir.adhubbackand.model.entities.AdMedia;
 import com.bsuir.adhubbackand.model.enums.FileType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -43,6 +45,24 @@ public interface AdMediaRepository extends JpaRepository<AdMedia, Long> {
     @Query("DELETE FROM AdMedia am WHERE am.ad.id = :adId")
     void deleteByAdId(@Param("adId") Long adId);
 
+    // Хеши изображений порциями по id (для индекса одинаковых фото)
+    @Query("SELECT am.id, am.ad.id, am.ad.user.id, am.perceptualHash FROM AdMedia am " +
+            "WHERE am.perceptualHash IS NOT NULL AND am.id > :afterId ORDER BY am.id")
+    List<Object[]> findPerceptualHashesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Изображения без хеша (загруженные до его появления)
+    @Query("SELECT am.id, am.ad.id, am.ad.user.id, am.fileUrl FROM AdMedia am " +
+            "WHERE am.perceptualHash IS NULL AND am.fileType = 'IMAGE' AND am.id > :afterId ORDER BY am.id")
+    List<Object[]> findImagesWithoutPerceptualHashAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE AdMedia am SET am.perceptualHash = :hash WHERE am.id = :mediaId")
+    int setPerceptualHash(@Param("mediaId") Long mediaId, @Param("hash") Long hash);
+
+    @Query("SELECT am.id, am.ad.id, am.perceptualHash FROM AdMedia am " +
+            "WHERE am.ad.id IN :adIds AND am.perceptualHash IS NOT NULL")
+    List<Object[]> findPerceptualHashesByAdIds(@Param("adIds") Collection<Long> adIds);
+
     @Query("SELECT am FROM AdMedia am WHERE am.ad.id = :adId ORDER BY am.displayOrder ASC, am.createdAt ASC")
     List<AdMedia> findAllByAdIdOrdered(@Param("adId") Long adId);
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,17 +25,21 @@ public interface AdRepository extends JpaRepository<Ad, Long> {
 
     List<Ad> findByCategoryId(Long categoryId);
 
-    Page<Ad> findByCategoryId(Long categoryId, Pageable pageable);
+    // Страницы с сортировкой из SortBy - строковые запросы: производные запросы строятся через
+    // Criteria API, который не поддерживает NULLS LAST (нужен для SortBy.HOT)
+    @Query("SELECT a FROM Ad a WHERE a.category.id = :categoryId")
+    Page<Ad> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
 
     List<Ad> findByStatus(AdStatus status);
 
-    Page<Ad> findByStatus(AdStatus status, Pageable pageable);
+    @Query("SELECT a FROM Ad a WHERE a.status = :status")
+    Page<Ad> findByStatus(@Param("status") AdStatus status, Pageable pageable);
 
     List<Ad> findByUserIdAndStatus(Long userId, AdStatus status);
 
     Page<Ad> findByUserIdAndStatus(Long userId, AdStatus status, Pageable pageable);
 
-    @Query("SELECT a FROM Ad a WHERE a.status = 'ACTIVE' AND a.price BETWEEN :minPrice AND :maxPrice")
+    @Query("SELECT a FROM Ad a WHERE a.status = 'ACTIVE' AND a.normalizedPrice BETWEEN :minPrice AND :maxPrice")
     List<Ad> findActiveAdsByPriceRange(@Param("minPrice") BigDecimal minPrice,
                                        @Param("maxPrice") BigDecimal maxPrice);
 
@@ -58,6 +63,9 @@ public interface AdRepository extends JpaRepository<Ad, Long> {
     @Query("SELECT COUNT(a) FROM Ad a WHERE a.user.id = :userId")
     long countByUserId(@Param("userId") Long userId);
 
+    @Query("SELECT a.user.id, a.status, COUNT(a) FROM Ad a WHERE a.user.id IN :userIds GROUP BY a.user.id, a.status")
+    List<Object[]> countByUserIdsGroupedByStatus(@Param("userIds") Collection<Long> userIds);
+
     @Query("SELECT COUNT(a) FROM Ad a WHERE a.status = :status")
     long countByStatus(@Param("status") AdStatus status);
 
@@ -65,30 +73,422 @@ public interface AdRepository extends JpaRepository<Ad, Long> {
     @Query("UPDATE Ad a SET a.status = :status WHERE a.id = :adId")
     void updateAdStatus(@Param("adId") Long adId, @Param("status") AdStatus status);
 
+    // Условный перевод из ON_MODERATION одним UPDATE: объявления, арендованные другим модератором
+    // (аренда не истекла), не меняются. RETURNING отдает реально измененные строки и время
+    // постановки в очередь (оно не меняется этим UPDATE; для объявлений, поставленных
+    // в очередь до появления moderation_queued_at, - время создания)
+    @Query(value = "UPDATE ads SET status = :newStatus, updated_at = :updatedAt, " +
+            "moderation_claimed_by = NULL, moderation_lease_until = NULL " +
+            "WHERE id IN (:adIds) AND status = 'ON_MODERATION' " +
+            "AND (moderation_claimed_by IS NULL OR moderation_claimed_by = :moderatorId " +
+            "OR moderation_lease_until < :updatedAt) " +
+            "RETURNING id, COALESCE(moderation_queued_at, created_at)", nativeQuery = true)
+    List<Object[]> moderateOnModerationAds(@Param("adIds") Collection<Long> adIds,
+                                           @Param("newStatus") String newStatus,
+                                           @Param("moderatorId") Long moderatorId,
+                                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Выдача модератору дольше всех ждущих свободных объявлений: занятые другими транзакциями строки
+    // пропускаются (SKIP LOCKED), объявления с истекшей арендой снова считаются свободными.
+    // Порядок - по времени постановки в очередь (индекс idx_ads_moderation_queue)
+    @Query(value = "UPDATE ads SET moderation_claimed_by = :moderatorId, moderation_lease_until = :leaseUntil " +
+            "WHERE id IN (" +
+            "  SELECT id FROM ads " +
+            "  WHERE status = 'ON_MODERATION' " +
+            "  AND (moderation_lease_until IS NULL OR moderation_lease_until < :now) " +
+            "  ORDER BY COALESCE(moderation_queued_at, created_at), id " +
+            "  LIMIT :limit " +
+            "  FOR UPDATE SKIP LOCKED" +
+            ") RETURNING id", nativeQuery = true)
+    List<Long> claimModerationBatch(@Param("moderatorId") Long moderatorId,
+                                    @Param("limit") int limit,
+                                    @Param("now") LocalDateTime now,
+                                    @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Лента HOT сортируется по hot_score DESC NULLS LAST; такой порядок индекса через @Index не описывается.
+    // Индекс (status, hot_score) прежней версии для этого порядка не подходит и удаляется
+    @Modifying
+    @Query(value = "CREATE INDEX IF NOT EXISTS idx_ads_status_hot_score_desc " +
+            "ON ads (status, hot_score DESC NULLS LAST)", nativeQuery = true)
+    void createHotScoreIndex();
+
+    @Modifying
+    @Query(value = "DROP INDEX IF EXISTS idx_ads_status_hot_score", nativeQuery = true)
+    void dropLegacyHotScoreIndex();
+
+    // Объявления без оценки обычно отсутствуют, поэтому частичный индекс почти пуст
+    @Modifying
+    @Query(value = "CREATE INDEX IF NOT EXISTS idx_ads_missing_hot_score " +
+            "ON ads (id) WHERE hot_score IS NULL", nativeQuery = true)
+    void createMissingHotScoreIndex();
+
+    // Индекс по выражению не описывается через @Index, поэтому создается при старте приложения
+    @Modifying
+    @Query(value = "CREATE INDEX IF NOT EXISTS idx_ads_moderation_queue " +
+            "ON ads ((COALESCE(moderation_queued_at, created_at)), id) " +
+            "WHERE status = 'ON_MODERATION'", nativeQuery = true)
+    void createModerationQueueIndex();
+
+    @Modifying
+    @Query("UPDATE Ad a SET a.moderationClaimedBy = NULL, a.moderationLeaseUntil = NULL " +
+            "WHERE a.moderationClaimedBy = :moderatorId AND a.status = 'ON_MODERATION'")
+    int releaseModerationClaims(@Param("moderatorId") Long moderatorId);
+
+    @Modifying
+    @Query("UPDATE Ad a SET a.moderationClaimedBy = NULL, a.moderationLeaseUntil = NULL " +
+            "WHERE a.moderationLeaseUntil < :now")
+    int releaseExpiredModerationClaims(@Param("now") LocalDateTime now);
+
+    // Заголовки активных объявлений порциями по id (для индекса автодополнения)
+    @Query("SELECT a.id, a.title, a.viewCount, a.favoriteCount FROM Ad a " +
+            "WHERE a.status = 'ACTIVE' AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findActiveTitlesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Основы текста активных объявлений порциями по id (для индекса похожих объявлений)
+    @Query("SELECT a.id, a.category.id, a.searchTerms FROM Ad a " +
+            "WHERE a.status = 'ACTIVE' AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findActiveSearchTermsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT a.id, a.category.id, a.status, a.searchTerms FROM Ad a WHERE a.id IN :adIds")
+    List<Object[]> findSearchTermsByIds(@Param("adIds") Collection<Long> adIds);
+
+    // Отпечатки недавних объявлений порциями по id; у записей без отпечатка - основы текста
+    @Query("SELECT a.id, a.user.id, a.category.id, a.simhash, " +
+            "CASE WHEN a.simhash IS NULL THEN a.searchTerms END, a.createdAt FROM Ad a " +
+            "WHERE a.createdAt >= :since AND a.status <> 'DELETED' AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findRecentFingerprintsAfter(@Param("since") LocalDateTime since,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    @Query("SELECT a.id, a.status, a.title FROM Ad a WHERE a.id IN :adIds")
+    List<Object[]> findStatusesAndTitlesByIds(@Param("adIds") Collection<Long> adIds);
+
+    @Query("SELECT a.id, a.category.id, a.normalizedPrice FROM Ad a WHERE a.id IN :adIds")
+    List<Object[]> findCategoriesAndPricesByIds(@Param("adIds") Collection<Long> adIds);
+
+    // Самые горячие активные объявления каждой категории (для персональной ленты):
+    // по одному проходу индекса (category_id, status, hot_score) на категорию
+    @Query(value = "SELECT t.id, t.category_id, t.user_id, t.normalized_price, t.hot_score, " +
+            "t.search_terms, t.search_title_length " +
+            "FROM categories c CROSS JOIN LATERAL (" +
+            "  SELECT a.id, a.category_id, a.user_id, a.normalized_price, a.hot_score, " +
+            "         a.search_terms, a.search_title_length " +
+            "  FROM ads a " +
+            "  WHERE a.category_id = c.id AND a.status = 'ACTIVE' AND a.hot_score IS NOT NULL " +
+            "  ORDER BY a.hot_score DESC " +
+            "  LIMIT :perCategory" +
+            ") t", nativeQuery = true)
+    List<Object[]> findHotAdsPerCategory(@Param("perCategory") int perCategory);
+
+    // Медиана цены активных объявлений по категории и валюте (для пре-модерации)
+    @Query(value = "SELECT category_id, currency, COUNT(*), " +
+            "percentile_cont(0.5) WITHIN GROUP (ORDER BY price) " +
+            "FROM ads WHERE status = 'ACTIVE' AND price > 0 " +
+            "GROUP BY category_id, currency", nativeQuery = true)
+    List<Object[]> findActivePriceMedians();
+
+    @Query("SELECT a FROM Ad a JOIN FETCH a.user JOIN FETCH a.category WHERE a.id IN :adIds ORDER BY a.createdAt, a.id")
+    List<Ad> findAllWithUserAndCategoryByIds(@Param("adIds") Collection<Long> adIds);
+
+    // Глубина очереди, число арендованных объявлений, самое раннее и среднее время ожидания (сек)
+    @Query(value = "SELECT COUNT(*), " +
+            "COUNT(*) FILTER (WHERE moderation_lease_until >= :now), " +
+            "COALESCE(MAX(EXTRACT(EPOCH FROM (:now - COALESCE(moderation_queued_at, created_at)))), 0), " +
+            "COALESCE(AVG(EXTRACT(EPOCH FROM (:now - COALESCE(moderation_queued_at, created_at)))), 0) " +
+            "FROM ads WHERE status = 'ON_MODERATION'", nativeQuery = true)
+    List<Object[]> getModerationQueueStats(@Param("now") LocalDateTime now);
+
+    @Query("SELECT a.id, a.status FROM Ad a WHERE a.id IN :adIds")
+    List<Object[]> findStatusesByIds(@Param("adIds") Collection<Long> adIds);
+
     @Modifying
     @Query("UPDATE Ad a SET a.viewCount = a.viewCount + 1 WHERE a.id = :adId")
     void incrementViewCount(@Param("adId") Long adId);
 
+    @Modifying
+    @Query("UPDATE Ad a SET " +
+            "a.favoriteCount = COALESCE(a.favoriteCount, 0) + :favoriteDelta, " +
+            "a.commentCount = COALESCE(a.commentCount, 0) + :commentDelta, " +
+            "a.mediaCount = COALESCE(a.mediaCount, 0) + :mediaDelta " +
+            "WHERE a.id IN :adIds")
+    int applyStatsDelta(@Param("adIds") List<Long> adIds,
+                        @Param("favoriteDelta") int favoriteDelta,
+                        @Param("commentDelta") int commentDelta,
+                        @Param("mediaDelta") int mediaDelta);
+
+    @Modifying
+    @Query(value = "UPDATE ads a SET " +
+            "favorite_count = s.favorite_count, " +
+            "comment_count = s.comment_count, " +
+            "media_count = s.media_count " +
+            "FROM (SELECT x.id, " +
+            "      (SELECT COUNT(*) FROM favorite_ads f WHERE f.ad_id = x.id) AS favorite_count, " +
+            "      (SELECT COUNT(*) FROM ad_comments c WHERE c.ad_id = x.id AND c.is_active = true) AS comment_count, " +
+            "      (SELECT COUNT(*) FROM ad_media m WHERE m.ad_id = x.id) AS media_count " +
+            "      FROM ads x WHERE x.id BETWEEN :fromId AND :toId) s " +
+            "WHERE a.id = s.id AND (a.favorite_count IS DISTINCT FROM s.favorite_count " +
+            "   OR a.comment_count IS DISTINCT FROM s.comment_count " +
+            "   OR a.media_count IS DISTINCT FROM s.media_count)",
+            nativeQuery = true)
+    int reconcileStats(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT MAX(a.id) FROM Ad a")
+    Optional<Long> findMaxId();
+
+    // Пересчет цены в базовой валюте диапазоном id. Курсы - параллельные массивы валют и курсов
+    // ('{USD,EUR}', '{3.27,3.55}'); валюта без курса считается базовой. Меняются только
+    // расходящиеся строки, updated_at не трогается
+    @Modifying
+    @Query(value = "UPDATE ads a SET normalized_price = n.normalized_price " +
+            "FROM (SELECT x.id, ROUND(x.price * COALESCE(r.rate, 1), 2) AS normalized_price " +
+            "      FROM ads x LEFT JOIN unnest(CAST(:currencies AS text[]), CAST(:rates AS numeric[])) " +
+            "          AS r(currency, rate) ON r.currency = UPPER(x.currency) " +
+            "      WHERE x.id BETWEEN :fromId AND :toId) n " +
+            "WHERE a.id = n.id AND a.normalized_price IS DISTINCT FROM n.normalized_price",
+            nativeQuery = true)
+    int recomputeNormalizedPrices(@Param("fromId") Long fromId,
+                                  @Param("toId") Long toId,
+                                  @Param("currencies") String currencies,
+                                  @Param("rates") String rates);
+
+    // Добавление событий к оценке горячести: ln(e^hot_score + e^delta) без переполнения.
+    // Объявления без оценки пропускаются - их заполнит fillMissingHotScores
+    @Modifying
+    @Query(value = "UPDATE ads a SET hot_score = GREATEST(a.hot_score, u.delta) " +
+            "    + LN(1 + EXP(-ABS(a.hot_score - u.delta))) " +
+            "FROM unnest(CAST(:adIds AS bigint[]), CAST(:deltas AS float8[])) AS u(id, delta) " +
+            "WHERE a.id = u.id AND a.hot_score IS NOT NULL",
+            nativeQuery = true)
+    int addHotScoreEvents(@Param("adIds") String adIds, @Param("deltas") String deltas);
+
+    // Объявления без оценки горячести порциями по id (частичный индекс idx_ads_missing_hot_score)
+    @Query("SELECT a.id FROM Ad a WHERE a.hotScore IS NULL AND a.id > :afterId ORDER BY a.id")
+    List<Long> findIdsWithoutHotScoreAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Начальная оценка горячести по счетчикам (см. HotScoreService.fillMissing)
+    @Modifying
+    @Query(value = "UPDATE ads SET hot_score = " +
+            "LN(:creationWeight + :viewWeight * COALESCE(view_count, 0) + :favoriteWeight * COALESCE(favorite_count, 0)) " +
+            "+ EXTRACT(EPOCH FROM (created_at - :epoch)) / :tauSeconds " +
+            "WHERE id IN (:adIds) AND hot_score IS NULL",
+            nativeQuery = true)
+    int fillMissingHotScores(@Param("adIds") Collection<Long> adIds,
+                             @Param("epoch") LocalDateTime epoch,
+                             @Param("tauSeconds") double tauSeconds,
+                             @Param("creationWeight") double creationWeight,
+                             @Param("viewWeight") double viewWeight,
+                             @Param("favoriteWeight") double favoriteWeight);
+
     @Query("SELECT a FROM Ad a WHERE a.createdAt < :date AND a.status = 'ACTIVE'")
     List<Ad> findOldActiveAds(@Param("date") LocalDateTime date);
 
     @Query("SELECT a FROM Ad a WHERE a.user.id = :userId AND a.status = 'ACTIVE' ORDER BY a.createdAt DESC")
     List<Ad> findActiveAdsByUser(@Param("userId") Long userId, Pageable pageable);
 
-    @Query("SELECT a FROM Ad a WHERE " +
-            "a.status = 'ACTIVE' " +
-            "AND (:searchQuery IS NULL OR :searchQuery = '' OR " +
-            "     (LOWER(a.title) LIKE LOWER(CONCAT('%', :searchQuery, '%')) OR " +
-            "      LOWER(a.description) LIKE LOWER(CONCAT('%', :searchQuery, '%')))) " +
-            "AND (:categoryId IS NULL OR a.category.id = :categoryId) " +
-            "AND (:minPrice IS NULL OR a.price >= :minPrice) " +
-            "AND (:maxPrice IS NULL OR a.price <= :maxPrice) " +
-            "AND (:location IS NULL OR :location = '' OR LOWER(a.location) LIKE LOWER(CONCAT('%', :location, '%')))")
+    // Поиск активных объявлений. Текст ищется по основам слов (ads.search_terms, индекс
+    // из scripts/create_ad_search_indexes.sql); еще не проиндексированные объявления - по подстроке.
+    // Сортировка передается в Pageable именами колонок (SortBy.getColumn)
+    @Query(value = "SELECT a.* FROM ads a WHERE a.status = 'ACTIVE' " +
+            "AND (CAST(:tsQuery AS text) IS NULL " +
+            "     OR to_tsvector('simple', COALESCE(a.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+            "     OR (a.search_terms IS NULL AND (LOWER(a.title) LIKE CONCAT('%', LOWER(:searchQuery), '%') " +
+            "         OR LOWER(a.description) LIKE CONCAT('%', LOWER(:searchQuery), '%')))) " +
+            "AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+            "AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+            "AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%'))",
+            countQuery = "SELECT COUNT(*) FROM ads a WHERE a.status = 'ACTIVE' " +
+                    "AND (CAST(:tsQuery AS text) IS NULL " +
+                    "     OR to_tsvector('simple', COALESCE(a.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+                    "     OR (a.search_terms IS NULL AND (LOWER(a.title) LIKE CONCAT('%', LOWER(:searchQuery), '%') " +
+                    "         OR LOWER(a.description) LIKE CONCAT('%', LOWER(:searchQuery), '%')))) " +
+                    "AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+                    "AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+                    "AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+                    "AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%'))",
+            nativeQuery = true)
     Page<Ad> searchAdsWithFilters(
+            @Param("tsQuery") String tsQuery,
             @Param("searchQuery") String searchQuery,
             @Param("categoryId") Long categoryId,
             @Param("minPrice") BigDecimal minPrice,
             @Param("maxPrice") BigDecimal maxPrice,
             @Param("location") String location,
             Pageable pageable);
-}
\ No newline at end of file
+
+    // Фасеты результатов поиска за один проход: число объявлений по категориям, ценовым
+    // диапазонам (номер диапазона по границам priceBounds) и городам. Условия - как в searchAdsWithFilters.
+    // Колонки: GROUPING по категории, цене, городу; id и название категории; диапазон; город; число
+    @Query(value = "SELECT GROUPING(f.category_id), GROUPING(f.price_bucket), GROUPING(f.location_key), " +
+            "f.category_id, MIN(f.category_name), f.price_bucket, MIN(f.location), COUNT(*) " +
+            "FROM (SELECT a.category_id, c.name AS category_name, a.location, " +
+            "      width_bucket(a.normalized_price, CAST(:priceBounds AS numeric[])) AS price_bucket, " +
+            "      LOWER(TRIM(a.location)) AS location_key " +
+            "      FROM ads a JOIN categories c ON c.id = a.category_id " +
+            "      WHERE a.status = 'ACTIVE' " +
+            "      AND (CAST(:tsQuery AS text) IS NULL " +
+            "           OR to_tsvector('simple', COALESCE(a.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+            "           OR (a.search_terms IS NULL AND (LOWER(a.title) LIKE CONCAT('%', LOWER(:searchQuery), '%') " +
+            "               OR LOWER(a.description) LIKE CONCAT('%', LOWER(:searchQuery), '%')))) " +
+            "      AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+            "      AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+            "      AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+            "      AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%'))) f " +
+            "GROUP BY GROUPING SETS ((f.category_id), (f.price_bucket), (f.location_key))",
+            nativeQuery = true)
+    List<Object[]> countSearchFacets(
+            @Param("tsQuery") String tsQuery,
+            @Param("searchQuery") String searchQuery,
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("location") String location,
+            @Param("priceBounds") String priceBounds);
+
+    // Кандидаты для ранжирования по релевантности: самые новые подходящие объявления
+    @Query(value = "SELECT a.id, a.search_terms, a.search_title_length, a.created_at, a.view_count, a.favorite_count " +
+            "FROM ads a WHERE a.status = 'ACTIVE' " +
+            "AND to_tsvector('simple', COALESCE(a.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+            "AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+            "AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+            "AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%')) " +
+            "ORDER BY a.created_at DESC LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findRelevanceCandidates(
+            @Param("tsQuery") String tsQuery,
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("location") String location,
+            @Param("limit") int limit);
+
+    // Документная частота: число активных объявлений, подходящих под запрос
+    @Query(value = "SELECT COUNT(*) FROM ads a WHERE a.status = 'ACTIVE' " +
+            "AND to_tsvector('simple', COALESCE(a.search_terms, '')) @@ to_tsquery('simple', :tsQuery)",
+            nativeQuery = true)
+    long countActiveMatching(@Param("tsQuery") String tsQuery);
+
+    // Число проиндексированных активных объявлений и средняя длина заголовка и описания в основах
+    @Query(value = "SELECT COUNT(*), AVG(a.search_title_length), " +
+            "AVG(COALESCE(array_length(string_to_array(a.search_terms, ' '), 1), 0) - a.search_title_length) " +
+            "FROM ads a WHERE a.status = 'ACTIVE' AND a.search_terms IS NOT NULL AND a.search_title_length IS NOT NULL",
+            nativeQuery = true)
+    List<Object[]> getSearchCorpusStats();
+
+    // Объявления без поискового индекса (или с индексом без смещений), порциями по id
+    @Query("SELECT a.id, a.title, a.description, a.updatedAt FROM Ad a " +
+            "WHERE (a.searchTerms IS NULL OR a.searchTitleLength IS NULL) AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findAdsWithoutSearchTerms(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Не перезаписывает индекс, если объявление успели отредактировать после чтения
+    @Modifying
+    @Query("UPDATE Ad a SET a.searchTerms = :searchTerms, a.searchTitleLength = :titleLength, " +
+            "a.searchOffsets = :offsets WHERE a.id = :id AND a.updatedAt = :updatedAt")
+    int fillSearchTerms(@Param("id") Long id,
+                        @Param("searchTerms") String searchTerms,
+                        @Param("titleLength") Integer titleLength,
+                        @Param("offsets") String offsets,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Объявления, для которых еще не определялись координаты, порциями по id
+    @Query("SELECT a.id, a.location, a.updatedAt FROM Ad a " +
+            "WHERE a.geohash IS NULL AND a.id > :afterId ORDER BY a.id")
+    List<Object[]> findAdsWithoutGeohash(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Ad a SET a.latitude = :latitude, a.longitude = :longitude, a.geohash = :geohash " +
+            "WHERE a.id = :id AND a.updatedAt = :updatedAt")
+    int fillGeoLocation(@Param("id") Long id,
+                        @Param("latitude") Double latitude,
+                        @Param("longitude") Double longitude,
+                        @Param("geohash") String geohash,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Поиск в радиусе от точки. Ячейки геохеша, покрывающие окрестность, передаются
+    // диапазонами [cellStarts[i], cellEnds[i]) - каждый читается по индексу (status, geohash);
+    // точное расстояние считается только для объявлений из этих ячеек.
+    // Остальные условия - как в searchAdsWithFilters. Сортировка - колонки ads или distance_km
+    @Query(value = "SELECT a.* FROM (" +
+            "SELECT d.*, 2 * 6371 * ASIN(SQRT(POWER(SIN(RADIANS(d.latitude - :latitude) / 2), 2) " +
+            "    + COS(RADIANS(:latitude)) * COS(RADIANS(d.latitude)) " +
+            "    * POWER(SIN(RADIANS(d.longitude - :longitude) / 2), 2))) AS distance_km " +
+            "FROM ads d JOIN unnest(CAST(:cellStarts AS text[]), CAST(:cellEnds AS text[])) AS cell(lo, hi) " +
+            "    ON d.geohash >= cell.lo AND d.geohash < cell.hi " +
+            "WHERE d.status = 'ACTIVE' " +
+            "AND (CAST(:tsQuery AS text) IS NULL " +
+            "     OR to_tsvector('simple', COALESCE(d.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+            "     OR (d.search_terms IS NULL AND (LOWER(d.title) LIKE CONCAT('%', LOWER(:searchQuery), '%') " +
+            "         OR LOWER(d.description) LIKE CONCAT('%', LOWER(:searchQuery), '%')))) " +
+            "AND (CAST(:categoryId AS bigint) IS NULL OR d.category_id = :categoryId) " +
+            "AND (CAST(:minPrice AS numeric) IS NULL OR d.normalized_price >= :minPrice) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR d.normalized_price <= :maxPrice) " +
+            "AND (CAST(:location AS text) IS NULL OR LOWER(d.location) LIKE CONCAT('%', LOWER(:location), '%'))" +
+            ") a WHERE a.distance_km <= :radiusKm",
+            countQuery = "SELECT COUNT(*) FROM (" +
+                    "SELECT d.*, 2 * 6371 * ASIN(SQRT(POWER(SIN(RADIANS(d.latitude - :latitude) / 2), 2) " +
+                    "    + COS(RADIANS(:latitude)) * COS(RADIANS(d.latitude)) " +
+                    "    * POWER(SIN(RADIANS(d.longitude - :longitude) / 2), 2))) AS distance_km " +
+                    "FROM ads d JOIN unnest(CAST(:cellStarts AS text[]), CAST(:cellEnds AS text[])) AS cell(lo, hi) " +
+                    "    ON d.geohash >= cell.lo AND d.geohash < cell.hi " +
+                    "WHERE d.status = 'ACTIVE' " +
+                    "AND (CAST(:tsQuery AS text) IS NULL " +
+                    "     OR to_tsvector('simple', COALESCE(d.search_terms, '')) @@ to_tsquery('simple', :tsQuery) " +
+                    "     OR (d.search_terms IS NULL AND (LOWER(d.title) LIKE CONCAT('%', LOWER(:searchQuery), '%') " +
+                    "         OR LOWER(d.description) LIKE CONCAT('%', LOWER(:searchQuery), '%')))) " +
+                    "AND (CAST(:categoryId AS bigint) IS NULL OR d.category_id = :categoryId) " +
+                    "AND (CAST(:minPrice AS numeric) IS NULL OR d.normalized_price >= :minPrice) " +
+                    "AND (CAST(:maxPrice AS numeric) IS NULL OR d.normalized_price <= :maxPrice) " +
+                    "AND (CAST(:location AS text) IS NULL OR LOWER(d.location) LIKE CONCAT('%', LOWER(:location), '%'))" +
+                    ") a WHERE a.distance_km <= :radiusKm",
+            nativeQuery = true)
+    Page<Ad> searchAdsNear(
+            @Param("latitude") double latitude,
+            @Param("longitude") double longitude,
+            @Param("radiusKm") double radiusKm,
+            @Param("cellStarts") String cellStarts,
+            @Param("cellEnds") String cellEnds,
+            @Param("tsQuery") String tsQuery,
+            @Param("searchQuery") String searchQuery,
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("location") String location,
+            Pageable pageable);
+
+    // Нечеткий поиск по триграммам заголовка (pg_trgm, порог - pg_trgm.word_similarity_threshold).
+    // Точные совпадения идут первыми, затем - по убыванию сходства с любым из вариантов запроса
+    @Query(value = "SELECT a.* FROM ads a WHERE a.status = 'ACTIVE' " +
+            "AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+            "AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+            "AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%')) " +
+            "AND (:query <% LOWER(a.title) OR :layoutQuery <% LOWER(a.title) OR :translitQuery <% LOWER(a.title) " +
+            "     OR LOWER(a.title) LIKE CONCAT('%', :query, '%') OR LOWER(a.description) LIKE CONCAT('%', :query, '%')) " +
+            "ORDER BY (LOWER(a.title) LIKE CONCAT('%', :query, '%') " +
+            "          OR LOWER(a.description) LIKE CONCAT('%', :query, '%')) DESC, " +
+            "GREATEST(word_similarity(:query, LOWER(a.title)), word_similarity(:layoutQuery, LOWER(a.title)), " +
+            "         word_similarity(:translitQuery, LOWER(a.title))) DESC, " +
+            "a.created_at DESC, a.id DESC",
+            countQuery = "SELECT COUNT(*) FROM ads a WHERE a.status = 'ACTIVE' " +
+                    "AND (CAST(:categoryId AS bigint) IS NULL OR a.category_id = :categoryId) " +
+                    "AND (CAST(:minPrice AS numeric) IS NULL OR a.normalized_price >= :minPrice) " +
+                    "AND (CAST(:maxPrice AS numeric) IS NULL OR a.normalized_price <= :maxPrice) " +
+                    "AND (CAST(:location AS text) IS NULL OR LOWER(a.location) LIKE CONCAT('%', LOWER(:location), '%')) " +
+                    "AND (:query <% LOWER(a.title) OR :layoutQuery <% LOWER(a.title) OR :translitQuery <% LOWER(a.title) " +
+                    "     OR LOWER(a.title) LIKE CONCAT('%', :query, '%') OR LOWER(a.description) LIKE CONCAT('%', :query, '%'))",
+            nativeQuery = true)
+    Page<Ad> fuzzySearchAds(
+            @Param("query") String query,
+            @Param("layoutQuery") String layoutQuery,
+            @Param("translitQuery") String translitQuery,
+            @Param("categoryId") Long categoryId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
+            @Param("location") String location,
+            Pageable pageable);
+
+    // Порог сходства для операторов <% до конца текущей транзакции
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setWordSimilarityThreshold(@Param("threshold") String threshold);
+}
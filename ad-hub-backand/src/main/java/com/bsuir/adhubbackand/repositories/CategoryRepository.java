@@ -30,4 +30,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     @Query("SELECT c, COUNT(a) as adCount FROM Category c LEFT JOIN c.ads a GROUP BY c ORDER BY adCount DESC")
     List<Object[]> findCategoriesWithAdCount();
-}
\ No newline at end of file
+
+    @Query("SELECT c.name, COUNT(a) FROM Category c LEFT JOIN c.ads a ON a.status = 'ACTIVE' GROUP BY c.id, c.name")
+    List<Object[]> findNamesWithActiveAdCounts();
+}
@@ -1,5 +1,6 @@
 package com.bsuir.adhubbackand.repositories;
 
+import com.bsuir.adhubbackand.model.dto.projection.FavoriteAdProjection;
 import com.bsuir.adhubbackand.model.entities.FavoriteAd;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -44,6 +45,20 @@ public interface FavoriteAdRepository extends JpaRepository<FavoriteAd, Long> {
     @Query("SELECT fa.ad.id FROM FavoriteAd fa WHERE fa.user.id = :userId")
     List<Long> findAdIdsByUserId(@Param("userId") Long userId);
 
+    @Query("SELECT new com.bsuir.adhubbackand.model.dto.projection.FavoriteAdProjection(" +
+            "fa.id, a.id, a.title, a.description, a.price, a.currency, a.location, a.status, " +
+            "am.id, am.fileUrl, am.fileType, am.isPrimary, am.displayOrder, fa.createdAt) " +
+            "FROM FavoriteAd fa " +
+            "JOIN fa.ad a " +
+            "LEFT JOIN AdMedia am ON am.id = (SELECT MIN(m.id) FROM AdMedia m " +
+            "WHERE m.ad.id = a.id AND m.isPrimary = true) " +
+            "WHERE fa.user.id = :userId " +
+            "AND (:cursor IS NULL OR fa.id < :cursor) " +
+            "ORDER BY fa.id DESC")
+    List<FavoriteAdProjection> findFavoritePage(@Param("userId") Long userId,
+                                                @Param("cursor") Long cursor,
+                                                Pageable pageable);
+
     @Query("SELECT COUNT(fa) FROM FavoriteAd fa WHERE fa.ad.id IN :adIds")
     long countFavoritesByAdIds(@Param("adIds") List<Long> adIds);
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -55,4 +56,16 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT n FROM Notification n WHERE n.sentAt >= :startDate AND n.sentAt < :endDate")
     List<Notification> findNotificationsBetweenDates(@Param("startDate") LocalDateTime startDate,
                                                      @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // Одно уведомление владельцу каждого объявления из списка, одним INSERT ... SELECT
+    @Modifying
+    @Query(value = "INSERT INTO notifications (user_id, type_id, title, message, sent_at, is_read, related_ad_id) " +
+            "SELECT a.user_id, :typeId, :title, CONCAT(:messagePrefix, a.title, :messageSuffix), :sentAt, false, a.id " +
+            "FROM ads a WHERE a.id IN (:adIds)", nativeQuery = true)
+    int insertAdNotifications(@Param("adIds") Collection<Long> adIds,
+                              @Param("typeId") Long typeId,
+                              @Param("title") String title,
+                              @Param("messagePrefix") String messagePrefix,
+                              @Param("messageSuffix") String messageSuffix,
+                              @Param("sentAt") LocalDateTime sentAt);
+}
@@ -0,0 +1,20 @@
+package com.bsuir.adhubbackand.repositories;
+
+import com.bsuir.adhubbackand.model.entities.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+
+    List<SavedSearch> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    long countByUserId(Long userId);
+
+    // Все сохраненные поиски без загрузки пользователей - для построения обратного индекса
+    @Query("SELECT s.id, s.user.id, s.name, s.queryText, s.filters FROM SavedSearch s")
+    List<Object[]> findAllForIndex();
+}
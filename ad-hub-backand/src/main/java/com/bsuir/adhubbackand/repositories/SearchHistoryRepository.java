@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Long> {
@@ -24,6 +25,9 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     @Query("SELECT sh FROM SearchHistory sh WHERE sh.user.id = :userId ORDER BY sh.searchDate DESC")
     List<SearchHistory> findRecentSearchesByUser(@Param("userId") Long userId, Pageable pageable);
 
+    @Query("SELECT sh.queryText, sh.filters FROM SearchHistory sh WHERE sh.user.id = :userId ORDER BY sh.searchDate DESC")
+    List<Object[]> findRecentQueriesAndFiltersByUser(@Param("userId") Long userId, Pageable pageable);
+
     @Query("SELECT sh.queryText, COUNT(sh) as searchCount FROM SearchHistory sh WHERE sh.searchDate >= :sinceDate GROUP BY sh.queryText ORDER BY searchCount DESC")
     List<Object[]> findPopularSearches(@Param("sinceDate") LocalDateTime sinceDate, Pageable pageable);
 
@@ -40,4 +44,23 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
 
     @Query("SELECT DISTINCT sh.queryText FROM SearchHistory sh WHERE sh.user.id = :userId AND LOWER(sh.queryText) LIKE LOWER(CONCAT('%', :query, '%')) ORDER BY sh.searchDate DESC")
     List<String> findSimilarQueriesByUser(@Param("userId") Long userId, @Param("query") String query, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT MIN(sh.searchDate) FROM SearchHistory sh")
+    Optional<LocalDateTime> findFirstSearchDate();
+
+    @Query("SELECT COUNT(sh) FROM SearchHistory sh WHERE sh.searchDate >= :from AND sh.searchDate < :to")
+    long countBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Всего запросов, различных запросов и запросов без результатов за интервал
+    @Query("SELECT COUNT(sh), COUNT(DISTINCT sh.queryText), " +
+            "COALESCE(SUM(CASE WHEN sh.resultsCount = 0 THEN 1 ELSE 0 END), 0) " +
+            "FROM SearchHistory sh WHERE sh.searchDate >= :from AND sh.searchDate < :to")
+    List<Object[]> aggregateBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT sh.queryText, COUNT(sh) FROM SearchHistory sh " +
+            "WHERE sh.searchDate >= :from AND sh.searchDate < :to " +
+            "GROUP BY sh.queryText ORDER BY COUNT(sh) DESC, sh.queryText")
+    List<Object[]> findTopQueriesBetween(@Param("from") LocalDateTime from,
+                                         @Param("to") LocalDateTime to,
+                                         Pageable pageable);
+}
@@ -0,0 +1,24 @@
+package com.bsuir.adhubbackand.repositories;
+
+import com.bsuir.adhubbackand.model.entities.SearchStatsRollup;
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SearchStatsRollupRepository extends JpaRepository<SearchStatsRollup, Long> {
+
+    @Query("SELECT MAX(r.bucketStart) FROM SearchStatsRollup r WHERE r.granularity = :granularity")
+    Optional<LocalDateTime> findLastBucketStart(@Param("granularity") StatsGranularity granularity);
+
+    @Query("SELECT COALESCE(SUM(r.totalSearches), 0) FROM SearchStatsRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to")
+    long sumTotalSearches(@Param("granularity") StatsGranularity granularity,
+                          @Param("from") LocalDateTime from,
+                          @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,22 @@
+package com.bsuir.adhubbackand.repositories;
+
+import com.bsuir.adhubbackand.model.entities.SearchTopQuery;
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SearchTopQueryRepository extends JpaRepository<SearchTopQuery, Long> {
+
+    @Query("SELECT t.queryText, SUM(t.searchCount) FROM SearchTopQuery t " +
+            "WHERE t.granularity = :granularity AND t.bucketStart >= :from AND t.bucketStart < :to " +
+            "GROUP BY t.queryText")
+    List<Object[]> sumByQuery(@Param("granularity") StatsGranularity granularity,
+                              @Param("from") LocalDateTime from,
+                              @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,9 @@
+package com.bsuir.adhubbackand.repositories;
+
+import com.bsuir.adhubbackand.model.entities.TrendingSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TrendingSnapshotRepository extends JpaRepository<TrendingSnapshot, Long> {
+}
@@ -37,6 +37,12 @@ public interface UserRatingRepository extends JpaRepository<UserRating, Long> {
     @Query("SELECT ur FROM UserRating ur WHERE ur.ratedUser.id = :userId ORDER BY ur.createdAt DESC")
     List<UserRating> findLatestRatingsByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    @Query("SELECT ur FROM UserRating ur JOIN FETCH ur.raterUser WHERE ur.ratedUser.id = :userId ORDER BY ur.createdAt DESC, ur.id DESC")
+    List<UserRating> findPageByRatedUserIdWithRater(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT ur.ratingValue, COUNT(ur) FROM UserRating ur WHERE ur.ratedUser.id = :userId GROUP BY ur.ratingValue")
+    List<Object[]> countByRatingValueForUser(@Param("userId") Long userId);
+
     @Query("SELECT ur.ratedUser.id, AVG(ur.ratingValue) as avgRating FROM UserRating ur GROUP BY ur.ratedUser.id HAVING COUNT(ur) >= :minRatings ORDER BY avgRating DESC")
     List<Object[]> findTopRatedUsers(@Param("minRatings") int minRatings, Pageable pageable);
 
@@ -0,0 +1,61 @@
+package com.bsuir.adhubbackand.repositories;
+
+import com.bsuir.adhubbackand.model.entities.UserRatingStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserRatingStatsRepository extends JpaRepository<UserRatingStats, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserRatingStats s WHERE s.userId = :userId")
+    Optional<UserRatingStats> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Query("SELECT s.userId, u.username, s.ratingSum, s.ratingCount FROM UserRatingStats s " +
+            "JOIN User u ON u.id = s.userId " +
+            "WHERE s.ratingCount > 0 AND u.status = 'ACTIVE'")
+    List<Object[]> findLeaderboardRows();
+
+    /**
+     * Создает агрегаты пользователя по его существующим оценкам, если строки еще нет.
+     * При параллельной вставке той же строки ничего не делает.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_rating_stats (user_id, rating_sum, rating_count, " +
+            "score_1_count, score_2_count, score_3_count, score_4_count, score_5_count, updated_at) " +
+            "SELECT :userId, COALESCE(SUM(ur.rating_value), 0), COUNT(*), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 1), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 2), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 3), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 4), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 5), NOW() " +
+            "FROM user_ratings ur " +
+            "WHERE ur.rated_user_id = :userId " +
+            "ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertStatsFromRatings(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO user_rating_stats (user_id, rating_sum, rating_count, " +
+            "score_1_count, score_2_count, score_3_count, score_4_count, score_5_count, updated_at) " +
+            "SELECT ur.rated_user_id, SUM(ur.rating_value), COUNT(*), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 1), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 2), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 3), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 4), " +
+            "COUNT(*) FILTER (WHERE ROUND(ur.rating_value) = 5), NOW() " +
+            "FROM user_ratings ur " +
+            "WHERE NOT EXISTS (SELECT 1 FROM user_rating_stats s WHERE s.user_id = ur.rated_user_id) " +
+            "GROUP BY ur.rated_user_id " +
+            "ON CONFLICT (user_id) DO NOTHING",
+            nativeQuery = true)
+    int backfillMissingStats();
+}
@@ -1,5 +1,6 @@
 package com.bsuir.adhubbackand.repositories;
 
+import com.bsuir.adhubbackand.model.dto.projection.AdminUserProjection;
 import com.bsuir.adhubbackand.model.entities.User;
 import com.bsuir.adhubbackand.model.enums.UserStatus;
 import org.springframework.data.domain.Page;
@@ -62,4 +63,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT u FROM User u WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) OR LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%'))")
     Page<User> searchUsers(@Param("query") String query, Pageable pageable);
+
+    // Поиск по подстроке обслуживается триграммными индексами по lower(username) и lower(email),
+    // см. scripts/create_user_search_indexes.sql
+    @Query(value = "SELECT new com.bsuir.adhubbackand.model.dto.projection.AdminUserProjection(" +
+            "u.id, u.username, u.email, u.firstName, u.lastName, u.phone, r.name, " +
+            "u.status, u.rating, u.createdAt, u.lastLogin) " +
+            "FROM User u JOIN u.role r " +
+            "WHERE :query IS NULL " +
+            "OR LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) " +
+            "OR LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%'))",
+            countQuery = "SELECT COUNT(u) FROM User u " +
+                    "WHERE :query IS NULL " +
+                    "OR LOWER(u.username) LIKE LOWER(CONCAT('%', :query, '%')) " +
+                    "OR LOWER(u.email) LIKE LOWER(CONCAT('%', :query, '%'))")
+    Page<AdminUserProjection> findAdminUserPage(@Param("query") String query, Pageable pageable);
 }
@@ -3,9 +3,11 @@ package com.bsuir.adhubbackand.services;
 import com.bsuir.adhubbackand.exception.AccessDeniedException;
 import com.bsuir.adhubbackand.exception.AdNotFoundException;
 import com.bsuir.adhubbackand.exception.CommentNotFoundException;
+import com.bsuir.adhubbackand.exception.InvalidCursorException;
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
 import com.bsuir.adhubbackand.model.dto.request.comment.CreateCommentRequest;
 import com.bsuir.adhubbackand.model.dto.request.comment.UpdateCommentRequest;
+import com.bsuir.adhubbackand.model.dto.response.CommentPageResponse;
 import com.bsuir.adhubbackand.model.dto.response.CommentResponse;
 import com.bsuir.adhubbackand.model.entities.Ad;
 import com.bsuir.adhubbackand.model.entities.AdComment;
@@ -16,22 +18,28 @@ import com.bsuir.adhubbackand.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AdCommentService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String CURSOR_SEPARATOR = "|";
+
     private final AdCommentRepository commentRepository;
     private final AdRepository adRepository;
     private final UserRepository userRepository;
+    private final AdStatsService adStatsService;
+    private final CommentPageCache commentPageCache;
 
     @Transactional
     public CommentResponse createComment(Long adId, Long userId, CreateCommentRequest request) {
@@ -49,22 +57,80 @@ public class AdCommentService {
                 .build();
 
         AdComment savedComment = commentRepository.save(comment);
+        adStatsService.commentAdded(adId);
+        commentPageCache.invalidate(adId);
         log.info("Комментарий создан: commentId={}, adId={}, userId={}", savedComment.getId(), adId, userId);
 
         return mapToResponse(savedComment);
     }
 
-    public List<CommentResponse> getCommentsByAdId(Long adId) {
-        if (!adRepository.existsById(adId)) {
+    /**
+     * Страница активных комментариев (новые сначала) с курсором по (created_at, id).
+     * Имена авторов выбираются тем же запросом. Первая страница берется из кэша.
+     *
+     * @param cursor значение nextCursor предыдущей страницы (null - первая страница)
+     */
+    @Transactional(readOnly = true)
+    public CommentPageResponse getCommentsByAdId(Long adId, String cursor, Integer size) {
+        int pageSize = size != null && size > 0 ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<CommentResponse> rows;
+        if (cursor == null || cursor.isBlank()) {
+            List<CommentResponse> firstPage = loadFirstPage(adId);
+            rows = firstPage.subList(0, Math.min(firstPage.size(), pageSize + 1));
+        } else {
+            CommentCursor commentCursor = decodeCursor(cursor);
+            rows = commentRepository.findActiveCommentsAfterCursor(
+                    adId, commentCursor.createdAt(), commentCursor.id(), PageRequest.of(0, pageSize + 1));
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<CommentResponse> comments = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? encodeCursor(comments.get(comments.size() - 1)) : null;
+
+        return new CommentPageResponse(List.copyOf(comments), nextCursor, hasNext);
+    }
+
+    private List<CommentResponse> loadFirstPage(Long adId) {
+        List<CommentResponse> cached = commentPageCache.getFirstPage(adId);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Кэшируем максимальную страницу (+1 запись), чтобы обслуживать из кэша любой размер
+        long generation = commentPageCache.currentGeneration();
+        List<CommentResponse> firstPage = commentRepository.findActiveCommentsFirstPage(
+                adId, PageRequest.of(0, MAX_PAGE_SIZE + 1));
+
+        // Существование объявления проверяем только если комментариев нет
+        if (firstPage.isEmpty() && !adRepository.existsById(adId)) {
             throw new AdNotFoundException(adId);
         }
 
-        Pageable pageable = PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "createdAt"));
-        List<AdComment> comments = commentRepository.findByAdIdAndIsActiveTrue(adId, pageable).getContent();
+        commentPageCache.putFirstPage(adId, firstPage, generation);
+        return firstPage;
+    }
+
+    private String encodeCursor(CommentResponse comment) {
+        String raw = comment.createdAt() + CURSOR_SEPARATOR + comment.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CommentCursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(CURSOR_SEPARATOR);
+            return new CommentCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
 
-        return comments.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    private record CommentCursor(LocalDateTime createdAt, Long id) {
     }
 
     @Transactional
@@ -93,6 +159,7 @@ public class AdCommentService {
 
         comment.setCommentText(request.commentText());
         AdComment updatedComment = commentRepository.save(comment);
+        commentPageCache.invalidate(adId);
         log.info("Комментарий обновлен: commentId={}, adId={}", commentId, adId);
 
         return mapToResponse(updatedComment);
@@ -120,8 +187,13 @@ public class AdCommentService {
         }
 
         // Мягкое удаление - деактивируем комментарий
+        boolean wasActive = Boolean.TRUE.equals(comment.getIsActive());
         comment.setIsActive(false);
         commentRepository.save(comment);
+        if (wasActive) {
+            adStatsService.commentRemoved(adId);
+            commentPageCache.invalidate(adId);
+        }
         log.info("Комментарий удален: commentId={}, adId={}", commentId, adId);
     }
 
@@ -0,0 +1,63 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Заполняет координаты и геохеш объявлений, для которых они еще не определялись: созданных
+ * до появления колонок или сброшенных после изменения справочника (UPDATE ads SET geohash = NULL).
+ * Новые объявления и объявления со смененным местоположением обрабатываются сразу в AdService.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdGeoIndexer {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final AdRepository adRepository;
+    private final GeoGazetteer geoGazetteer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${geo.backfill-interval-ms:300000}", initialDelay = 30_000)
+    public void locateMissing() {
+        long lastId = 0;
+        int located = 0;
+        int processed = 0;
+        List<Object[]> batch;
+        do {
+            batch = adRepository.findAdsWithoutGeohash(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Object[]> rows = batch;
+            Integer found = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Object[] row : rows) {
+                    GeoGazetteer.Location location = geoGazetteer.locate((String) row[1]);
+                    adRepository.fillGeoLocation((Long) row[0], location.latitude(), location.longitude(),
+                            location.geohash(), (LocalDateTime) row[2]);
+                    if (location.latitude() != null) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            located += found != null ? found : 0;
+            processed += batch.size();
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        } while (batch.size() == BATCH_SIZE);
+
+        if (processed > 0) {
+            log.info("Координаты объявлений дополнены: обработано={}, найдено={}", processed, located);
+        }
+    }
+}
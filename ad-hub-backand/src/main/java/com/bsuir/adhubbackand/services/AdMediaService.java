@@ -9,12 +9,18 @@ import com.bsuir.adhubbackand.model.entities.AdMedia;
 import com.bsuir.adhubbackand.model.enums.FileType;
 import com.bsuir.adhubbackand.repositories.AdMediaRepository;
 import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.PerceptualHash;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -27,11 +33,19 @@ public class AdMediaService {
     private final AdRepository adRepository;
     private final AdMediaRepository adMediaRepository;
     private final FileStorageService fileStorageService;
+    private final AdStatsService adStatsService;
+    private final PhotoHashIndex photoHashIndex;
+    private final TransactionTemplate transactionTemplate;
 
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
             "image/jpeg", "image/png", "image/gif", "image/webp"
     );
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int HASH_BACKFILL_BATCH_SIZE = 100;
+
+    // Последний просмотренный id при дозаполнении хешей: не поддающиеся декодированию
+    // изображения (WebP) до перезапуска повторно не скачиваются
+    private long hashBackfillCursor = 0;
 
     @Transactional
     public AdMediaResponse uploadMedia(Long adId, Long userId, MultipartFile file) {
@@ -44,6 +58,7 @@ public class AdMediaService {
         }
 
         validateImageFile(file);
+        Long perceptualHash = perceptualHash(file);
 
         // Генерируем имя файла
         String fileName = generateMediaFileName(file);
@@ -72,9 +87,12 @@ public class AdMediaService {
                 .fileType(FileType.IMAGE) // Используем правильное значение из enum
                 .isPrimary(isPrimary)
                 .displayOrder(displayOrder)
+                .perceptualHash(perceptualHash)
                 .build();
 
         AdMedia savedMedia = adMediaRepository.save(media);
+        adStatsService.mediaAdded(adId);
+        photoHashIndex.register(savedMedia.getId(), adId, userId, perceptualHash);
         log.info("Медиафайл загружен для объявления ID={}: mediaId={}", adId, savedMedia.getId());
 
         return mapToResponse(savedMedia);
@@ -99,12 +117,9 @@ public class AdMediaService {
         }
 
         // Удаляем файл из MinIO
-        String fileName = extractFileNameFromUrl(media.getFileUrl());
-        if (fileName != null) {
-            String fullPath = fileName.startsWith(FileStorageService.ADS_MEDIA_FOLDER + "/")
-                    ? fileName
-                    : FileStorageService.ADS_MEDIA_FOLDER + "/" + fileName;
-            fileStorageService.deleteFile(fullPath);
+        String objectName = objectName(media.getFileUrl());
+        if (objectName != null) {
+            fileStorageService.deleteFile(objectName);
         }
 
         // Если это был основной файл, делаем основной следующий по порядку
@@ -119,9 +134,58 @@ public class AdMediaService {
         }
 
         adMediaRepository.delete(media);
+        adStatsService.mediaRemoved(adId);
+        photoHashIndex.unregister(mediaId);
         log.info("Медиафайл удален: adId={}, mediaId={}", adId, mediaId);
     }
 
+    /**
+     * Считает перцептивные хеши изображений, загруженных до их появления:
+     * файлы скачиваются из хранилища небольшими порциями.
+     */
+    @Scheduled(fixedDelayString = "${photos.backfill-interval-ms:300000}", initialDelay = 30_000)
+    public void fillMissingPerceptualHashes() {
+        int filled = 0;
+        List<Object[]> batch;
+        do {
+            batch = adMediaRepository.findImagesWithoutPerceptualHashAfter(
+                    hashBackfillCursor, PageRequest.of(0, HASH_BACKFILL_BATCH_SIZE));
+            for (Object[] row : batch) {
+                Long mediaId = (Long) row[0];
+                hashBackfillCursor = mediaId;
+                String objectName = objectName((String) row[3]);
+                if (objectName == null) {
+                    continue;
+                }
+                Long hash;
+                try (InputStream input = fileStorageService.getFile(objectName)) {
+                    hash = PerceptualHash.dHash(input);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Не удалось посчитать хеш изображения mediaId={}: {}", mediaId, e.getMessage());
+                    continue;
+                }
+                if (hash != null) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            adMediaRepository.setPerceptualHash(mediaId, hash));
+                    photoHashIndex.register(mediaId, (Long) row[1], (Long) row[2], hash);
+                    filled++;
+                }
+            }
+        } while (batch.size() == HASH_BACKFILL_BATCH_SIZE);
+        if (filled > 0) {
+            log.info("Перцептивные хеши изображений дозаполнены: {}", filled);
+        }
+    }
+
+    private Long perceptualHash(MultipartFile file) {
+        try (InputStream input = file.getInputStream()) {
+            return PerceptualHash.dHash(input);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось посчитать хеш изображения {}: {}", file.getOriginalFilename(), e.getMessage());
+            return null;
+        }
+    }
+
     private void validateImageFile(MultipartFile file) {
         if (file.isEmpty()) {
             throw new FileUploadException("Файл не должен быть пустым");
@@ -150,6 +214,17 @@ public class AdMediaService {
         return fileName.substring(fileName.lastIndexOf("."));
     }
 
+    // Имя объекта в хранилище по URL файла
+    private String objectName(String url) {
+        String fileName = extractFileNameFromUrl(url);
+        if (fileName == null) {
+            return null;
+        }
+        return fileName.startsWith(FileStorageService.ADS_MEDIA_FOLDER + "/")
+                ? fileName
+                : FileStorageService.ADS_MEDIA_FOLDER + "/" + fileName;
+    }
+
     private String extractFileNameFromUrl(String url) {
         if (url == null || url.isEmpty()) {
             return null;
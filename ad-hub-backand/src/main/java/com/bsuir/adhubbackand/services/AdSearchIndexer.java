@@ -0,0 +1,59 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Заполняет ads.search_terms для объявлений без поискового индекса: созданных до появления
+ * колонки или сброшенных для переиндексации (UPDATE ads SET search_terms = NULL).
+ * Новые и отредактированные объявления индексируются сразу в AdService.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdSearchIndexer {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final AdRepository adRepository;
+    private final SearchTextAnalyzer searchTextAnalyzer;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${search.index-backfill-interval-ms:300000}", initialDelay = 30_000)
+    public void indexMissing() {
+        long lastId = 0;
+        int indexed = 0;
+        List<Object[]> batch;
+        do {
+            batch = adRepository.findAdsWithoutSearchTerms(lastId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Object[]> rows = batch;
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Object[] row : rows) {
+                    SearchTextAnalyzer.IndexedText text =
+                            searchTextAnalyzer.index((String) row[1], (String) row[2]);
+                    count += adRepository.fillSearchTerms((Long) row[0], text.terms(),
+                            text.titleLength(), text.descriptionOffsets(), (LocalDateTime) row[3]);
+                }
+                return count;
+            });
+            indexed += updated != null ? updated : 0;
+            lastId = (Long) batch.get(batch.size() - 1)[0];
+        } while (batch.size() == BATCH_SIZE);
+
+        if (indexed > 0) {
+            log.info("Поисковый индекс объявлений дополнен: объявлений={}", indexed);
+        }
+    }
+}
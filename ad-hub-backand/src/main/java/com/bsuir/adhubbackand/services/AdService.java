@@ -4,11 +4,13 @@ import com.bsuir.adhubbackand.exception.AdNotFoundException;
 import com.bsuir.adhubbackand.exception.AdStatusNotAllowedException;
 import com.bsuir.adhubbackand.exception.AccessDeniedException;
 import com.bsuir.adhubbackand.exception.CategoryNotFoundException;
+import com.bsuir.adhubbackand.exception.DuplicateAdException;
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
 import com.bsuir.adhubbackand.model.dto.request.ad.CreateAdRequest;
 import com.bsuir.adhubbackand.model.dto.request.ad.UpdateAdRequest;
 import com.bsuir.adhubbackand.model.dto.response.AdListResponse;
 import com.bsuir.adhubbackand.model.dto.response.AdResponse;
+import com.bsuir.adhubbackand.model.dto.response.SearchFacetsResponse;
 import com.bsuir.adhubbackand.model.entities.Ad;
 import com.bsuir.adhubbackand.model.entities.Category;
 import com.bsuir.adhubbackand.model.entities.User;
@@ -17,6 +19,7 @@ import com.bsuir.adhubbackand.model.enums.SortBy;
 import com.bsuir.adhubbackand.repositories.AdRepository;
 import com.bsuir.adhubbackand.repositories.CategoryRepository;
 import com.bsuir.adhubbackand.repositories.UserRepository;
+import com.bsuir.adhubbackand.utils.LongHashSet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,7 +30,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,9 +44,28 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdService {
 
+    private static final int DEFAULT_SIMILAR_ADS = 6;
+    private static final int MAX_DUPLICATE_FLAGS = 3;
+
     private final AdRepository adRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
+    private final FavoriteIdsCache favoriteIdsCache;
+    private final PremoderationService premoderationService;
+    private final SearchHistoryWriter searchHistoryWriter;
+    private final TrendingSearchTracker trendingSearchTracker;
+    private final FuzzySearchService fuzzySearchService;
+    private final SearchTextAnalyzer searchTextAnalyzer;
+    private final SearchRelevanceService searchRelevanceService;
+    private final SearchFacetService searchFacetService;
+    private final SavedSearchService savedSearchService;
+    private final GeoGazetteer geoGazetteer;
+    private final GeoSearchService geoSearchService;
+    private final CurrencyRates currencyRates;
+    private final HotScoreService hotScoreService;
+    private final SimilarAdsService similarAdsService;
+    private final DuplicateAdDetector duplicateAdDetector;
+    private final PersonalFeedService personalFeedService;
 
     @Transactional
     public AdResponse createAd(Long userId, CreateAdRequest request) {
@@ -53,14 +81,23 @@ public class AdService {
                 .price(request.price() != null ? request.price() : BigDecimal.ZERO)
                 .currency(request.currency() != null ? request.currency() : "BYN")
                 .location(request.location())
-                .status(AdStatus.ON_MODERATION) // Новые объявления отправляются на модерацию
                 .user(user)
                 .category(category)
                 .viewCount(0)
                 .build();
+        ad.setNormalizedPrice(currencyRates.normalize(ad.getPrice(), ad.getCurrency()));
+        ad.setHotScore(hotScoreService.initialScore(LocalDateTime.now()));
+        indexForSearch(ad);
+        locate(ad);
+        applyPremoderation(ad, findEarlierDuplicates(ad));
 
         Ad savedAd = adRepository.save(ad);
+        duplicateAdDetector.register(savedAd);
         log.info("Объявление создано: ID={}, пользователь={}", savedAd.getId(), user.getEmail());
+        if (savedAd.getStatus() == AdStatus.ACTIVE) {
+            savedSearchService.onAdsPublished(List.of(savedAd.getId()));
+            similarAdsService.onAdsChanged(List.of(savedAd.getId()));
+        }
 
         return mapToResponse(savedAd);
     }
@@ -73,12 +110,18 @@ public class AdService {
             BigDecimal maxPrice,
             String location,
             String searchQuery,
-            AdStatus status
+            AdStatus status,
+            SortBy sortBy,
+            Long currentUserId
     ) {
+        // Сортировки без поля сущности (релевантность, расстояние) здесь не применяются
+        Sort sort = sortBy != null && sortBy.getField() != null
+                ? sortBy.toSort()
+                : Sort.by(Sort.Direction.DESC, "createdAt");
         Pageable pageable = PageRequest.of(
                 page != null && page > 0 ? page - 1 : 0,
                 size != null && size > 0 ? size : 20,
-                Sort.by(Sort.Direction.DESC, "createdAt")
+                sort
         );
 
         Page<Ad> adPage;
@@ -108,8 +151,14 @@ public class AdService {
             adPage = adRepository.findByStatus(AdStatus.ACTIVE, pageable);
         }
 
+        if (searchQuery != null && !searchQuery.isBlank()) {
+            recordSearch(currentUserId, searchQuery,
+                    searchFilters(categoryId, minPrice, maxPrice, location, null, null), adPage.getTotalElements());
+        }
+
+        LongHashSet favoriteAdIds = currentUserId != null ? favoriteIdsCache.getFavoriteAdIds(currentUserId) : null;
         List<AdResponse> content = adPage.getContent().stream()
-                .map(this::mapToResponse)
+                .map(ad -> mapToResponse(ad, favoriteAdIds))
                 .collect(Collectors.toList());
 
         return new AdListResponse(
@@ -123,16 +172,83 @@ public class AdService {
         );
     }
 
-    public AdResponse getAdById(Long adId) {
+    public AdResponse getAdById(Long adId, Long currentUserId) {
         Ad ad = adRepository.findById(adId)
                 .orElseThrow(() -> new AdNotFoundException(adId));
 
         // Увеличиваем счетчик просмотров
         adRepository.incrementViewCount(adId);
+        hotScoreService.viewed(adId);
+        personalFeedService.viewed(currentUserId, adId);
 
         return mapToResponse(ad);
     }
 
+    /**
+     * Персональная лента (см. PersonalFeedService). Пока списки горячих объявлений
+     * не посчитаны, отдается обычный список активных объявлений.
+     */
+    @Transactional(readOnly = true)
+    public AdListResponse getFeed(Integer page, Integer size, Long currentUserId) {
+        long[] ranked = personalFeedService.rankedAdIds(currentUserId);
+        if (ranked.length == 0) {
+            return getAds(page, size, null, null, null, null, null, null, null, currentUserId);
+        }
+
+        int pageNumber = page != null && page > 0 ? page - 1 : 0;
+        int pageSize = size != null && size > 0 ? size : 20;
+        int from = (int) Math.min((long) pageNumber * pageSize, ranked.length);
+        int to = Math.min(from + pageSize, ranked.length);
+        List<Long> pageIds = Arrays.stream(ranked, from, to).boxed().toList();
+
+        Map<Long, Ad> adsById = pageIds.isEmpty() ? Map.of() : adRepository.findAllWithUserAndCategoryByIds(pageIds)
+                .stream()
+                .filter(ad -> ad.getStatus() == AdStatus.ACTIVE)
+                .collect(Collectors.toMap(Ad::getId, ad -> ad));
+        LongHashSet favoriteAdIds = currentUserId != null ? favoriteIdsCache.getFavoriteAdIds(currentUserId) : null;
+        List<AdResponse> content = pageIds.stream()
+                .map(adsById::get)
+                .filter(Objects::nonNull)
+                .map(ad -> mapToResponse(ad, favoriteAdIds))
+                .toList();
+
+        int totalPages = (ranked.length + pageSize - 1) / pageSize;
+        return new AdListResponse(
+                content,
+                pageNumber + 1,
+                pageSize,
+                ranked.length,
+                totalPages,
+                to < ranked.length,
+                pageNumber > 0
+        );
+    }
+
+    /**
+     * Похожие объявления из заранее посчитанных списков (см. SimilarAdsService).
+     */
+    @Transactional(readOnly = true)
+    public List<AdResponse> getSimilarAds(Long adId, Integer limit, Long currentUserId) {
+        if (!adRepository.existsById(adId)) {
+            throw new AdNotFoundException(adId);
+        }
+        int maxResults = limit != null && limit > 0 ? limit : DEFAULT_SIMILAR_ADS;
+        List<Long> similarIds = similarAdsService.findSimilarAdIds(adId, maxResults);
+        if (similarIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Ad> adsById = adRepository.findAllWithUserAndCategoryByIds(similarIds).stream()
+                .filter(ad -> ad.getStatus() == AdStatus.ACTIVE)
+                .collect(Collectors.toMap(Ad::getId, ad -> ad));
+        LongHashSet favoriteAdIds = currentUserId != null ? favoriteIdsCache.getFavoriteAdIds(currentUserId) : null;
+        return similarIds.stream()
+                .map(adsById::get)
+                .filter(Objects::nonNull)
+                .map(ad -> mapToResponse(ad, favoriteAdIds))
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public AdListResponse getAdsByUserId(
             Long userId,
@@ -180,40 +296,78 @@ public class AdService {
             BigDecimal minPrice,
             BigDecimal maxPrice,
             String location,
+            String near,
+            Double radiusKm,
             SortBy sortBy,
             Integer page,
-            Integer size
+            Integer size,
+            Boolean fuzzy,
+            boolean includeFacets,
+            Long currentUserId
     ) {
         // Настройка пагинации
         int pageNumber = page != null && page > 0 ? page - 1 : 0;
         int pageSize = size != null && size > 0 ? size : 20;
 
-        // Настройка сортировки
-        Sort sort;
-        if (sortBy != null) {
-            Sort.Direction direction = "ASC".equals(sortBy.getDirection()) 
-                    ? Sort.Direction.ASC 
-                    : Sort.Direction.DESC;
-            sort = Sort.by(direction, sortBy.getField());
+        // Текст запроса проходит ту же цепочку анализа, что и объявления
+        List<SearchTextAnalyzer.QueryTerm> queryTerms = searchTextAnalyzer.analyzeQuery(searchQuery);
+        String tsQuery = SearchTextAnalyzer.toTsQuery(queryTerms);
+        String locationFilter = location != null && !location.isBlank() ? location : null;
+        GeoSearchService.GeoQuery geoQuery = geoSearchService.parse(near, radiusKm);
+
+        Page<Ad> adPage;
+        if (geoQuery != null) {
+            adPage = geoSearchService.search(geoQuery, tsQuery, searchQuery, categoryId, minPrice, maxPrice,
+                    locationFilter, sortBy, pageNumber, pageSize);
+        } else if (sortBy == SortBy.RELEVANCE && tsQuery != null) {
+            adPage = searchRelevanceService.search(queryTerms, tsQuery, categoryId, minPrice, maxPrice,
+                    locationFilter, pageNumber, pageSize);
         } else {
-            // По умолчанию сортировка по дате создания (новые сначала)
-            sort = Sort.by(Sort.Direction.DESC, "createdAt");
+            // Настройка сортировки
+            Sort sort;
+            if (sortBy != null && sortBy != SortBy.RELEVANCE && sortBy != SortBy.DISTANCE) {
+                sort = sortBy.toColumnSort();
+            } else {
+                // По умолчанию (и для релевантности без текста запроса, расстояния без точки) - новые сначала
+                sort = Sort.by(Sort.Direction.DESC, "created_at");
+            }
+
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
+
+            // Поиск с фильтрами
+            adPage = adRepository.searchAdsWithFilters(
+                    tsQuery,
+                    searchQuery,
+                    categoryId,
+                    minPrice,
+                    maxPrice,
+                    locationFilter,
+                    pageable
+            );
         }
 
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
+        // Мало точных совпадений - пробуем нечеткий поиск (опечатки, транслит, раскладка).
+        // Нечеткий поиск не учитывает радиус, поэтому для поиска рядом не применяется
+        String normalizedQuery = SearchHistoryWriter.normalizeQuery(searchQuery);
+        boolean fuzzyUsed = geoQuery == null
+                && fuzzySearchService.shouldUse(normalizedQuery, fuzzy, adPage.getTotalElements());
+        if (fuzzyUsed) {
+            adPage = fuzzySearchService.search(normalizedQuery, categoryId, minPrice, maxPrice, location,
+                    pageNumber, pageSize);
+        }
 
-        // Поиск с фильтрами
-        Page<Ad> adPage = adRepository.searchAdsWithFilters(
-                searchQuery,
-                categoryId,
-                minPrice,
-                maxPrice,
-                location,
-                pageable
-        );
+        recordSearch(currentUserId, searchQuery,
+                searchFilters(categoryId, minPrice, maxPrice, location, geoQuery, sortBy), adPage.getTotalElements());
 
+        // Фасеты считаются по фильтрам без учета радиуса
+        SearchFacetsResponse facets = includeFacets
+                ? searchFacetService.getFacets(tsQuery, searchQuery, categoryId, minPrice, maxPrice, locationFilter)
+                : null;
+
+        LongHashSet favoriteAdIds = currentUserId != null ? favoriteIdsCache.getFavoriteAdIds(currentUserId) : null;
         List<AdResponse> content = adPage.getContent().stream()
-                .map(this::mapToResponse)
+                .map(ad -> mapToResponse(ad, favoriteAdIds, searchRelevanceService.snippet(ad, queryTerms),
+                        geoSearchService.distanceKm(geoQuery, ad)))
                 .collect(Collectors.toList());
 
         return new AdListResponse(
@@ -223,10 +377,36 @@ public class AdService {
                 adPage.getTotalElements(),
                 adPage.getTotalPages(),
                 adPage.hasNext(),
-                adPage.hasPrevious()
+                adPage.hasPrevious(),
+                fuzzyUsed,
+                facets
         );
     }
 
+    private void recordSearch(Long userId, String searchQuery, Map<String, Object> filters, long resultsCount) {
+        searchHistoryWriter.record(userId, searchQuery, filters, resultsCount);
+        // Запросы без результатов в популярные не попадают
+        if (resultsCount > 0) {
+            trendingSearchTracker.record(SearchHistoryWriter.normalizeQuery(searchQuery));
+        }
+    }
+
+    private static Map<String, Object> searchFilters(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                                                     String location, GeoSearchService.GeoQuery geoQuery,
+                                                     SortBy sortBy) {
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("categoryId", categoryId);
+        filters.put("minPrice", minPrice);
+        filters.put("maxPrice", maxPrice);
+        filters.put("location", location);
+        if (geoQuery != null) {
+            filters.put("near", geoQuery.latitude() + "," + geoQuery.longitude());
+            filters.put("radiusKm", geoQuery.radiusKm());
+        }
+        filters.put("sortBy", sortBy);
+        return filters;
+    }
+
     @Transactional
     public AdResponse updateAd(Long adId, Long userId, UpdateAdRequest request) {
         Ad ad = adRepository.findById(adId)
@@ -256,6 +436,7 @@ public class AdService {
         }
         if (request.location() != null) {
             ad.setLocation(request.location());
+            locate(ad);
         }
         if (request.categoryId() != null) {
             Category category = categoryRepository.findById(request.categoryId())
@@ -263,17 +444,87 @@ public class AdService {
             ad.setCategory(category);
         }
 
-        // При обновлении меняем статус на ON_MODERATION для повторной модерации
+        if (request.price() != null || request.currency() != null) {
+            ad.setNormalizedPrice(currencyRates.normalize(ad.getPrice(), ad.getCurrency()));
+        }
+        if (request.title() != null || request.description() != null) {
+            indexForSearch(ad);
+        }
+
+        // При обновлении объявление заново проходит пре-модерацию
+        AdStatus previousStatus = ad.getStatus();
         if (ad.getStatus() == AdStatus.ON_MODERATION || ad.getStatus() == AdStatus.ACTIVE) {
-            ad.setStatus(AdStatus.ON_MODERATION);
+            applyPremoderation(ad, findEarlierDuplicates(ad));
         }
 
         Ad updatedAd = adRepository.save(ad);
+        duplicateAdDetector.register(updatedAd);
         log.info("Объявление обновлено: ID={}", updatedAd.getId());
+        // Подписчиков оповещаем о публикации, а не о каждом редактировании
+        if (previousStatus != AdStatus.ACTIVE && updatedAd.getStatus() == AdStatus.ACTIVE) {
+            savedSearchService.onAdsPublished(List.of(updatedAd.getId()));
+        }
+        similarAdsService.onAdsChanged(List.of(updatedAd.getId()));
 
         return mapToResponse(updatedAd);
     }
 
+    private void locate(Ad ad) {
+        GeoGazetteer.Location location = geoGazetteer.locate(ad.getLocation());
+        ad.setLatitude(location.latitude());
+        ad.setLongitude(location.longitude());
+        ad.setGeohash(location.geohash());
+    }
+
+    private void indexForSearch(Ad ad) {
+        SearchTextAnalyzer.IndexedText indexed = searchTextAnalyzer.index(ad.getTitle(), ad.getDescription());
+        ad.setSearchTerms(indexed.terms());
+        ad.setSearchTitleLength(indexed.titleLength());
+        ad.setSearchOffsets(indexed.descriptionOffsets());
+        ad.setSimhash(duplicateAdDetector.fingerprint(indexed.terms()));
+    }
+
+    /**
+     * Почти повторы более ранних объявлений автора и категории. Повтор собственного
+     * действующего объявления почти без правок не принимается.
+     */
+    private List<DuplicateAdDetector.Duplicate> findEarlierDuplicates(Ad ad) {
+        List<DuplicateAdDetector.Duplicate> duplicates = duplicateAdDetector.findDuplicates(ad).stream()
+                .filter(duplicate -> ad.getId() == null || duplicate.adId() < ad.getId())
+                .toList();
+        duplicateAdDetector.findRepost(duplicates).ifPresent(repost -> {
+            throw new DuplicateAdException(repost.adId());
+        });
+        return duplicates;
+    }
+
+    /**
+     * Объявления без замечаний пре-модерации и без почти повторов публикуются сразу,
+     * остальные отправляются в очередь ручной модерации вместе с причинами.
+     */
+    private void applyPremoderation(Ad ad, List<DuplicateAdDetector.Duplicate> duplicates) {
+        PremoderationService.PremoderationResult result = premoderationService.check(
+                ad.getTitle(), ad.getDescription(), ad.getPrice(), ad.getCurrency(), ad.getCategory().getId());
+
+        List<String> reasons = new ArrayList<>(result.reasons());
+        duplicates.stream().limit(MAX_DUPLICATE_FLAGS).forEach(duplicate -> reasons.add(
+                (duplicate.sameUser() ? "Почти повтор своего объявления ID " : "Почти повтор объявления ID ")
+                        + duplicate.adId()));
+        ad.setModerationFlags(reasons.isEmpty() ? null : String.join("\n", reasons));
+        if (result.approved() && duplicates.isEmpty()) {
+            ad.setStatus(AdStatus.ACTIVE);
+            ad.setModerationQueuedAt(null);
+        } else {
+            // Повторное редактирование уже ожидающего объявления не сдвигает его в конец очереди
+            if (ad.getStatus() != AdStatus.ON_MODERATION || ad.getModerationQueuedAt() == null) {
+                ad.setModerationQueuedAt(LocalDateTime.now());
+            }
+            ad.setStatus(AdStatus.ON_MODERATION);
+        }
+        ad.setModerationClaimedBy(null);
+        ad.setModerationLeaseUntil(null);
+    }
+
     @Transactional
     public void deleteAd(Long adId, Long userId) {
         Ad ad = adRepository.findById(adId)
@@ -286,10 +537,23 @@ public class AdService {
 
         ad.setStatus(AdStatus.DELETED);
         adRepository.save(ad);
+        similarAdsService.onAdsChanged(List.of(adId));
         log.info("Объявление удалено: ID={}", adId);
     }
 
     private AdResponse mapToResponse(Ad ad) {
+        return mapToResponse(ad, null);
+    }
+
+    private AdResponse mapToResponse(Ad ad, LongHashSet favoriteAdIds) {
+        return mapToResponse(ad, favoriteAdIds, null);
+    }
+
+    private AdResponse mapToResponse(Ad ad, LongHashSet favoriteAdIds, String snippet) {
+        return mapToResponse(ad, favoriteAdIds, snippet, null);
+    }
+
+    private AdResponse mapToResponse(Ad ad, LongHashSet favoriteAdIds, String snippet, Double distanceKm) {
         List<AdResponse.MediaItem> mediaItems = ad.getMediaFiles().stream()
                 .map(media -> new AdResponse.MediaItem(
                         media.getId(),
@@ -307,15 +571,22 @@ public class AdService {
                 ad.getPrice(),
                 ad.getCurrency(),
                 ad.getLocation(),
+                ad.getLatitude(),
+                ad.getLongitude(),
                 ad.getStatus(),
                 ad.getUser().getId(),
                 ad.getUser().getUsername(),
                 ad.getCategory().getId(),
                 ad.getCategory().getName(),
                 ad.getViewCount(),
+                ad.getFavoriteCount(),
+                ad.getCommentCount(),
                 mediaItems,
                 ad.getCreatedAt(),
-                ad.getUpdatedAt()
+                ad.getUpdatedAt(),
+                favoriteAdIds != null ? favoriteAdIds.contains(ad.getId()) : null,
+                snippet,
+                distanceKm
         );
     }
 }
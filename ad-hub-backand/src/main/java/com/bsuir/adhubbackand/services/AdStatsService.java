@@ -0,0 +1,142 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Денормализованные счетчики объявлений (избранное, активные комментарии, медиафайлы).
+ * Сервисы сообщают изменения после коммита, дельты копятся в памяти и периодически
+ * применяются пакетными UPDATE. Сверка с исходными таблицами исправляет расхождения
+ * (например, дельты, потерянные при аварийной остановке).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdStatsService {
+
+    private static final long RECONCILE_BATCH_SIZE = 10_000;
+
+    private final AdRepository adRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Long, Delta> pendingDeltas = new ConcurrentHashMap<>();
+
+    @Value("${ad-stats.reconcile-enabled:true}")
+    private boolean reconcileEnabled;
+
+    public void favoriteAdded(Long adId) {
+        record(adId, 1, 0, 0);
+    }
+
+    public void favoriteRemoved(Long adId) {
+        record(adId, -1, 0, 0);
+    }
+
+    public void commentAdded(Long adId) {
+        record(adId, 0, 1, 0);
+    }
+
+    public void commentRemoved(Long adId) {
+        record(adId, 0, -1, 0);
+    }
+
+    public void mediaAdded(Long adId) {
+        record(adId, 0, 0, 1);
+    }
+
+    public void mediaRemoved(Long adId) {
+        record(adId, 0, 0, -1);
+    }
+
+    @Scheduled(fixedDelayString = "${ad-stats.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+
+        // Забираем накопленные дельты и группируем объявления с одинаковой дельтой в один UPDATE
+        Map<Delta, List<Long>> adIdsByDelta = new HashMap<>();
+        for (Long adId : new ArrayList<>(pendingDeltas.keySet())) {
+            Delta delta = pendingDeltas.remove(adId);
+            if (delta != null && !delta.isZero()) {
+                adIdsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(adId);
+            }
+        }
+
+        if (adIdsByDelta.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> adIdsByDelta.forEach((delta, adIds) ->
+                    adRepository.applyStatsDelta(adIds, delta.favorites(), delta.comments(), delta.media())));
+            log.debug("Счетчики объявлений обновлены: групп={}", adIdsByDelta.size());
+        } catch (RuntimeException e) {
+            // Возвращаем дельты в буфер, чтобы применить их при следующем сбросе
+            adIdsByDelta.forEach((delta, adIds) -> adIds.forEach(adId -> merge(adId, delta)));
+            log.error("Ошибка обновления счетчиков объявлений: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Пересчитывает счетчики из исходных таблиц диапазонами id, обновляя только расходящиеся строки.
+     * Дельта, зафиксированная во время сверки, может быть учтена дважды - это исправит следующий запуск.
+     */
+    @Scheduled(cron = "${ad-stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        if (!reconcileEnabled) {
+            return;
+        }
+
+        flush();
+
+        long maxId = adRepository.findMaxId().orElse(0L);
+        int fixed = 0;
+        for (long from = 1; from <= maxId; from += RECONCILE_BATCH_SIZE) {
+            long fromId = from;
+            long toId = Math.min(from + RECONCILE_BATCH_SIZE - 1, maxId);
+            Integer updated = transactionTemplate.execute(status -> adRepository.reconcileStats(fromId, toId));
+            fixed += updated != null ? updated : 0;
+        }
+
+        log.info("Сверка счетчиков объявлений завершена: исправлено строк={}", fixed);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Long adId, int favorites, int comments, int media) {
+        Delta delta = new Delta(favorites, comments, media);
+        TransactionUtils.afterCommit(() -> merge(adId, delta));
+    }
+
+    // merge атомарен относительно remove во flush, поэтому дельта не теряется между сбросами
+    private void merge(Long adId, Delta delta) {
+        pendingDeltas.merge(adId, delta, Delta::plus);
+    }
+
+    private record Delta(int favorites, int comments, int media) {
+        Delta plus(Delta other) {
+            return new Delta(favorites + other.favorites, comments + other.comments, media + other.media);
+        }
+
+        boolean isZero() {
+            return favorites == 0 && comments == 0 && media == 0;
+        }
+    }
+}
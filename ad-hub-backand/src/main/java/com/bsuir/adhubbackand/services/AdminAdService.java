@@ -2,21 +2,39 @@ package com.bsuir.adhubbackand.services;
 
 import com.bsuir.adhubbackand.exception.AdNotFoundException;
 import com.bsuir.adhubbackand.exception.AdStatusNotAllowedException;
+import com.bsuir.adhubbackand.model.dto.request.admin.BatchModerationRequest;
+import com.bsuir.adhubbackand.model.dto.response.admin.BatchModerationResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.ClaimedAdsResponse;
 import com.bsuir.adhubbackand.model.dto.response.admin.ModerationActionResponse;
+import com.bsuir.adhubbackand.model.dto.response.admin.ModerationQueueStatsResponse;
 import com.bsuir.adhubbackand.model.dto.response.admin.PendingAdResponse;
 import com.bsuir.adhubbackand.model.entities.Ad;
 import com.bsuir.adhubbackand.model.enums.AdStatus;
 import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,7 +42,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdminAdService {
 
+    private static final int DEFAULT_CLAIM_SIZE = 20;
+    private static final int MAX_CLAIM_SIZE = 100;
+
     private final AdRepository adRepository;
+    private final NotificationService notificationService;
+    private final SavedSearchService savedSearchService;
+    private final SimilarAdsService similarAdsService;
+    private final DuplicateAdDetector duplicateAdDetector;
+    private final PhotoHashIndex photoHashIndex;
+    private final ModerationQueueMetrics queueMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${moderation.queue.lease-minutes:15}")
+    private long leaseMinutes;
 
     public List<PendingAdResponse> getPendingAds(Integer page, Integer size) {
         Pageable pageable = PageRequest.of(
@@ -35,54 +66,212 @@ public class AdminAdService {
 
         Page<Ad> adPage = adRepository.findByStatus(AdStatus.ON_MODERATION, pageable);
 
-        return adPage.getContent().stream()
-                .map(this::mapToPendingResponse)
-                .collect(Collectors.toList());
+        return mapToPendingResponses(adPage.getContent());
     }
 
     @Transactional
-    public ModerationActionResponse approveAd(Long adId) {
-        Ad ad = adRepository.findById(adId)
-                .orElseThrow(() -> new AdNotFoundException(adId));
-
-        if (ad.getStatus() != AdStatus.ON_MODERATION) {
-            throw new AdStatusNotAllowedException("Можно одобрять только объявления со статусом ON_MODERATION");
-        }
-
-        ad.setStatus(AdStatus.ACTIVE);
-        adRepository.save(ad);
+    public ModerationActionResponse approveAd(Long adId, Long moderatorId) {
+        moderate(adId, moderatorId, AdStatus.ACTIVE,
+                "Можно одобрять только объявления со статусом ON_MODERATION");
 
+        notificationService.notifyAdsModerated(List.of(adId), AdStatus.ACTIVE);
+        savedSearchService.onAdsPublished(List.of(adId));
+        similarAdsService.onAdsChanged(List.of(adId));
         log.info("Объявление одобрено: adId={}", adId);
 
         return new ModerationActionResponse(
-                ad.getId(),
-                ad.getStatus(),
+                adId,
+                AdStatus.ACTIVE,
                 "Объявление успешно одобрено"
         );
     }
 
     @Transactional
-    public ModerationActionResponse rejectAd(Long adId) {
-        Ad ad = adRepository.findById(adId)
-                .orElseThrow(() -> new AdNotFoundException(adId));
-
-        if (ad.getStatus() != AdStatus.ON_MODERATION) {
-            throw new AdStatusNotAllowedException("Можно отклонять только объявления со статусом ON_MODERATION");
-        }
-
-        ad.setStatus(AdStatus.BLOCKED);
-        adRepository.save(ad);
+    public ModerationActionResponse rejectAd(Long adId, Long moderatorId) {
+        moderate(adId, moderatorId, AdStatus.BLOCKED,
+                "Можно отклонять только объявления со статусом ON_MODERATION");
 
+        notificationService.notifyAdsModerated(List.of(adId), AdStatus.BLOCKED);
+        similarAdsService.onAdsChanged(List.of(adId));
         log.info("Объявление отклонено: adId={}", adId);
 
         return new ModerationActionResponse(
-                ad.getId(),
-                ad.getStatus(),
+                adId,
+                AdStatus.BLOCKED,
                 "Объявление отклонено"
         );
     }
 
-    private PendingAdResponse mapToPendingResponse(Ad ad) {
+    // Решение по одному объявлению тем же условным UPDATE, что и пакетная модерация:
+    // параллельное решение по тому же объявлению или чужая аренда не дают его перезаписать
+    private void moderate(Long adId, Long moderatorId, AdStatus newStatus, String statusMessage) {
+        LocalDateTime decidedAt = LocalDateTime.now();
+        List<Object[]> updated = adRepository.moderateOnModerationAds(
+                List.of(adId), newStatus.name(), moderatorId, decidedAt);
+        if (updated.isEmpty()) {
+            List<Object[]> current = adRepository.findStatusesByIds(List.of(adId));
+            if (current.isEmpty()) {
+                throw new AdNotFoundException(adId);
+            }
+            if (current.get(0)[1] == AdStatus.ON_MODERATION) {
+                throw new AdStatusNotAllowedException("Объявление взято в работу другим модератором");
+            }
+            throw new AdStatusNotAllowedException(statusMessage);
+        }
+
+        LocalDateTime queuedAt = toLocalDateTime(updated.get(0)[1]);
+        TransactionUtils.afterCommit(() -> queueMetrics.recordDecision(queuedAt, decidedAt));
+    }
+
+    /**
+     * Пакетная модерация: все объявления из списка, находящиеся на модерации и не арендованные
+     * другими модераторами, переводятся одним условным UPDATE. Для каждого id возвращается результат,
+     * уведомления владельцам создаются одним запросом на весь пакет.
+     */
+    @Transactional
+    public BatchModerationResponse moderateBatch(BatchModerationRequest request, Long moderatorId) {
+        Set<Long> adIds = new LinkedHashSet<>(request.adIds());
+        AdStatus newStatus = request.action().getTargetStatus();
+
+        LocalDateTime decidedAt = LocalDateTime.now();
+        Set<Long> updatedIds = new HashSet<>();
+        List<LocalDateTime> queuedAt = new ArrayList<>();
+        for (Object[] row : adRepository.moderateOnModerationAds(adIds, newStatus.name(), moderatorId, decidedAt)) {
+            updatedIds.add(((Number) row[0]).longValue());
+            queuedAt.add(toLocalDateTime(row[1]));
+        }
+        TransactionUtils.afterCommit(() -> queuedAt.forEach(time -> queueMetrics.recordDecision(time, decidedAt)));
+
+        // Причины отказа нужны только для не обновленных объявлений
+        Map<Long, AdStatus> currentStatuses = new HashMap<>();
+        if (updatedIds.size() < adIds.size()) {
+            List<Long> skippedIds = adIds.stream()
+                    .filter(id -> !updatedIds.contains(id))
+                    .toList();
+            for (Object[] row : adRepository.findStatusesByIds(skippedIds)) {
+                currentStatuses.put((Long) row[0], (AdStatus) row[1]);
+            }
+        }
+
+        List<BatchModerationResponse.AdOutcome> results = new ArrayList<>(adIds.size());
+        for (Long adId : adIds) {
+            if (updatedIds.contains(adId)) {
+                results.add(new BatchModerationResponse.AdOutcome(
+                        adId, BatchModerationResponse.Outcome.UPDATED, newStatus));
+            } else if (currentStatuses.get(adId) == AdStatus.ON_MODERATION) {
+                results.add(new BatchModerationResponse.AdOutcome(
+                        adId, BatchModerationResponse.Outcome.CLAIMED_BY_OTHER, AdStatus.ON_MODERATION));
+            } else if (currentStatuses.containsKey(adId)) {
+                results.add(new BatchModerationResponse.AdOutcome(
+                        adId, BatchModerationResponse.Outcome.STATUS_NOT_ALLOWED, currentStatuses.get(adId)));
+            } else {
+                results.add(new BatchModerationResponse.AdOutcome(
+                        adId, BatchModerationResponse.Outcome.NOT_FOUND, null));
+            }
+        }
+
+        notificationService.notifyAdsModerated(updatedIds, newStatus);
+        if (newStatus == AdStatus.ACTIVE) {
+            savedSearchService.onAdsPublished(updatedIds);
+        }
+        similarAdsService.onAdsChanged(updatedIds);
+
+        log.info("Пакетная модерация: action={}, запрошено={}, обновлено={}",
+                request.action(), adIds.size(), updatedIds.size());
+
+        return new BatchModerationResponse(
+                request.action(),
+                newStatus,
+                adIds.size(),
+                updatedIds.size(),
+                results
+        );
+    }
+
+    /**
+     * Выдает модератору до n самых старых объявлений из очереди в аренду.
+     * Объявления, уже арендованные другими модераторами, не выдаются, пока аренда не истечет.
+     */
+    @Transactional
+    public ClaimedAdsResponse claimPendingAds(Long moderatorId, Integer n) {
+        int limit = n != null && n > 0 ? Math.min(n, MAX_CLAIM_SIZE) : DEFAULT_CLAIM_SIZE;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusMinutes(leaseMinutes);
+
+        List<Long> claimedIds = adRepository.claimModerationBatch(moderatorId, limit, now, leaseUntil);
+        TransactionUtils.afterCommit(() -> queueMetrics.recordClaimed(claimedIds.size()));
+
+        List<PendingAdResponse> ads = claimedIds.isEmpty()
+                ? List.of()
+                : mapToPendingResponses(adRepository.findAllWithUserAndCategoryByIds(claimedIds));
+
+        log.info("Модератор {} взял в работу {} объявлений до {}", moderatorId, ads.size(), leaseUntil);
+        return new ClaimedAdsResponse(ads, leaseUntil);
+    }
+
+    @Transactional
+    public void releaseClaims(Long moderatorId) {
+        int released = adRepository.releaseModerationClaims(moderatorId);
+        TransactionUtils.afterCommit(() -> queueMetrics.recordRequeued(released));
+        log.info("Модератор {} вернул в очередь {} объявлений", moderatorId, released);
+    }
+
+    @Transactional(readOnly = true)
+    public ModerationQueueStatsResponse getQueueStats() {
+        Object[] row = adRepository.getModerationQueueStats(LocalDateTime.now()).get(0);
+        long depth = ((Number) row[0]).longValue();
+        long leased = ((Number) row[1]).longValue();
+
+        return new ModerationQueueStatsResponse(
+                depth,
+                leased,
+                depth - leased,
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue(),
+                queueMetrics.getClaimed(),
+                queueMetrics.getRequeued(),
+                queueMetrics.getDecided(),
+                Math.round(queueMetrics.getAverageTimeInQueueSeconds()),
+                queueMetrics.getMaxTimeInQueueSeconds()
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createQueueIndex() {
+        transactionTemplate.executeWithoutResult(status -> adRepository.createModerationQueueIndex());
+    }
+
+    // Истекшие аренды и так считаются свободными при выдаче; здесь они явно
+    // возвращаются в очередь, чтобы статистика аренды оставалась точной
+    @Scheduled(fixedDelayString = "${moderation.queue.requeue-interval-ms:60000}")
+    public void requeueExpiredClaims() {
+        Integer released = transactionTemplate.execute(status ->
+                adRepository.releaseExpiredModerationClaims(LocalDateTime.now()));
+        if (released != null && released > 0) {
+            queueMetrics.recordRequeued(released);
+            log.info("Возвращено в очередь модерации объявлений с истекшей арендой: {}", released);
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private List<PendingAdResponse> mapToPendingResponses(List<Ad> ads) {
+        Map<Long, List<DuplicateAdDetector.Duplicate>> duplicates = duplicateAdDetector.findDuplicates(ads);
+        Map<Long, List<PhotoHashIndex.SharedPhoto>> sharedPhotos = photoHashIndex.findSharedPhotos(ads);
+        return ads.stream()
+                .map(ad -> mapToPendingResponse(ad,
+                        duplicates.getOrDefault(ad.getId(), List.of()),
+                        sharedPhotos.getOrDefault(ad.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private PendingAdResponse mapToPendingResponse(Ad ad, List<DuplicateAdDetector.Duplicate> duplicates,
+                                                   List<PhotoHashIndex.SharedPhoto> sharedPhotos) {
         return new PendingAdResponse(
                 ad.getId(),
                 ad.getTitle(),
@@ -98,7 +287,27 @@ public class AdminAdService {
                 ad.getCategory().getName(),
                 ad.getViewCount(),
                 ad.getCreatedAt(),
-                ad.getUpdatedAt()
+                ad.getUpdatedAt(),
+                ad.getModerationFlags() != null ? List.of(ad.getModerationFlags().split("\n")) : List.of(),
+                duplicates.stream()
+                        .map(duplicate -> new PendingAdResponse.DuplicateAd(
+                                duplicate.adId(),
+                                duplicate.userId(),
+                                duplicate.title(),
+                                duplicate.status(),
+                                duplicate.distance(),
+                                duplicate.sameUser()))
+                        .toList(),
+                sharedPhotos.stream()
+                        .map(photo -> new PendingAdResponse.SharedPhoto(
+                                photo.mediaId(),
+                                photo.otherMediaId(),
+                                photo.otherAdId(),
+                                photo.otherUserId(),
+                                photo.otherAdTitle(),
+                                photo.otherAdStatus(),
+                                photo.distance()))
+                        .toList()
         );
     }
 }
@@ -1,10 +1,12 @@
 package com.bsuir.adhubbackand.services;
 
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
+import com.bsuir.adhubbackand.model.dto.projection.AdminUserProjection;
 import com.bsuir.adhubbackand.model.dto.request.admin.UpdateUserRoleRequest;
 import com.bsuir.adhubbackand.model.dto.response.admin.UserListResponse;
 import com.bsuir.adhubbackand.model.entities.User;
 import com.bsuir.adhubbackand.model.entities.UserRole;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
 import com.bsuir.adhubbackand.model.enums.UserStatus;
 import com.bsuir.adhubbackand.repositories.AdRepository;
 import com.bsuir.adhubbackand.repositories.UserRepository;
@@ -18,7 +20,10 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -38,36 +43,30 @@ public class AdminUserService {
                 Sort.by(Sort.Direction.DESC, "createdAt")
         );
 
-        Page<User> userPage;
-        if (search != null && !search.trim().isEmpty()) {
-            userPage = userRepository.searchUsers(search.trim(), pageable);
-        } else {
-            userPage = userRepository.findAll(pageable);
-        }
+        String query = search != null && !search.trim().isEmpty() ? search.trim() : null;
+        Page<AdminUserProjection> userPage = userRepository.findAdminUserPage(query, pageable);
 
-        // Инициализируем роли для всех пользователей в рамках транзакции
-        userPage.getContent().forEach(user -> {
-            if (user.getRole() != null) {
-                user.getRole().getName(); // Инициализируем ленивую загрузку
-            }
-        });
+        // Счетчики объявлений по статусам для всей страницы одним сгруппированным запросом
+        Map<Long, Map<AdStatus, Long>> adCounts = countAdsByStatus(userPage.getContent());
 
         List<UserListResponse.UserListItem> userItems = userPage.getContent().stream()
                 .map(user -> {
-                    long adsCount = adRepository.countByUserId(user.getId());
+                    Map<AdStatus, Long> byStatus = adCounts.getOrDefault(user.id(), Map.of());
+                    long adsCount = byStatus.values().stream().mapToLong(Long::longValue).sum();
                     return new UserListResponse.UserListItem(
-                            user.getId(),
-                            user.getUsername(),
-                            user.getEmail(),
-                            user.getFirstName(),
-                            user.getLastName(),
-                            user.getPhone(),
-                            user.getRole().getName(),
-                            user.getStatus(),
-                            user.getRating(),
-                            user.getCreatedAt(),
-                            user.getLastLogin(),
-                            adsCount
+                            user.id(),
+                            user.username(),
+                            user.email(),
+                            user.firstName(),
+                            user.lastName(),
+                            user.phone(),
+                            user.roleName(),
+                            user.status(),
+                            user.rating(),
+                            user.createdAt(),
+                            user.lastLogin(),
+                            adsCount,
+                            byStatus
                     );
                 })
                 .collect(Collectors.toList());
@@ -83,6 +82,20 @@ public class AdminUserService {
         );
     }
 
+    private Map<Long, Map<AdStatus, Long>> countAdsByStatus(List<AdminUserProjection> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> userIds = users.stream().map(AdminUserProjection::id).toList();
+        Map<Long, Map<AdStatus, Long>> result = new HashMap<>();
+        for (Object[] row : adRepository.countByUserIdsGroupedByStatus(userIds)) {
+            result.computeIfAbsent((Long) row[0], id -> new EnumMap<>(AdStatus.class))
+                    .put((AdStatus) row[1], ((Number) row[2]).longValue());
+        }
+        return result;
+    }
+
     @Transactional
     public void blockUser(Long userId, Long currentAdminId) {
         if (userId.equals(currentAdminId)) {
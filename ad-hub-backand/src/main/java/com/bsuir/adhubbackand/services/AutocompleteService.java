@@ -0,0 +1,96 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.dto.response.SearchSuggestionsResponse;
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.repositories.CategoryRepository;
+import com.bsuir.adhubbackand.repositories.SearchTopQueryRepository;
+import com.bsuir.adhubbackand.utils.CompletionTrie;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Автодополнение поисковых запросов из памяти. Словарь собирается из заголовков активных
+ * объявлений, названий категорий и популярных запросов за последние 30 дней
+ * (из суточных агрегатов статистики поиска), компилируется в сжатое префиксное дерево
+ * и периодически пересобирается; новое дерево подменяет старое атомарно.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AutocompleteService {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int TITLE_BATCH_SIZE = 10_000;
+    private static final int POPULAR_QUERIES_DAYS = 30;
+
+    // Веса источников: популярный запрос ценнее одиночного заголовка, категория - общий запрос
+    private static final double QUERY_WEIGHT = 2.0;
+    private static final double CATEGORY_BASE_WEIGHT = 10.0;
+
+    private final AdRepository adRepository;
+    private final CategoryRepository categoryRepository;
+    private final SearchTopQueryRepository searchTopQueryRepository;
+
+    private volatile CompletionTrie trie = CompletionTrie.build(Map.of(), MAX_SUGGESTIONS);
+
+    public SearchSuggestionsResponse suggest(String prefix, int limit) {
+        String normalized = SearchHistoryWriter.normalizeQuery(prefix);
+        if (normalized == null) {
+            return new SearchSuggestionsResponse(prefix, List.of());
+        }
+        return new SearchSuggestionsResponse(prefix, trie.complete(normalized, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+
+    @Scheduled(fixedDelayString = "${autocomplete.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        Map<String, CompletionTrie.Completion> entries = new HashMap<>();
+
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = adRepository.findActiveTitlesAfter(lastId, PageRequest.of(0, TITLE_BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                long views = row[2] != null ? ((Number) row[2]).longValue() : 0;
+                long favorites = row[3] != null ? ((Number) row[3]).longValue() : 0;
+                add(entries, (String) row[1], 1 + Math.log1p(views) + favorites);
+            }
+        } while (batch.size() == TITLE_BATCH_SIZE);
+
+        for (Object[] row : categoryRepository.findNamesWithActiveAdCounts()) {
+            add(entries, (String) row[0], CATEGORY_BASE_WEIGHT + ((Number) row[1]).doubleValue());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : searchTopQueryRepository.sumByQuery(
+                StatsGranularity.DAY, now.minusDays(POPULAR_QUERIES_DAYS), now)) {
+            add(entries, (String) row[0], QUERY_WEIGHT * ((Number) row[1]).doubleValue());
+        }
+
+        trie = CompletionTrie.build(entries, MAX_SUGGESTIONS);
+        log.info("Индекс автодополнения перестроен: терминов={}, за {} мс",
+                entries.size(), System.currentTimeMillis() - started);
+    }
+
+    private static void add(Map<String, CompletionTrie.Completion> entries, String text, double weight) {
+        String key = SearchHistoryWriter.normalizeQuery(text);
+        if (key == null) {
+            return;
+        }
+        // Одинаковые после нормализации тексты складываются, показывается вариант с большим весом
+        entries.merge(key, new CompletionTrie.Completion(text.strip().replaceAll("\\s+", " "), weight),
+                (existing, added) -> new CompletionTrie.Completion(
+                        existing.weight() >= added.weight() ? existing.displayText() : added.displayText(),
+                        existing.weight() + added.weight()));
+    }
+}
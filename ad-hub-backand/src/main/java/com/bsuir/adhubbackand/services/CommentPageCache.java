@@ -0,0 +1,49 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.dto.response.CommentResponse;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import com.bsuir.adhubbackand.utils.TtlLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш первой страницы активных комментариев объявления - на нее приходится
+ * почти все чтение. Сбрасывается после коммита создания, изменения или удаления комментария.
+ */
+@Component
+public class CommentPageCache {
+
+    private final TtlLruCache<Long, List<CommentResponse>> firstPages;
+
+    // Увеличивается при каждом сбросе: чтение, начатое до изменения, не положит в кэш устаревшую страницу
+    private final AtomicLong generation = new AtomicLong();
+
+    public CommentPageCache(@Value("${comments.cache.max-ads:5000}") int maxAds,
+                            @Value("${comments.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.firstPages = new TtlLruCache<>(maxAds, ttlSeconds * 1000);
+    }
+
+    public List<CommentResponse> getFirstPage(Long adId) {
+        return firstPages.get(adId);
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public void putFirstPage(Long adId, List<CommentResponse> comments, long loadedAtGeneration) {
+        if (generation.get() == loadedAtGeneration) {
+            firstPages.put(adId, List.copyOf(comments));
+        }
+    }
+
+    public void invalidate(Long adId) {
+        TransactionUtils.afterCommit(() -> {
+            generation.incrementAndGet();
+            firstPages.invalidate(adId);
+        });
+    }
+}
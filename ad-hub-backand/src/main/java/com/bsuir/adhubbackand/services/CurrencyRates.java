@@ -0,0 +1,147 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Локальная таблица курсов валют (fx/rates.txt) и цена объявления в базовой валюте
+ * (ads.normalized_price), по которой работают фильтры и сортировка по цене.
+ * <p>
+ * Новые и отредактированные объявления получают нормализованную цену сразу в AdService.
+ * При изменении файла курсов (и при старте - для объявлений без нормализованной цены)
+ * цены пересчитываются пакетными UPDATE диапазонами id.
+ */
+@Slf4j
+@Component
+public class CurrencyRates {
+
+    private static final String COMMENT_PREFIX = "#";
+    private static final int RECOMPUTE_BATCH_SIZE = 10_000;
+
+    private final Resource ratesResource;
+    private final String baseCurrency;
+    private final AdRepository adRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Валюта -> стоимость единицы в базовой валюте
+    private volatile Map<String, BigDecimal> rates = Map.of();
+    private volatile long loadedLastModified = -1;
+    private final AtomicBoolean recomputeNeeded = new AtomicBoolean(true);
+
+    public CurrencyRates(ResourceLoader resourceLoader,
+                         AdRepository adRepository,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${fx.rates-location:classpath:fx/rates.txt}") String location,
+                         @Value("${fx.base-currency:BYN}") String baseCurrency) {
+        this.ratesResource = resourceLoader.getResource(location);
+        this.baseCurrency = baseCurrency.strip().toUpperCase(Locale.ROOT);
+        this.adRepository = adRepository;
+        this.transactionTemplate = transactionTemplate;
+        reloadRates();
+    }
+
+    /**
+     * Цена в базовой валюте. Валюта без курса считается базовой.
+     */
+    public BigDecimal normalize(BigDecimal price, String currency) {
+        if (price == null) {
+            return null;
+        }
+        BigDecimal rate = currency != null ? rates.get(currency.strip().toUpperCase(Locale.ROOT)) : null;
+        return (rate != null ? price.multiply(rate) : price).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public synchronized boolean reloadRates() {
+        try {
+            long lastModified = lastModified();
+            Map<String, BigDecimal> loaded = new HashMap<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(ratesResource.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.strip();
+                    if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                        continue;
+                    }
+                    String[] parts = line.split("\\s+");
+                    BigDecimal rate = parts.length == 2 && parts[1].matches("\\d+(\\.\\d+)?")
+                            ? new BigDecimal(parts[1]) : null;
+                    if (rate == null || rate.signum() <= 0) {
+                        log.warn("Некорректная строка в таблице курсов пропущена: {}", line);
+                        continue;
+                    }
+                    loaded.put(parts[0].toUpperCase(Locale.ROOT), rate);
+                }
+            }
+            loaded.put(baseCurrency, BigDecimal.ONE);
+
+            if (!loaded.equals(rates)) {
+                rates = Map.copyOf(loaded);
+                recomputeNeeded.set(true);
+            }
+            loadedLastModified = lastModified;
+            log.info("Курсы валют загружены из {}: валют={}, базовая={}",
+                    ratesResource.getDescription(), loaded.size(), baseCurrency);
+            return true;
+        } catch (IOException e) {
+            log.error("Не удалось загрузить курсы валют из {}: {}", ratesResource.getDescription(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fx.check-interval-ms:60000}", initialDelay = 30_000)
+    public void recomputeIfChanged() {
+        if (ratesResource.isFile() && lastModified() != loadedLastModified) {
+            reloadRates();
+        }
+        if (recomputeNeeded.getAndSet(false)) {
+            recomputeNormalizedPrices();
+        }
+    }
+
+    private void recomputeNormalizedPrices() {
+        List<Map.Entry<String, BigDecimal>> current = List.copyOf(rates.entrySet());
+        String currencies = current.stream().map(Map.Entry::getKey)
+                .collect(Collectors.joining(",", "{", "}"));
+        String rateValues = current.stream().map(entry -> entry.getValue().toPlainString())
+                .collect(Collectors.joining(",", "{", "}"));
+
+        long maxId = adRepository.findMaxId().orElse(0L);
+        int updated = 0;
+        for (long from = 1; from <= maxId; from += RECOMPUTE_BATCH_SIZE) {
+            long fromId = from;
+            long toId = Math.min(from + RECOMPUTE_BATCH_SIZE - 1, maxId);
+            Integer count = transactionTemplate.execute(status ->
+                    adRepository.recomputeNormalizedPrices(fromId, toId, currencies, rateValues));
+            updated += count != null ? count : 0;
+        }
+        log.info("Цены объявлений в базовой валюте пересчитаны: изменено строк={}", updated);
+    }
+
+    private long lastModified() {
+        try {
+            return ratesResource.isFile() ? ratesResource.lastModified() : 0;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
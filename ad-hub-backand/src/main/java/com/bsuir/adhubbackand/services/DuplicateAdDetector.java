@@ -0,0 +1,233 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.HammingIndex;
+import com.bsuir.adhubbackand.utils.SimHash;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Поиск почти повторов объявления среди недавних объявлений того же автора и той же категории.
+ * <p>
+ * Отпечаток объявления - SimHash основ заголовка и описания (ads.simhash); небольшие правки
+ * текста меняют в нем немногие биты. Отпечатки объявлений за последние window-days дней
+ * хранятся в памяти в {@link HammingIndex}, поэтому проверка при создании и редактировании -
+ * несколько хеш-поисков, а не сравнение с каталогом. Удаленные владельцем объявления
+ * повтором не считаются.
+ */
+@Slf4j
+@Service
+public class DuplicateAdDetector {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final Set<AdStatus> DUPLICATE_STATUSES =
+            Set.of(AdStatus.ACTIVE, AdStatus.ON_MODERATION, AdStatus.BLOCKED);
+
+    private final AdRepository adRepository;
+    private final int windowDays;
+    private final int maxDistance;
+    private final int rejectDistance;
+
+    // Индекс и сведения об объявлениях меняются и читаются только под монитором сервиса
+    private final HammingIndex index;
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public DuplicateAdDetector(AdRepository adRepository,
+                               @Value("${duplicates.window-days:30}") int windowDays,
+                               @Value("${duplicates.max-distance:6}") int maxDistance,
+                               @Value("${duplicates.reject-distance:2}") int rejectDistance,
+                               @Value("${duplicates.index-blocks:9}") int indexBlocks) {
+        this.adRepository = adRepository;
+        this.windowDays = windowDays;
+        this.maxDistance = maxDistance;
+        this.rejectDistance = rejectDistance;
+        this.index = new HammingIndex(maxDistance, indexBlocks);
+    }
+
+    /**
+     * Отпечаток объявления: сохраненный или посчитанный по основам текста;
+     * null, если текста для сравнения нет.
+     */
+    public Long fingerprint(Ad ad) {
+        if (ad.getSimhash() != null) {
+            return ad.getSimhash();
+        }
+        return fingerprint(ad.getSearchTerms());
+    }
+
+    public Long fingerprint(String searchTerms) {
+        if (searchTerms == null || searchTerms.isBlank()) {
+            return null;
+        }
+        return SimHash.of(Arrays.asList(searchTerms.split(" ")));
+    }
+
+    /**
+     * Почти повторы объявления (само объявление исключается), ближайшие сначала.
+     * Объявление может быть еще не сохранено (id null).
+     */
+    public List<Duplicate> findDuplicates(Ad ad) {
+        return findDuplicatesInOrder(List.of(ad)).get(0);
+    }
+
+    /**
+     * Почти повторы для нескольких сохраненных объявлений: id объявления -> его повторы.
+     * Статусы и заголовки найденных объявлений читаются одним запросом.
+     */
+    public Map<Long, List<Duplicate>> findDuplicates(Collection<Ad> ads) {
+        List<Ad> adList = List.copyOf(ads);
+        List<List<Duplicate>> duplicates = findDuplicatesInOrder(adList);
+        Map<Long, List<Duplicate>> result = new HashMap<>();
+        for (int i = 0; i < adList.size(); i++) {
+            if (!duplicates.get(i).isEmpty()) {
+                result.put(adList.get(i).getId(), duplicates.get(i));
+            }
+        }
+        return result;
+    }
+
+    // Повторы каждого объявления в порядке списка: результат не зависит от того, есть ли у объявлений id
+    private List<List<Duplicate>> findDuplicatesInOrder(List<Ad> ads) {
+        List<List<HammingIndex.Match>> matchesByAd = new ArrayList<>(ads.size());
+        Map<Long, Entry> matchedEntries = new HashMap<>();
+        synchronized (this) {
+            for (Ad ad : ads) {
+                List<HammingIndex.Match> matches = new ArrayList<>();
+                matchesByAd.add(matches);
+                Long fingerprint = fingerprint(ad);
+                if (fingerprint == null) {
+                    continue;
+                }
+                Long userId = ad.getUser().getId();
+                Long categoryId = ad.getCategory().getId();
+                for (HammingIndex.Match match : index.search(fingerprint, maxDistance)) {
+                    Entry entry = entries.get(match.id());
+                    if ((ad.getId() == null || match.id() != ad.getId())
+                            && (entry.userId().equals(userId) || entry.categoryId().equals(categoryId))) {
+                        matches.add(match);
+                        matchedEntries.put(match.id(), entry);
+                    }
+                }
+            }
+        }
+
+        Map<Long, Object[]> details = new HashMap<>();
+        if (!matchedEntries.isEmpty()) {
+            for (Object[] row : adRepository.findStatusesAndTitlesByIds(matchedEntries.keySet())) {
+                details.put((Long) row[0], row);
+            }
+        }
+        List<List<Duplicate>> result = new ArrayList<>(ads.size());
+        for (int i = 0; i < ads.size(); i++) {
+            Long userId = ads.get(i).getUser().getId();
+            List<Duplicate> duplicates = new ArrayList<>();
+            for (HammingIndex.Match match : matchesByAd.get(i)) {
+                Object[] row = details.get(match.id());
+                if (row != null && DUPLICATE_STATUSES.contains((AdStatus) row[1])) {
+                    Entry entry = matchedEntries.get(match.id());
+                    duplicates.add(new Duplicate(match.id(), entry.userId(), (String) row[2],
+                            (AdStatus) row[1], match.distance(), entry.userId().equals(userId)));
+                }
+            }
+            result.add(duplicates);
+        }
+        return result;
+    }
+
+    /**
+     * Повтор собственного опубликованного или ожидающего модерации объявления почти без правок -
+     * такое объявление не принимается, остальные повторы отправляются на модерацию.
+     */
+    public Optional<Duplicate> findRepost(List<Duplicate> duplicates) {
+        return duplicates.stream()
+                .filter(duplicate -> duplicate.sameUser() && duplicate.distance() <= rejectDistance)
+                .filter(duplicate -> duplicate.status() == AdStatus.ACTIVE
+                        || duplicate.status() == AdStatus.ON_MODERATION)
+                .findFirst();
+    }
+
+    /**
+     * Добавляет или обновляет отпечаток сохраненного объявления после коммита транзакции.
+     */
+    public void register(Ad ad) {
+        Long adId = ad.getId();
+        Long fingerprint = fingerprint(ad);
+        Entry entry = new Entry(ad.getUser().getId(), ad.getCategory().getId(),
+                ad.getCreatedAt() != null ? ad.getCreatedAt() : LocalDateTime.now());
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                if (fingerprint == null) {
+                    index.remove(adId);
+                    entries.remove(adId);
+                } else {
+                    index.put(adId, fingerprint);
+                    entries.put(adId, entry);
+                }
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long started = System.currentTimeMillis();
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = adRepository.findRecentFingerprintsAfter(since, lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                Long fingerprint = row[3] != null ? (Long) row[3] : fingerprint((String) row[4]);
+                if (fingerprint != null) {
+                    index.put(lastId, fingerprint);
+                    entries.put(lastId, new Entry((Long) row[1], (Long) row[2], (LocalDateTime) row[5]));
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        log.info("Индекс почти повторов объявлений загружен: объявлений={}, за {} мс",
+                entries.size(), System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(fixedDelayString = "${duplicates.prune-interval-ms:3600000}",
+            initialDelayString = "${duplicates.prune-interval-ms:3600000}")
+    public synchronized void prune() {
+        LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+        int removed = 0;
+        for (Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Entry> entry = it.next();
+            if (entry.getValue().createdAt().isBefore(since)) {
+                index.remove(entry.getKey());
+                it.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.debug("Из индекса почти повторов удалены старые объявления: {}", removed);
+        }
+    }
+
+    private record Entry(Long userId, Long categoryId, LocalDateTime createdAt) {
+    }
+
+    public record Duplicate(Long adId, Long userId, String title, AdStatus status, int distance, boolean sameUser) {
+    }
+}
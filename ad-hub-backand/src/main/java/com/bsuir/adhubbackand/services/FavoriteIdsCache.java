@@ -0,0 +1,71 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.FavoriteAdRepository;
+import com.bsuir.adhubbackand.utils.LongHashSet;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import com.bsuir.adhubbackand.utils.TtlLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Кэш id избранных объявлений по пользователям.
+ * Набор загружается один раз через findAdIdsByUserId и далее поддерживается
+ * добавлением/удалением из избранного, поэтому пометка целой страницы
+ * объявлений флагом isFavorite не требует запросов к БД.
+ */
+@Slf4j
+@Component
+public class FavoriteIdsCache {
+
+    private final FavoriteAdRepository favoriteAdRepository;
+
+    // Наборы неизменяемы после публикации (copy-on-write), поэтому их можно читать без блокировок
+    private final TtlLruCache<Long, LongHashSet> cache;
+
+    public FavoriteIdsCache(FavoriteAdRepository favoriteAdRepository,
+                            @Value("${favorites.cache.max-users:10000}") int maxUsers,
+                            @Value("${favorites.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.favoriteAdRepository = favoriteAdRepository;
+        this.cache = new TtlLruCache<>(maxUsers, ttlMinutes * 60_000);
+    }
+
+    public LongHashSet getFavoriteAdIds(Long userId) {
+        LongHashSet cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        LongHashSet adIds = LongHashSet.of(favoriteAdRepository.findAdIdsByUserId(userId));
+        cache.put(userId, adIds);
+        log.debug("Загружены id избранных объявлений: userId={}, count={}", userId, adIds.size());
+        return adIds;
+    }
+
+    public boolean isFavorite(Long userId, Long adId) {
+        return getFavoriteAdIds(userId).contains(adId);
+    }
+
+    public void onFavoriteAdded(Long userId, Long adId) {
+        TransactionUtils.afterCommit(() -> update(userId, adIds -> adIds.add(adId)));
+    }
+
+    public void onFavoriteRemoved(Long userId, Long adId) {
+        TransactionUtils.afterCommit(() -> update(userId, adIds -> adIds.remove(adId)));
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    private void update(Long userId, Consumer<LongHashSet> change) {
+        // Незагруженные наборы не трогаем - они подтянутся из БД при первом чтении
+        cache.computeIfPresent(userId, adIds -> {
+            LongHashSet updated = adIds.copy();
+            change.accept(updated);
+            return updated;
+        });
+    }
+}
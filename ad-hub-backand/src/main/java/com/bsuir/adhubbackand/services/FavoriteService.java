@@ -3,6 +3,7 @@ package com.bsuir.adhubbackand.services;
 import com.bsuir.adhubbackand.exception.AdNotFoundException;
 import com.bsuir.adhubbackand.exception.DuplicateFavoriteException;
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
+import com.bsuir.adhubbackand.model.dto.projection.FavoriteAdProjection;
 import com.bsuir.adhubbackand.model.dto.response.AdResponse;
 import com.bsuir.adhubbackand.model.dto.response.FavoriteListResponse;
 import com.bsuir.adhubbackand.model.dto.response.FavoriteResponse;
@@ -14,6 +15,7 @@ import com.bsuir.adhubbackand.repositories.FavoriteAdRepository;
 import com.bsuir.adhubbackand.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,9 +27,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FavoriteService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final FavoriteAdRepository favoriteAdRepository;
     private final AdRepository adRepository;
     private final UserRepository userRepository;
+    private final FavoriteIdsCache favoriteIdsCache;
+    private final AdStatsService adStatsService;
+    private final HotScoreService hotScoreService;
 
     @Transactional
     public void addToFavorites(Long adId, Long userId) {
@@ -53,6 +61,9 @@ public class FavoriteService {
                 .build();
 
         favoriteAdRepository.save(favoriteAd);
+        favoriteIdsCache.onFavoriteAdded(userId, adId);
+        adStatsService.favoriteAdded(adId);
+        hotScoreService.favorited(adId);
         log.info("Объявление добавлено в избранное: adId={}, userId={}", adId, userId);
     }
 
@@ -62,49 +73,61 @@ public class FavoriteService {
                 .orElseThrow(() -> new AdNotFoundException("Объявление не найдено в избранном"));
 
         favoriteAdRepository.delete(favoriteAd);
+        favoriteIdsCache.onFavoriteRemoved(userId, adId);
+        adStatsService.favoriteRemoved(adId);
         log.info("Объявление удалено из избранного: adId={}, userId={}", adId, userId);
     }
 
-    public FavoriteListResponse getUserFavorites(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            throw new UserNotFoundException(userId);
-        }
-
-        List<FavoriteAd> favorites = favoriteAdRepository.findByUserId(userId);
-
-        List<FavoriteResponse> favoriteResponses = favorites.stream()
-                .map(favorite -> {
-                    Ad ad = favorite.getAd();
-                    
-                    // Получаем основное изображение
-                    AdResponse.MediaItem primaryImage = null;
-                    if (!ad.getMediaFiles().isEmpty()) {
-                        var primaryMedia = ad.getMediaFiles().stream()
-                                .filter(media -> Boolean.TRUE.equals(media.getIsPrimary()))
-                                .findFirst()
-                                .orElse(ad.getMediaFiles().get(0));
-                        
-                        primaryImage = new AdResponse.MediaItem(
-                                primaryMedia.getId(),
-                                primaryMedia.getFileUrl(),
-                                primaryMedia.getFileType().name(),
-                                primaryMedia.getIsPrimary(),
-                                primaryMedia.getDisplayOrder()
-                        );
-                    }
-
-                    return new FavoriteResponse(
-                            favorite.getId(),
-                            ad.getId(),
-                            ad.getTitle(),
-                            ad.getDescription(),
-                            primaryImage,
-                            favorite.getCreatedAt()
-                    );
-                })
+    /**
+     * Возвращает страницу избранного пользователя (новые сначала) по курсору.
+     * Данные объявления и основное изображение выбираются одним JOIN-запросом,
+     * без ленивой загрузки объявлений и их медиафайлов.
+     *
+     * @param cursor id записи избранного, после которой продолжать выдачу (null - первая страница)
+     */
+    @Transactional(readOnly = true)
+    public FavoriteListResponse getUserFavorites(Long userId, Long cursor, Integer size) {
+        int pageSize = size != null && size > 0 ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
+
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<FavoriteAdProjection> rows = favoriteAdRepository.findFavoritePage(
+                userId, cursor, PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<FavoriteResponse> favoriteResponses = rows.stream()
+                .limit(pageSize)
+                .map(this::mapToResponse)
                 .collect(Collectors.toList());
 
-        return new FavoriteListResponse(favoriteResponses, favoriteResponses.size());
+        Long nextCursor = hasNext ? favoriteResponses.get(favoriteResponses.size() - 1).id() : null;
+        long totalCount = favoriteAdRepository.countByUserId(userId);
+
+        return new FavoriteListResponse(favoriteResponses, totalCount, nextCursor, hasNext);
     }
-}
 
+    private FavoriteResponse mapToResponse(FavoriteAdProjection row) {
+        AdResponse.MediaItem primaryImage = null;
+        if (row.mediaId() != null) {
+            primaryImage = new AdResponse.MediaItem(
+                    row.mediaId(),
+                    row.mediaFileUrl(),
+                    row.mediaFileType().name(),
+                    row.mediaIsPrimary(),
+                    row.mediaDisplayOrder()
+            );
+        }
+
+        return new FavoriteResponse(
+                row.favoriteId(),
+                row.adId(),
+                row.adTitle(),
+                row.adDescription(),
+                row.adPrice(),
+                row.adCurrency(),
+                row.adLocation(),
+                row.adStatus(),
+                primaryImage,
+                row.favoritedAt()
+        );
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.util.UUID;
@@ -97,6 +98,23 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Содержимое файла; поток закрывает вызывающий.
+     */
+    public InputStream getFile(String fileName) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(fileName)
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Ошибка чтения файла из MinIO: {}", e.getMessage());
+            throw new FileUploadException("Не удалось прочитать файл: " + e.getMessage(), e);
+        }
+    }
+
     public void deleteFile(String fileName) {
         if (fileName == null || fileName.isEmpty()) {
             log.warn("Попытка удалить файл с пустым именем");
@@ -0,0 +1,89 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.Transliteration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+
+/**
+ * Поиск объявлений с опечатками по триграммному сходству заголовка (pg_trgm).
+ * Кроме самого запроса проверяются его транслитерация и набор в другой раскладке,
+ * поэтому находятся и "самсунг" по "Samsung", и "ыфьыгтп".
+ * <p>
+ * Требует расширения pg_trgm и индексов из scripts/create_ad_search_indexes.sql;
+ * без расширения нечеткий поиск отключается при запуске.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FuzzySearchService {
+
+    private final AdRepository adRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${search.fuzzy.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.fuzzy.similarity-threshold:0.45}")
+    private double similarityThreshold;
+
+    @Value("${search.fuzzy.min-exact-results:5}")
+    private int minExactResults;
+
+    private volatile boolean available;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkExtension() {
+        if (!enabled) {
+            return;
+        }
+        Boolean installed = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", Boolean.class);
+        available = Boolean.TRUE.equals(installed);
+        if (!available) {
+            log.warn("Расширение pg_trgm не установлено, нечеткий поиск отключен " +
+                    "(см. scripts/create_ad_search_indexes.sql)");
+        }
+    }
+
+    /**
+     * Нужен ли нечеткий поиск после точного, нашедшего exactResults объявлений.
+     *
+     * @param requested явный выбор клиента; null - автоматически, если точных результатов мало
+     */
+    public boolean shouldUse(String normalizedQuery, Boolean requested, long exactResults) {
+        if (!available || normalizedQuery == null || Boolean.FALSE.equals(requested)) {
+            return false;
+        }
+        return Boolean.TRUE.equals(requested) || exactResults < minExactResults;
+    }
+
+    /**
+     * Вызывается внутри транзакции: порог сходства задается для нее через set_config.
+     */
+    public Page<Ad> search(String normalizedQuery, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                           String location, int pageNumber, int pageSize) {
+        String translitQuery = Transliteration.containsCyrillic(normalizedQuery)
+                ? Transliteration.toLatin(normalizedQuery)
+                : Transliteration.toCyrillic(normalizedQuery);
+        String layoutQuery = Transliteration.switchLayout(normalizedQuery);
+
+        adRepository.setWordSimilarityThreshold(String.valueOf(similarityThreshold));
+        // Порядок задан в самом запросе (точные совпадения, затем по сходству)
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+        return adRepository.fuzzySearchAds(normalizedQuery, layoutQuery, translitQuery,
+                categoryId, minPrice, maxPrice, location == null || location.isBlank() ? null : location,
+                pageable);
+    }
+}
@@ -0,0 +1,136 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.utils.GeoHash;
+import com.bsuir.adhubbackand.utils.Transliteration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Определение координат объявления по текстовому местоположению без внешних сервисов:
+ * в строке ищется название населенного пункта из справочника geo/belarus_cities.txt
+ * (по-русски или латиницей). Координаты - центр населенного пункта.
+ */
+@Slf4j
+@Component
+public class GeoGazetteer {
+
+    // Точность геохеша в ads.geohash: ~5 м, с запасом для любого радиуса поиска
+    public static final int GEOHASH_PRECISION = 9;
+
+    private static final String COMMENT_PREFIX = "#";
+    // Слова, которые не являются частью названия: "г. Минск", "Брестская обл."
+    private static final Set<String> NOISE_WORDS = Set.of(
+            "г", "гор", "город", "пос", "поселок", "аг", "агрогородок", "д", "деревня",
+            "обл", "область", "р", "н", "район", "ул", "улица", "пр", "проспект",
+            "g", "gorod", "city", "region", "obl", "oblast", "belarus", "беларусь", "рб");
+
+    private final Map<String, Location> locationsByName;
+    private final int maxNameWords;
+
+    public GeoGazetteer(ResourceLoader resourceLoader,
+                        @Value("${geo.gazetteer-location:classpath:geo/belarus_cities.txt}") String location) {
+        Resource resource = resourceLoader.getResource(location);
+        Map<String, Location> loaded = new HashMap<>();
+        int cities = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                String[] parts = line.split(";");
+                double latitude = Double.parseDouble(parts[1].strip());
+                double longitude = Double.parseDouble(parts[2].strip());
+                Location city = new Location(latitude, longitude,
+                        GeoHash.encode(latitude, longitude, GEOHASH_PRECISION));
+
+                String name = normalize(parts[0]);
+                loaded.putIfAbsent(name, city);
+                loaded.putIfAbsent(normalize(Transliteration.toLatin(name)), city);
+                if (parts.length > 3) {
+                    for (String alias : parts[3].split(",")) {
+                        if (!alias.isBlank()) {
+                            loaded.putIfAbsent(normalize(alias), city);
+                        }
+                    }
+                }
+                cities++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить справочник населенных пунктов " + location, e);
+        }
+        this.locationsByName = Map.copyOf(loaded);
+        this.maxNameWords = loaded.keySet().stream().mapToInt(name -> name.split(" ").length).max().orElse(1);
+        log.info("Справочник населенных пунктов загружен: пунктов={}, написаний={}", cities, loaded.size());
+    }
+
+    /**
+     * Координаты первого населенного пункта, упомянутого в строке местоположения,
+     * или {@link Location#UNKNOWN}, если ни одно название не распознано.
+     */
+    public Location locate(String location) {
+        if (location == null || location.isBlank()) {
+            return Location.UNKNOWN;
+        }
+        List<String> words = new ArrayList<>();
+        for (String word : normalize(location).split(" ")) {
+            if (!word.isEmpty() && !NOISE_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        // Самое длинное название, начинающееся с каждого слова: "Марьина Горка" раньше "Горки"
+        for (int start = 0; start < words.size(); start++) {
+            for (int length = Math.min(maxNameWords, words.size() - start); length > 0; length--) {
+                Location found = locationsByName.get(String.join(" ", words.subList(start, start + length)));
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return Location.UNKNOWN;
+    }
+
+    private static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c == 'ё') {
+                c = 'е';
+            }
+            if (Character.isLetter(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        return normalized.toString().strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Координаты и геохеш; для нераспознанного местоположения координат нет,
+     * а геохеш пустой - так объявление не проверяется повторно при дозаполнении.
+     */
+    public record Location(Double latitude, Double longitude, String geohash) {
+        public static final Location UNKNOWN = new Location(null, null, "");
+    }
+}
@@ -0,0 +1,121 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.exception.InvalidGeoQueryException;
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.model.enums.SortBy;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.GeoHash;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск объявлений в радиусе от точки (near=lat,lon&amp;radiusKm=).
+ * <p>
+ * Окрестность точки покрывается несколькими ячейками геохеша; каждая ячейка - диапазон
+ * индекса (status, geohash), так что грубый отбор по прямоугольнику идет по индексу,
+ * а точное расстояние считается только для объявлений из этих ячеек.
+ */
+@Service
+@RequiredArgsConstructor
+public class GeoSearchService {
+
+    private final AdRepository adRepository;
+
+    @Value("${geo.default-radius-km:10}")
+    private double defaultRadiusKm;
+
+    @Value("${geo.max-radius-km:300}")
+    private double maxRadiusKm;
+
+    @Value("${geo.max-cells:32}")
+    private int maxCells;
+
+    /**
+     * Разбирает параметры поиска по радиусу; null, если точка не задана.
+     */
+    public GeoQuery parse(String near, Double radiusKm) {
+        if (near == null || near.isBlank()) {
+            return null;
+        }
+        String[] parts = near.split(",");
+        if (parts.length != 2) {
+            throw new InvalidGeoQueryException("Параметр near должен иметь вид широта,долгота");
+        }
+        double latitude;
+        double longitude;
+        try {
+            latitude = Double.parseDouble(parts[0].strip());
+            longitude = Double.parseDouble(parts[1].strip());
+        } catch (NumberFormatException e) {
+            throw new InvalidGeoQueryException("Параметр near должен иметь вид широта,долгота");
+        }
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new InvalidGeoQueryException("Координаты вне допустимого диапазона");
+        }
+        double radius = radiusKm != null ? radiusKm : defaultRadiusKm;
+        if (!(radius > 0 && radius <= maxRadiusKm)) {
+            throw new InvalidGeoQueryException("Радиус должен быть больше 0 и не больше " + maxRadiusKm + " км");
+        }
+        return new GeoQuery(latitude, longitude, radius);
+    }
+
+    /**
+     * Страница объявлений в радиусе. По умолчанию (и для RELEVANCE) - ближайшие сначала.
+     */
+    public Page<Ad> search(GeoQuery geoQuery, String tsQuery, String searchQuery, Long categoryId,
+                           BigDecimal minPrice, BigDecimal maxPrice, String location, SortBy sortBy,
+                           int pageNumber, int pageSize) {
+        Sort sort;
+        if (sortBy == null || sortBy == SortBy.RELEVANCE || sortBy == SortBy.DISTANCE) {
+            // В одном населенном пункте координаты совпадают - внутри него новые сначала
+            sort = Sort.by(Sort.Direction.ASC, SortBy.DISTANCE.getColumn())
+                    .and(Sort.by(Sort.Direction.DESC, "created_at"));
+        } else {
+            sort = sortBy.toColumnSort();
+        }
+
+        List<String> cells = GeoHash.coverCircle(geoQuery.latitude(), geoQuery.longitude(),
+                geoQuery.radiusKm(), maxCells, GeoGazetteer.GEOHASH_PRECISION);
+        return adRepository.searchAdsNear(
+                geoQuery.latitude(),
+                geoQuery.longitude(),
+                geoQuery.radiusKm(),
+                toArrayLiteral(cells, ""),
+                toArrayLiteral(cells, GeoHash.RANGE_END_SUFFIX),
+                tsQuery,
+                searchQuery,
+                categoryId,
+                minPrice,
+                maxPrice,
+                location,
+                PageRequest.of(pageNumber, pageSize, sort)
+        );
+    }
+
+    /**
+     * Расстояние от точки запроса до объявления в км (с точностью до 10 м); null без координат.
+     */
+    public Double distanceKm(GeoQuery geoQuery, Ad ad) {
+        if (geoQuery == null || ad.getLatitude() == null || ad.getLongitude() == null) {
+            return null;
+        }
+        double distance = GeoHash.distanceKm(geoQuery.latitude(), geoQuery.longitude(),
+                ad.getLatitude(), ad.getLongitude());
+        return Math.round(distance * 100) / 100.0;
+    }
+
+    private static String toArrayLiteral(List<String> cells, String suffix) {
+        return cells.stream().map(cell -> cell + suffix).collect(Collectors.joining(",", "{", "}"));
+    }
+
+    public record GeoQuery(double latitude, double longitude, double radiusKm) {
+    }
+}
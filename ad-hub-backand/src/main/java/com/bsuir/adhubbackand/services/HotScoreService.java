@@ -0,0 +1,170 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * "Горячесть" объявления (SortBy.HOT): сумма событий - публикации, просмотров, добавлений
+ * в избранное - с весами, экспоненциально затухающими с возрастом события.
+ * <p>
+ * Хранится логарифм суммы, в которой вес события умножен на exp(t / tau), где t - время
+ * события от фиксированной эпохи. Порядок объявлений по такой величине совпадает с порядком
+ * по затухшей к текущему моменту сумме в любой момент времени, поэтому со временем
+ * ads.hot_score не пересчитывается: меняются только объявления с новыми событиями,
+ * а лента "горячих" - один проход по индексу (status, hot_score DESC NULLS LAST).
+ * <p>
+ * События копятся в памяти и периодически добавляются одним UPDATE. Удаление из избранного
+ * не уменьшает оценку. После изменения периода полураспада или весов оценки сбрасываются
+ * (UPDATE ads SET hot_score = NULL) и заполняются заново по счетчикам объявлений;
+ * до заполнения такие объявления стоят в конце ленты.
+ */
+@Slf4j
+@Service
+public class HotScoreService {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final AdRepository adRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double tauSeconds;
+    private final double creationWeight;
+    private final double viewWeight;
+    private final double favoriteWeight;
+
+    // id объявления -> логарифм суммы еще не записанных событий
+    private final Map<Long, Double> pendingEvents = new ConcurrentHashMap<>();
+
+    public HotScoreService(AdRepository adRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${hot.half-life-hours:24}") double halfLifeHours,
+                           @Value("${hot.creation-weight:10}") double creationWeight,
+                           @Value("${hot.view-weight:1}") double viewWeight,
+                           @Value("${hot.favorite-weight:5}") double favoriteWeight) {
+        this.adRepository = adRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.tauSeconds = halfLifeHours * 3600 / Math.log(2);
+        this.creationWeight = creationWeight;
+        this.viewWeight = viewWeight;
+        this.favoriteWeight = favoriteWeight;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndex() {
+        transactionTemplate.executeWithoutResult(status -> {
+            adRepository.createHotScoreIndex();
+            adRepository.dropLegacyHotScoreIndex();
+            adRepository.createMissingHotScoreIndex();
+        });
+    }
+
+    /**
+     * Оценка нового объявления: только событие публикации.
+     */
+    public double initialScore(LocalDateTime createdAt) {
+        return eventScore(creationWeight, createdAt);
+    }
+
+    public void viewed(Long adId) {
+        record(adId, viewWeight);
+    }
+
+    public void favorited(Long adId) {
+        record(adId, favoriteWeight);
+    }
+
+    @Scheduled(fixedDelayString = "${hot.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+
+        List<Long> adIds = new ArrayList<>(pendingEvents.size());
+        List<Double> scores = new ArrayList<>(pendingEvents.size());
+        for (Long adId : new ArrayList<>(pendingEvents.keySet())) {
+            Double score = pendingEvents.remove(adId);
+            if (score != null) {
+                adIds.add(adId);
+                scores.add(score);
+            }
+        }
+        if (adIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> adRepository.addHotScoreEvents(
+                    adIds.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")),
+                    scores.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"))));
+            log.debug("Оценки горячести обновлены: объявлений={}", adIds.size());
+        } catch (RuntimeException e) {
+            // Возвращаем события в буфер, чтобы записать их при следующем сбросе
+            for (int i = 0; i < adIds.size(); i++) {
+                pendingEvents.merge(adIds.get(i), scores.get(i), HotScoreService::logAddExp);
+            }
+            log.error("Ошибка обновления оценок горячести: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Заполняет оценку объявлений без нее (созданных до появления колонки или сброшенных):
+     * просмотры и избранное за все время считаются случившимися в момент публикации.
+     */
+    @Scheduled(fixedDelayString = "${hot.backfill-interval-ms:300000}", initialDelay = 30_000)
+    public void fillMissing() {
+        // Проходим только по объявлениям без оценки; если таких нет - один пустой запрос по индексу
+        long lastId = 0;
+        int filled = 0;
+        List<Long> adIds;
+        do {
+            adIds = adRepository.findIdsWithoutHotScoreAfter(lastId, PageRequest.of(0, BACKFILL_BATCH_SIZE));
+            if (adIds.isEmpty()) {
+                break;
+            }
+            lastId = adIds.get(adIds.size() - 1);
+            List<Long> batch = adIds;
+            Integer updated = transactionTemplate.execute(status -> adRepository.fillMissingHotScores(
+                    batch, EPOCH, tauSeconds, creationWeight, viewWeight, favoriteWeight));
+            filled += updated != null ? updated : 0;
+        } while (adIds.size() == BACKFILL_BATCH_SIZE);
+        if (filled > 0) {
+            log.info("Оценки горячести заполнены: объявлений={}", filled);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void record(Long adId, double weight) {
+        double score = eventScore(weight, LocalDateTime.now());
+        TransactionUtils.afterCommit(() -> pendingEvents.merge(adId, score, HotScoreService::logAddExp));
+    }
+
+    private double eventScore(double weight, LocalDateTime at) {
+        return Math.log(weight) + Duration.between(EPOCH, at).toMillis() / 1000.0 / tauSeconds;
+    }
+
+    // ln(e^a + e^b) без переполнения
+    private static double logAddExp(double a, double b) {
+        return Math.max(a, b) + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+}
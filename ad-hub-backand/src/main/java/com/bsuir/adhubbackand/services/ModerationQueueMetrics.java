@@ -0,0 +1,62 @@
+package com.bsuir.adhubbackand.services;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики работы очереди модерации с момента запуска приложения:
+ * выданные и возвращенные в очередь объявления, принятые решения
+ * и время, которое объявление провело в очереди до решения.
+ */
+@Component
+public class ModerationQueueMetrics {
+
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+    private final LongAdder decided = new LongAdder();
+    private final LongAdder timeInQueueSecondsTotal = new LongAdder();
+    private final AtomicLong timeInQueueSecondsMax = new AtomicLong();
+
+    public void recordClaimed(int count) {
+        claimed.add(count);
+    }
+
+    public void recordRequeued(int count) {
+        requeued.add(count);
+    }
+
+    public void recordDecision(LocalDateTime queuedAt, LocalDateTime decidedAt) {
+        decided.increment();
+        if (queuedAt == null) {
+            return;
+        }
+        long seconds = Math.max(0, Duration.between(queuedAt, decidedAt).getSeconds());
+        timeInQueueSecondsTotal.add(seconds);
+        timeInQueueSecondsMax.accumulateAndGet(seconds, Math::max);
+    }
+
+    public long getClaimed() {
+        return claimed.sum();
+    }
+
+    public long getRequeued() {
+        return requeued.sum();
+    }
+
+    public long getDecided() {
+        return decided.sum();
+    }
+
+    public double getAverageTimeInQueueSeconds() {
+        long count = decided.sum();
+        return count > 0 ? (double) timeInQueueSecondsTotal.sum() / count : 0;
+    }
+
+    public long getMaxTimeInQueueSeconds() {
+        return timeInQueueSecondsMax.get();
+    }
+}
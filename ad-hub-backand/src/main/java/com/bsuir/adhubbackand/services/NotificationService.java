@@ -3,9 +3,13 @@ package com.bsuir.adhubbackand.services;
 import com.bsuir.adhubbackand.exception.NotificationNotFoundException;
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
 import com.bsuir.adhubbackand.model.dto.response.NotificationResponse;
+import com.bsuir.adhubbackand.model.entities.Ad;
 import com.bsuir.adhubbackand.model.entities.Notification;
+import com.bsuir.adhubbackand.model.entities.NotificationType;
 import com.bsuir.adhubbackand.model.entities.User;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
 import com.bsuir.adhubbackand.repositories.NotificationRepository;
+import com.bsuir.adhubbackand.repositories.NotificationTypeRepository;
 import com.bsuir.adhubbackand.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +21,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -25,8 +32,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationService {
 
+    private static final String AD_APPROVED_TYPE = "AD_APPROVED";
+    private static final String AD_REJECTED_TYPE = "AD_REJECTED";
+    private static final String SAVED_SEARCH_MATCH_TYPE = "SAVED_SEARCH_MATCH";
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationTypeRepository notificationTypeRepository;
 
     @Transactional(readOnly = true)
     public List<NotificationResponse> getUserNotifications(Long userId) {
@@ -100,6 +112,67 @@ public class NotificationService {
         log.info("Уведомление {} удалено пользователем {}", notificationId, userId);
     }
 
+    /**
+     * Уведомляет владельцев объявлений о результате модерации.
+     * Для любого числа объявлений выполняется один INSERT ... SELECT.
+     */
+    @Transactional
+    public void notifyAdsModerated(Collection<Long> adIds, AdStatus newStatus) {
+        if (adIds.isEmpty()) {
+            return;
+        }
+
+        boolean approved = newStatus == AdStatus.ACTIVE;
+        NotificationType type = approved
+                ? getOrCreateType(AD_APPROVED_TYPE, "Ваше объявление «{title}» одобрено и опубликовано")
+                : getOrCreateType(AD_REJECTED_TYPE, "Ваше объявление «{title}» отклонено модератором");
+
+        int created = notificationRepository.insertAdNotifications(
+                adIds,
+                type.getId(),
+                approved ? "Объявление одобрено" : "Объявление отклонено",
+                "Ваше объявление «",
+                approved ? "» одобрено и опубликовано" : "» отклонено модератором",
+                LocalDateTime.now()
+        );
+        log.info("Создано уведомлений о модерации: {}, тип={}", created, type.getName());
+    }
+
+    /**
+     * Уведомляет пользователей о новом объявлении, подходящем под их сохраненный поиск.
+     *
+     * @param searchNamesByUser название сработавшего поиска для каждого пользователя
+     */
+    @Transactional
+    public void notifySavedSearchMatches(Ad ad, Map<Long, String> searchNamesByUser) {
+        if (searchNamesByUser.isEmpty()) {
+            return;
+        }
+
+        NotificationType type = getOrCreateType(SAVED_SEARCH_MATCH_TYPE,
+                "По вашему поиску «{search}» появилось новое объявление «{title}»");
+        LocalDateTime now = LocalDateTime.now();
+        List<Notification> notifications = new ArrayList<>(searchNamesByUser.size());
+        searchNamesByUser.forEach((userId, searchName) -> notifications.add(Notification.builder()
+                .user(userRepository.getReferenceById(userId))
+                .notificationType(type)
+                .title("Новое объявление по вашему поиску")
+                .message("По вашему поиску «" + searchName + "» появилось новое объявление «" + ad.getTitle() + "»")
+                .sentAt(now)
+                .relatedAd(ad)
+                .build()));
+        notificationRepository.saveAll(notifications);
+        log.debug("Создано уведомлений по сохраненным поискам: {}, adId={}", notifications.size(), ad.getId());
+    }
+
+    private NotificationType getOrCreateType(String name, String template) {
+        return notificationTypeRepository.findByName(name)
+                .orElseGet(() -> notificationTypeRepository.save(NotificationType.builder()
+                        .name(name)
+                        .template(template)
+                        .build()));
+    }
+
     private NotificationResponse mapToResponse(Notification notification) {
         return new NotificationResponse(
                 notification.getId(),
@@ -0,0 +1,347 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.repositories.FavoriteAdRepository;
+import com.bsuir.adhubbackand.repositories.SearchHistoryRepository;
+import com.bsuir.adhubbackand.utils.LongHashSet;
+import com.bsuir.adhubbackand.utils.TtlLruCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Персональная лента главной страницы: горячие объявления, переупорядоченные по интересам
+ * пользователя - категориям и ценам избранного и недавно просмотренного, категориям,
+ * ценовым фильтрам и словам последних поисковых запросов.
+ * <p>
+ * Кандидаты берутся из заранее посчитанных списков самых горячих объявлений каждой
+ * категории (периодически обновляются одним запросом) и глобального списка, оцениваются
+ * в памяти; готовый порядок id кэшируется на пользователя на несколько минут, так что
+ * страница ленты стоит одного запроса объявлений по id - как обычный список.
+ * Недавние просмотры хранятся только в памяти.
+ */
+@Slf4j
+@Service
+public class PersonalFeedService {
+
+    private static final int MAX_PROFILE_ADS = 200;
+    private static final int MAX_RECENT_VIEWS = 30;
+    private static final int MAX_RECENT_SEARCHES = 20;
+    // Разброс логарифма цены вокруг привычной пользователю: exp(0.7) - примерно вдвое
+    private static final double PRICE_SIGMA = 0.7;
+
+    private final AdRepository adRepository;
+    private final FavoriteAdRepository favoriteAdRepository;
+    private final SearchHistoryRepository searchHistoryRepository;
+    private final SearchTextAnalyzer searchTextAnalyzer;
+    private final ObjectMapper objectMapper;
+
+    private final int perCategoryTop;
+    private final int globalTop;
+    private final int maxItems;
+    private final double favoriteWeight;
+    private final double viewWeight;
+    private final double searchWeight;
+    private final double hotWeight;
+    private final double interestWeight;
+    private final double queryWeight;
+
+    private final TtlLruCache<Long, long[]> feeds;
+    private final TtlLruCache<Long, long[]> recentViews;
+    private volatile TopLists topLists = TopLists.EMPTY;
+
+    public PersonalFeedService(AdRepository adRepository,
+                               FavoriteAdRepository favoriteAdRepository,
+                               SearchHistoryRepository searchHistoryRepository,
+                               SearchTextAnalyzer searchTextAnalyzer,
+                               ObjectMapper objectMapper,
+                               @Value("${feed.per-category-top:200}") int perCategoryTop,
+                               @Value("${feed.global-top:500}") int globalTop,
+                               @Value("${feed.max-items:300}") int maxItems,
+                               @Value("${feed.favorite-weight:3}") double favoriteWeight,
+                               @Value("${feed.view-weight:1}") double viewWeight,
+                               @Value("${feed.search-weight:2}") double searchWeight,
+                               @Value("${feed.hot-weight:1}") double hotWeight,
+                               @Value("${feed.interest-weight:2}") double interestWeight,
+                               @Value("${feed.query-weight:1}") double queryWeight,
+                               @Value("${feed.cache.max-users:10000}") int maxUsers,
+                               @Value("${feed.cache.ttl-seconds:180}") long ttlSeconds,
+                               @Value("${feed.recent-views-ttl-hours:24}") long recentViewsTtlHours) {
+        this.adRepository = adRepository;
+        this.favoriteAdRepository = favoriteAdRepository;
+        this.searchHistoryRepository = searchHistoryRepository;
+        this.searchTextAnalyzer = searchTextAnalyzer;
+        this.objectMapper = objectMapper;
+        this.perCategoryTop = perCategoryTop;
+        this.globalTop = globalTop;
+        this.maxItems = maxItems;
+        this.favoriteWeight = favoriteWeight;
+        this.viewWeight = viewWeight;
+        this.searchWeight = searchWeight;
+        this.hotWeight = hotWeight;
+        this.interestWeight = interestWeight;
+        this.queryWeight = queryWeight;
+        this.feeds = new TtlLruCache<>(maxUsers, ttlSeconds * 1000);
+        this.recentViews = new TtlLruCache<>(maxUsers, recentViewsTtlHours * 3_600_000);
+    }
+
+    /**
+     * Id объявлений ленты в порядке показа. Для анонимного пользователя и пользователя
+     * без истории - самые горячие объявления. Пустой массив, пока списки не посчитаны.
+     */
+    public long[] rankedAdIds(Long userId) {
+        if (userId == null) {
+            return topLists.globalIds();
+        }
+        long[] cached = feeds.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long[] ranked = rank(userId, buildProfile(userId));
+        feeds.put(userId, ranked);
+        return ranked;
+    }
+
+    /**
+     * Запоминает просмотр объявления пользователем (последние MAX_RECENT_VIEWS, только в памяти).
+     */
+    public void viewed(Long userId, Long adId) {
+        if (userId == null) {
+            return;
+        }
+        long[] previous = recentViews.get(userId);
+        long[] views = new long[previous == null ? 1 : Math.min(previous.length + 1, MAX_RECENT_VIEWS)];
+        views[0] = adId;
+        int size = 1;
+        if (previous != null) {
+            for (int i = 0; i < previous.length && size < views.length; i++) {
+                if (previous[i] != adId) {
+                    views[size++] = previous[i];
+                }
+            }
+        }
+        recentViews.put(userId, size == views.length ? views : Arrays.copyOf(views, size));
+    }
+
+    @Scheduled(fixedDelayString = "${feed.top-lists-refresh-interval-ms:120000}")
+    public void refreshTopLists() {
+        long started = System.currentTimeMillis();
+        Map<Long, List<Candidate>> byCategory = new HashMap<>();
+        List<Candidate> all = new ArrayList<>();
+        for (Object[] row : adRepository.findHotAdsPerCategory(perCategoryTop)) {
+            Candidate candidate = new Candidate(
+                    ((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    row[3] != null ? ((Number) row[3]).doubleValue() : 0,
+                    ((Number) row[4]).doubleValue(),
+                    titleTerms((String) row[5], row[6] != null ? ((Number) row[6]).intValue() : 0));
+            byCategory.computeIfAbsent(candidate.categoryId(), key -> new ArrayList<>()).add(candidate);
+            all.add(candidate);
+        }
+        all.sort(Comparator.comparingDouble(Candidate::hotScore).reversed());
+        List<Candidate> global = List.copyOf(all.subList(0, Math.min(globalTop, all.size())));
+
+        byCategory.replaceAll((categoryId, candidates) -> List.copyOf(candidates));
+        topLists = new TopLists(Map.copyOf(byCategory), global,
+                global.stream().mapToLong(Candidate::adId).toArray(),
+                global.isEmpty() ? 0 : global.get(0).hotScore());
+        log.debug("Списки горячих объявлений для ленты обновлены: категорий={}, объявлений={}, за {} мс",
+                byCategory.size(), all.size(), System.currentTimeMillis() - started);
+    }
+
+    private Profile buildProfile(Long userId) {
+        Profile profile = new Profile();
+
+        Set<Long> favoriteIds = new HashSet<>(newest(favoriteAdRepository.findAdIdsByUserId(userId)));
+        profile.favoriteIds = LongHashSet.of(favoriteIds);
+        Set<Long> profileAdIds = new HashSet<>(favoriteIds);
+        long[] views = recentViews.get(userId);
+        if (views != null) {
+            for (long adId : views) {
+                profileAdIds.add(adId);
+            }
+        }
+        if (!profileAdIds.isEmpty()) {
+            for (Object[] row : adRepository.findCategoriesAndPricesByIds(profileAdIds)) {
+                Long adId = (Long) row[0];
+                double weight = (favoriteIds.contains(adId) ? favoriteWeight : 0)
+                        + (views != null && contains(views, adId) ? viewWeight : 0);
+                profile.addInterest((Long) row[1], (BigDecimal) row[2], weight);
+            }
+        }
+
+        for (Object[] row : searchHistoryRepository.findRecentQueriesAndFiltersByUser(
+                userId, PageRequest.of(0, MAX_RECENT_SEARCHES))) {
+            for (String term : searchTextAnalyzer.analyze((String) row[0])) {
+                profile.queryTerms.add(term);
+            }
+            JsonNode filters = parseFilters((String) row[1]);
+            if (filters == null) {
+                continue;
+            }
+            Long categoryId = filters.hasNonNull("categoryId") ? filters.get("categoryId").asLong() : null;
+            BigDecimal minPrice = filters.hasNonNull("minPrice") ? filters.get("minPrice").decimalValue() : null;
+            BigDecimal maxPrice = filters.hasNonNull("maxPrice") ? filters.get("maxPrice").decimalValue() : null;
+            // Середина ценового диапазона запроса - как цена просмотренного объявления
+            BigDecimal price = minPrice != null && maxPrice != null
+                    ? minPrice.add(maxPrice).divide(BigDecimal.TWO)
+                    : minPrice != null ? minPrice : maxPrice;
+            profile.addInterest(categoryId, price, searchWeight);
+        }
+        return profile;
+    }
+
+    private long[] rank(Long userId, Profile profile) {
+        TopLists lists = topLists;
+        if (profile.isEmpty()) {
+            return lists.globalIds();
+        }
+
+        Map<Long, Candidate> candidates = new LinkedHashMap<>();
+        for (Candidate candidate : lists.global()) {
+            candidates.put(candidate.adId(), candidate);
+        }
+        for (Long categoryId : profile.categoryWeights.keySet()) {
+            for (Candidate candidate : lists.byCategory().getOrDefault(categoryId, List.of())) {
+                candidates.putIfAbsent(candidate.adId(), candidate);
+            }
+        }
+
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates.values()) {
+            // Свои и уже сохраненные в избранное объявления в ленте не показываем
+            if (candidate.userId() == userId || profile.favoriteIds.contains(candidate.adId())) {
+                continue;
+            }
+            scored.add(Map.entry(candidate.adId(), score(candidate, profile, lists.maxHotScore())));
+        }
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+        return scored.stream().limit(maxItems).mapToLong(Map.Entry::getKey).toArray();
+    }
+
+    private double score(Candidate candidate, Profile profile, double maxHotScore) {
+        // hot_score - логарифм затухшей суммы событий: разность - во сколько раз e "холоднее" лидера
+        double hot = 1 / (1 + Math.max(0, maxHotScore - candidate.hotScore()));
+        double interest = profile.categoryShare(candidate.categoryId())
+                * profile.priceFit(candidate.categoryId(), candidate.price());
+        double query = 0;
+        if (!profile.queryTerms.isEmpty() && !candidate.titleTerms().isEmpty()) {
+            long matched = candidate.titleTerms().stream().filter(profile.queryTerms::contains).count();
+            query = Math.min(1, matched / 2.0);
+        }
+        return hotWeight * hot + interestWeight * interest + queryWeight * query;
+    }
+
+    private JsonNode parseFilters(String filtersJson) {
+        if (filtersJson == null || filtersJson.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(filtersJson);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    // Основы заголовка - первые titleLength основ search_terms
+    private static Set<String> titleTerms(String searchTerms, int titleLength) {
+        if (searchTerms == null || searchTerms.isEmpty() || titleLength <= 0) {
+            return Set.of();
+        }
+        String[] terms = searchTerms.split(" ");
+        return Set.copyOf(Arrays.asList(terms).subList(0, Math.min(titleLength, terms.length)));
+    }
+
+    // id растут со временем - самые новые избранные отражают текущие интересы
+    private static List<Long> newest(List<Long> adIds) {
+        return adIds.stream().sorted(Comparator.reverseOrder()).limit(MAX_PROFILE_ADS).toList();
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Интересы пользователя: вес категорий и взвешенное среднее логарифма цены по категориям.
+     */
+    private static final class Profile {
+        private final Map<Long, Double> categoryWeights = new HashMap<>();
+        private final Map<Long, double[]> logPriceSums = new HashMap<>();
+        private final double[] totalLogPrice = new double[2];
+        private final Set<String> queryTerms = new HashSet<>();
+        private LongHashSet favoriteIds = new LongHashSet();
+        private double totalWeight;
+
+        void addInterest(Long categoryId, BigDecimal price, double weight) {
+            if (weight <= 0) {
+                return;
+            }
+            if (categoryId != null) {
+                categoryWeights.merge(categoryId, weight, Double::sum);
+                totalWeight += weight;
+            }
+            if (price != null && price.signum() > 0) {
+                double logPrice = Math.log(price.doubleValue());
+                if (categoryId != null) {
+                    double[] sums = logPriceSums.computeIfAbsent(categoryId, key -> new double[2]);
+                    sums[0] += weight * logPrice;
+                    sums[1] += weight;
+                }
+                totalLogPrice[0] += weight * logPrice;
+                totalLogPrice[1] += weight;
+            }
+        }
+
+        boolean isEmpty() {
+            return totalWeight == 0 && totalLogPrice[1] == 0 && queryTerms.isEmpty();
+        }
+
+        double categoryShare(long categoryId) {
+            return totalWeight > 0 ? categoryWeights.getOrDefault(categoryId, 0.0) / totalWeight : 0;
+        }
+
+        // 1 у привычной цены, ниже - чем дальше от нее в разах; без данных о ценах - нейтрально
+        double priceFit(long categoryId, double price) {
+            double[] sums = logPriceSums.getOrDefault(categoryId, totalLogPrice);
+            if (sums[1] == 0) {
+                return 1;
+            }
+            if (price <= 0) {
+                return 0.5;
+            }
+            double deviation = (Math.log(price) - sums[0] / sums[1]) / PRICE_SIGMA;
+            return Math.exp(-deviation * deviation / 2);
+        }
+    }
+
+    private record Candidate(long adId, long categoryId, long userId, double price, double hotScore,
+                             Set<String> titleTerms) {
+    }
+
+    private record TopLists(Map<Long, List<Candidate>> byCategory, List<Candidate> global,
+                            long[] globalIds, double maxHotScore) {
+        static final TopLists EMPTY = new TopLists(Map.of(), List.of(), new long[0], 0);
+    }
+}
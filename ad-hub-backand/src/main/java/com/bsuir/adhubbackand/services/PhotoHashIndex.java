@@ -0,0 +1,175 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.repositories.AdMediaRepository;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.HammingIndex;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Индекс перцептивных хешей фотографий объявлений: какие фото других продавцов почти
+ * совпадают с фото данного объявления (типичный признак мошенничества - чужие фотографии).
+ * <p>
+ * Хеши (ad_media.perceptual_hash) хранятся в памяти в {@link HammingIndex}, поиск в радиусе
+ * max-distance битов - несколько хеш-поисков вместо попиксельного сравнения с хранилищем.
+ * Индекс не ограничен по времени, поэтому радиус по умолчанию меньше, чем у повторов текста:
+ * при 4 битах хватает 15 таблиц с ключами около 21 бита.
+ * Почти однотонные картинки (мало установленных или сброшенных битов) не индексируются:
+ * у них совпадают хеши при совершенно разном содержимом.
+ */
+@Slf4j
+@Service
+public class PhotoHashIndex {
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MIN_BITS = 6;
+    private static final int MAX_MATCHES_PER_AD = 10;
+
+    private final AdMediaRepository adMediaRepository;
+    private final AdRepository adRepository;
+    private final int maxDistance;
+
+    // Индекс и владельцы фото меняются и читаются только под монитором сервиса
+    private final HammingIndex index;
+    private final Map<Long, Owner> owners = new HashMap<>();
+
+    public PhotoHashIndex(AdMediaRepository adMediaRepository,
+                          AdRepository adRepository,
+                          @Value("${photos.max-distance:4}") int maxDistance,
+                          @Value("${photos.index-blocks:6}") int indexBlocks) {
+        this.adMediaRepository = adMediaRepository;
+        this.adRepository = adRepository;
+        this.maxDistance = maxDistance;
+        this.index = new HammingIndex(maxDistance, indexBlocks);
+    }
+
+    /**
+     * Добавляет хеш фото после коммита текущей транзакции (вне транзакции - сразу).
+     */
+    public void register(Long mediaId, Long adId, Long userId, Long hash) {
+        if (hash == null || !isDistinctive(hash)) {
+            return;
+        }
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                index.put(mediaId, hash);
+                owners.put(mediaId, new Owner(adId, userId));
+            }
+        });
+    }
+
+    public void unregister(Long mediaId) {
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                index.remove(mediaId);
+                owners.remove(mediaId);
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long started = System.currentTimeMillis();
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = adMediaRepository.findPerceptualHashesAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                long hash = (Long) row[3];
+                if (isDistinctive(hash)) {
+                    index.put(lastId, hash);
+                    owners.put(lastId, new Owner((Long) row[1], (Long) row[2]));
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        log.info("Индекс хешей фотографий загружен: фото={}, за {} мс",
+                owners.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Фото объявлений других продавцов, почти совпадающие с фото данных объявлений:
+     * id объявления -> совпадения, ближайшие сначала.
+     */
+    public Map<Long, List<SharedPhoto>> findSharedPhotos(Collection<Ad> ads) {
+        if (ads.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> userIdByAd = new HashMap<>();
+        for (Ad ad : ads) {
+            userIdByAd.put(ad.getId(), ad.getUser().getId());
+        }
+        List<Object[]> hashes = adMediaRepository.findPerceptualHashesByAdIds(userIdByAd.keySet());
+
+        Map<Long, List<SharedPhoto>> matchesByAd = new HashMap<>();
+        synchronized (this) {
+            for (Object[] row : hashes) {
+                Long mediaId = (Long) row[0];
+                Long adId = (Long) row[1];
+                long hash = (Long) row[2];
+                if (!isDistinctive(hash)) {
+                    continue;
+                }
+                for (HammingIndex.Match match : index.search(hash, maxDistance)) {
+                    Owner owner = owners.get(match.id());
+                    if (!owner.userId().equals(userIdByAd.get(adId))) {
+                        matchesByAd.computeIfAbsent(adId, key -> new ArrayList<>()).add(new SharedPhoto(
+                                mediaId, match.id(), owner.adId(), owner.userId(), null, null, match.distance()));
+                    }
+                }
+            }
+        }
+        if (matchesByAd.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> matchedAdIds = matchesByAd.values().stream()
+                .flatMap(List::stream)
+                .map(SharedPhoto::otherAdId)
+                .distinct()
+                .toList();
+        Map<Long, Object[]> details = new HashMap<>();
+        for (Object[] row : adRepository.findStatusesAndTitlesByIds(matchedAdIds)) {
+            details.put((Long) row[0], row);
+        }
+
+        Map<Long, List<SharedPhoto>> result = new HashMap<>();
+        matchesByAd.forEach((adId, matches) -> result.put(adId, matches.stream()
+                .filter(match -> details.containsKey(match.otherAdId()))
+                .sorted(Comparator.comparingInt(SharedPhoto::distance))
+                .limit(MAX_MATCHES_PER_AD)
+                .map(match -> {
+                    Object[] row = details.get(match.otherAdId());
+                    return new SharedPhoto(match.mediaId(), match.otherMediaId(), match.otherAdId(),
+                            match.otherUserId(), (String) row[2], (AdStatus) row[1], match.distance());
+                })
+                .toList()));
+        return result;
+    }
+
+    private static boolean isDistinctive(long hash) {
+        int bits = Long.bitCount(hash);
+        return bits >= MIN_BITS && bits <= Long.SIZE - MIN_BITS;
+    }
+
+    private record Owner(Long adId, Long userId) {
+    }
+
+    public record SharedPhoto(Long mediaId, Long otherMediaId, Long otherAdId, Long otherUserId,
+                              String otherAdTitle, AdStatus otherAdStatus, int distance) {
+    }
+}
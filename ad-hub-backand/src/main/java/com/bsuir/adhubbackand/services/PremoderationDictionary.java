@@ -0,0 +1,167 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.utils.AhoCorasickMatcher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Словарь пре-модерации: запрещенные фразы и разрешенные фразы-исключения,
+ * скомпилированные в один автомат Ахо-Корасик.
+ * <p>
+ * Формат файла: одна фраза на строку, строки с "#" - комментарии, фразы с префиксом "+" -
+ * разрешенные (запрещенная фраза внутри разрешенной не считается нарушением).
+ * Фраза совпадает только целыми словами: вхождение не должно начинаться или заканчиваться
+ * посреди слова. Фраза с суффиксом "*" - основа: после нее слово может продолжаться.
+ * Для файла в файловой системе изменения подхватываются без перезапуска,
+ * новый автомат подменяет старый атомарно.
+ */
+@Slf4j
+@Component
+public class PremoderationDictionary {
+
+    private static final String ALLOW_PREFIX = "+";
+    private static final String COMMENT_PREFIX = "#";
+    private static final String STEM_SUFFIX = "*";
+
+    private final Resource resource;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile long loadedLastModified = -1;
+
+    public PremoderationDictionary(ResourceLoader resourceLoader,
+                                   @Value("${premoderation.dictionary-location:classpath:premoderation/dictionary.txt}")
+                                   String location) {
+        this.resource = resourceLoader.getResource(location);
+        reload();
+    }
+
+    /**
+     * Запрещенные фразы, найденные в тексте, без вхождений, целиком покрытых разрешенными фразами.
+     */
+    public Set<String> findBannedPhrases(String text) {
+        if (text == null || text.isEmpty()) {
+            return Set.of();
+        }
+
+        Snapshot current = snapshot;
+        List<int[]> banned = new ArrayList<>();
+        List<int[]> allowed = new ArrayList<>();
+        current.matcher().forEachMatch(text, (pattern, start, end) -> {
+            if (isWholeWords(text, start, end, current.stems()[pattern])) {
+                (current.allowed()[pattern] ? allowed : banned).add(new int[]{pattern, start, end});
+            }
+        });
+
+        Set<String> result = new LinkedHashSet<>();
+        for (int[] match : banned) {
+            if (!isCovered(match, allowed)) {
+                result.add(current.matcher().pattern(match[0]));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.matcher().patternCount();
+    }
+
+    /**
+     * Перечитывает словарь. При ошибке чтения остается прежний словарь.
+     */
+    public synchronized boolean reload() {
+        try {
+            long lastModified = lastModified();
+            List<String> phrases = new ArrayList<>();
+            List<Boolean> allowFlags = new ArrayList<>();
+            List<Boolean> stemFlags = new ArrayList<>();
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String phrase = line.strip();
+                    if (phrase.isEmpty() || phrase.startsWith(COMMENT_PREFIX)) {
+                        continue;
+                    }
+                    boolean allow = phrase.startsWith(ALLOW_PREFIX);
+                    if (allow) {
+                        phrase = phrase.substring(ALLOW_PREFIX.length()).strip();
+                    }
+                    boolean stem = phrase.endsWith(STEM_SUFFIX);
+                    if (stem) {
+                        phrase = phrase.substring(0, phrase.length() - STEM_SUFFIX.length()).strip();
+                    }
+                    if (!phrase.isEmpty()) {
+                        phrases.add(phrase);
+                        allowFlags.add(allow);
+                        stemFlags.add(stem);
+                    }
+                }
+            }
+
+            boolean[] allowed = new boolean[allowFlags.size()];
+            boolean[] stems = new boolean[stemFlags.size()];
+            for (int i = 0; i < allowed.length; i++) {
+                allowed[i] = allowFlags.get(i);
+                stems[i] = stemFlags.get(i);
+            }
+            snapshot = new Snapshot(AhoCorasickMatcher.build(phrases), allowed, stems);
+            loadedLastModified = lastModified;
+
+            log.info("Словарь пре-модерации загружен из {}: фраз={}", resource.getDescription(), phrases.size());
+            return true;
+        } catch (IOException e) {
+            log.error("Не удалось загрузить словарь пре-модерации из {}: {}", resource.getDescription(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${premoderation.dictionary-check-interval-ms:30000}")
+    public void reloadIfChanged() {
+        if (resource.isFile() && lastModified() != loadedLastModified) {
+            reload();
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Вхождение начинается с начала слова и, если фраза не основа, заканчивается концом слова
+    private static boolean isWholeWords(String text, int start, int end, boolean stem) {
+        if (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) {
+            return false;
+        }
+        return stem || end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+    }
+
+    private static boolean isCovered(int[] match, List<int[]> allowed) {
+        for (int[] allow : allowed) {
+            if (allow[1] <= match[1] && match[2] <= allow[2]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Snapshot(AhoCorasickMatcher matcher, boolean[] allowed, boolean[] stems) {
+        static final Snapshot EMPTY = new Snapshot(AhoCorasickMatcher.build(List.of()), new boolean[0], new boolean[0]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Автоматическая пре-модерация объявлений перед ручной очередью.
+ * Проверяет текст по словарю запрещенных фраз, цену - по медиане категории,
+ * и количество ссылок. Объявления без замечаний одобряются сразу,
+ * остальные уходят на ручную модерацию с перечнем причин.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PremoderationService {
+
+    private static final Pattern LINK_PATTERN = Pattern.compile(
+            "(?i)(?:https?://|www\\.)\\S+|\\b[a-z0-9-]+\\.(?:ru|by|com|net|org|info|biz|xyz|top|su|io|me)\\b");
+
+    private final PremoderationDictionary dictionary;
+    private final AdRepository adRepository;
+
+    @Value("${premoderation.auto-approve:true}")
+    private boolean autoApprove;
+
+    @Value("${premoderation.max-links:1}")
+    private int maxLinks;
+
+    @Value("${premoderation.price-outlier-factor:10}")
+    private double priceOutlierFactor;
+
+    @Value("${premoderation.price-min-samples:20}")
+    private long priceMinSamples;
+
+    // Медианы цен активных объявлений по (категория, валюта); подменяются целиком при пересчете
+    private volatile Map<PriceKey, BigDecimal> medianPrices = Map.of();
+
+    /**
+     * @return решение пре-модерации; approved=true только если замечаний нет и автоодобрение включено
+     */
+    public PremoderationResult check(String title, String description, BigDecimal price,
+                                     String currency, Long categoryId) {
+        List<String> reasons = new ArrayList<>();
+
+        for (String phrase : dictionary.findBannedPhrases(title)) {
+            reasons.add("Запрещенная фраза в заголовке: «" + phrase + "»");
+        }
+        for (String phrase : dictionary.findBannedPhrases(description)) {
+            reasons.add("Запрещенная фраза в описании: «" + phrase + "»");
+        }
+
+        int links = countLinks(title) + countLinks(description);
+        if (links > maxLinks) {
+            reasons.add("Слишком много ссылок в тексте: " + links);
+        }
+
+        String priceReason = checkPrice(price, currency, categoryId);
+        if (priceReason != null) {
+            reasons.add(priceReason);
+        }
+
+        return new PremoderationResult(autoApprove && reasons.isEmpty(), List.copyOf(reasons));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${premoderation.price-stats-cron:0 15 * * * *}")
+    public void refreshPriceStats() {
+        Map<PriceKey, BigDecimal> medians = new HashMap<>();
+        for (Object[] row : adRepository.findActivePriceMedians()) {
+            long samples = ((Number) row[2]).longValue();
+            if (samples >= priceMinSamples) {
+                medians.put(new PriceKey(((Number) row[0]).longValue(), (String) row[1]),
+                        new BigDecimal(row[3].toString()));
+            }
+        }
+        medianPrices = medians;
+        log.info("Медианы цен для пре-модерации пересчитаны: групп={}", medians.size());
+    }
+
+    private String checkPrice(BigDecimal price, String currency, Long categoryId) {
+        if (price == null || price.signum() <= 0 || categoryId == null) {
+            return null;
+        }
+
+        BigDecimal median = medianPrices.get(new PriceKey(categoryId, currency));
+        if (median == null || median.signum() <= 0) {
+            return null;
+        }
+
+        double ratio = price.doubleValue() / median.doubleValue();
+        if (ratio > priceOutlierFactor || ratio < 1 / priceOutlierFactor) {
+            return "Цена " + price.toPlainString() + " " + currency
+                    + " сильно отличается от медианы категории " + median.toPlainString();
+        }
+        return null;
+    }
+
+    private static int countLinks(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        Matcher matcher = LINK_PATTERN.matcher(text);
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    private record PriceKey(Long categoryId, String currency) {
+    }
+
+    public record PremoderationResult(boolean approved, List<String> reasons) {
+    }
+}
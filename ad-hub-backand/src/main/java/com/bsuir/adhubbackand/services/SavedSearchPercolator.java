@@ -0,0 +1,267 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.repositories.SavedSearchRepository;
+import com.bsuir.adhubbackand.utils.IntervalTree;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Обратный индекс сохраненных поисков ("перколятор"): вместо выполнения каждого сохраненного
+ * поиска по новым объявлениям новое объявление проверяется только против поисков-кандидатов.
+ * <p>
+ * Поиски с текстом индексируются по основам одного из своих слов (все слова обязательны,
+ * поэтому достаточно одного): кандидаты - поиски, опорная основа которых есть в объявлении.
+ * Поиски без текста разложены по категориям, внутри категории - в дереве ценовых отрезков.
+ * Кандидаты затем проверяются полностью. Индекс неизменяем и пересобирается целиком
+ * после изменений сохраненных поисков (не чаще интервала проверки) и периодически.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SavedSearchPercolator {
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final SearchTextAnalyzer searchTextAnalyzer;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private volatile Index index = Index.EMPTY;
+
+    /**
+     * Сохраненные поиски, которым соответствует объявление.
+     */
+    public List<Match> percolate(Ad ad) {
+        Index current = index;
+        String[] terms = ad.getSearchTerms() == null || ad.getSearchTerms().isEmpty()
+                ? new String[0] : ad.getSearchTerms().split(" ");
+        // Фильтры цены, как и в поиске, - в базовой валюте
+        BigDecimal adPrice = ad.getNormalizedPrice() != null ? ad.getNormalizedPrice() : ad.getPrice();
+        double price = adPrice != null ? adPrice.doubleValue() : 0;
+        Long categoryId = ad.getCategory().getId();
+        String location = ad.getLocation() != null ? ad.getLocation().toLowerCase(Locale.ROOT) : "";
+
+        Set<Integer> candidates = new HashSet<>();
+        for (String term : new HashSet<>(Arrays.asList(terms))) {
+            int[] searches = current.byTerm().get(term);
+            if (searches != null) {
+                for (int search : searches) {
+                    candidates.add(search);
+                }
+            }
+        }
+        for (Long bucket : new Long[]{categoryId, null}) {
+            IntervalTree tree = current.termlessByCategory().get(bucket);
+            if (tree != null) {
+                int[] ids = current.termlessIds().get(bucket);
+                tree.stab(price, position -> candidates.add(ids[position]));
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int candidate : candidates) {
+            CompiledSearch search = current.searches()[candidate];
+            if (search.matches(terms, categoryId, price, location)) {
+                matches.add(new Match(search.id(), search.userId(), search.name()));
+            }
+        }
+        return matches;
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildIfDirty();
+    }
+
+    @Scheduled(fixedDelayString = "${saved-search.index-check-interval-ms:5000}")
+    public void rebuildIfDirty() {
+        if (dirty.getAndSet(false)) {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                // Не теряем признак: следующая проверка попробует перестроить индекс снова
+                dirty.set(true);
+                throw e;
+            }
+        }
+    }
+
+    // Синонимы в словаре могут меняться - периодически пересобираем индекс целиком
+    @Scheduled(fixedDelayString = "${saved-search.index-rebuild-interval-ms:600000}",
+            initialDelayString = "${saved-search.index-rebuild-interval-ms:600000}")
+    public void rebuild() {
+        List<Object[]> rows = savedSearchRepository.findAllForIndex();
+        CompiledSearch[] searches = new CompiledSearch[rows.size()];
+        Map<String, List<Integer>> byTerm = new HashMap<>();
+        Map<Long, List<Integer>> termless = new HashMap<>();
+
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            CompiledSearch search = compile((Long) row[0], (Long) row[1], (String) row[2],
+                    (String) row[3], (String) row[4]);
+            searches[i] = search;
+            if (search.queryTerms().isEmpty()) {
+                termless.computeIfAbsent(search.categoryId(), key -> new ArrayList<>()).add(i);
+            } else {
+                for (String anchor : anchorStems(search.queryTerms())) {
+                    byTerm.computeIfAbsent(anchor, key -> new ArrayList<>()).add(i);
+                }
+            }
+        }
+
+        Map<String, int[]> byTermArrays = new HashMap<>(byTerm.size() * 2);
+        byTerm.forEach((term, ids) -> byTermArrays.put(term, ids.stream().mapToInt(Integer::intValue).toArray()));
+
+        Map<Long, IntervalTree> trees = new HashMap<>();
+        Map<Long, int[]> treeIds = new HashMap<>();
+        termless.forEach((categoryId, ids) -> {
+            double[] lo = new double[ids.size()];
+            double[] hi = new double[ids.size()];
+            for (int j = 0; j < ids.size(); j++) {
+                lo[j] = searches[ids.get(j)].minPrice();
+                hi[j] = searches[ids.get(j)].maxPrice();
+            }
+            trees.put(categoryId, IntervalTree.build(lo, hi));
+            treeIds.put(categoryId, ids.stream().mapToInt(Integer::intValue).toArray());
+        });
+
+        index = new Index(searches, byTermArrays, trees, treeIds);
+        log.info("Индекс сохраненных поисков перестроен: поисков={}, опорных основ={}",
+                searches.length, byTermArrays.size());
+    }
+
+    /**
+     * Опорное слово поиска - слово с самыми длинными основами (обычно самое редкое);
+     * индексируется первая основа каждой его альтернативы.
+     */
+    private static Set<String> anchorStems(List<SearchTextAnalyzer.QueryTerm> queryTerms) {
+        SearchTextAnalyzer.QueryTerm anchor = queryTerms.get(0);
+        int anchorLength = shortestAlternative(anchor);
+        for (SearchTextAnalyzer.QueryTerm queryTerm : queryTerms) {
+            int length = shortestAlternative(queryTerm);
+            if (length > anchorLength) {
+                anchor = queryTerm;
+                anchorLength = length;
+            }
+        }
+        Set<String> stems = new HashSet<>();
+        for (List<String> alternative : anchor.alternatives()) {
+            stems.add(alternative.get(0));
+        }
+        return stems;
+    }
+
+    private static int shortestAlternative(SearchTextAnalyzer.QueryTerm queryTerm) {
+        int shortest = Integer.MAX_VALUE;
+        for (List<String> alternative : queryTerm.alternatives()) {
+            shortest = Math.min(shortest, alternative.get(0).length());
+        }
+        return shortest;
+    }
+
+    private CompiledSearch compile(Long id, Long userId, String name, String queryText, String filtersJson) {
+        SavedSearchFilters filters = parseFilters(filtersJson);
+        return new CompiledSearch(
+                id,
+                userId,
+                name,
+                searchTextAnalyzer.analyzeQuery(queryText),
+                filters.categoryId(),
+                filters.minPrice() != null ? filters.minPrice().doubleValue() : Double.NEGATIVE_INFINITY,
+                filters.maxPrice() != null ? filters.maxPrice().doubleValue() : Double.POSITIVE_INFINITY,
+                filters.location() != null && !filters.location().isBlank()
+                        ? filters.location().strip().toLowerCase(Locale.ROOT) : null
+        );
+    }
+
+    SavedSearchFilters parseFilters(String filtersJson) {
+        if (filtersJson == null || filtersJson.isBlank()) {
+            return SavedSearchFilters.NONE;
+        }
+        try {
+            return objectMapper.readValue(filtersJson, SavedSearchFilters.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Некорректные фильтры сохраненного поиска: {}", e.getMessage());
+            return SavedSearchFilters.NONE;
+        }
+    }
+
+    public record Match(Long savedSearchId, Long userId, String name) {
+    }
+
+    /**
+     * Фильтры сохраненного поиска - подмножество ключей search_history.filters.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SavedSearchFilters(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String location) {
+        static final SavedSearchFilters NONE = new SavedSearchFilters(null, null, null, null);
+    }
+
+    private record CompiledSearch(Long id, Long userId, String name,
+                                  List<SearchTextAnalyzer.QueryTerm> queryTerms,
+                                  Long categoryId, double minPrice, double maxPrice, String location) {
+
+        boolean matches(String[] terms, Long adCategoryId, double price, String adLocation) {
+            if (categoryId != null && !categoryId.equals(adCategoryId)) {
+                return false;
+            }
+            if (price < minPrice || price > maxPrice) {
+                return false;
+            }
+            if (location != null && !adLocation.contains(location)) {
+                return false;
+            }
+            for (SearchTextAnalyzer.QueryTerm queryTerm : queryTerms) {
+                if (!containsAny(terms, queryTerm.alternatives())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean containsAny(String[] terms, List<List<String>> alternatives) {
+            for (List<String> sequence : alternatives) {
+                for (int i = 0; i + sequence.size() <= terms.length; i++) {
+                    int j = 0;
+                    while (j < sequence.size() && terms[i + j].equals(sequence.get(j))) {
+                        j++;
+                    }
+                    if (j == sequence.size()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Index(CompiledSearch[] searches,
+                         Map<String, int[]> byTerm,
+                         Map<Long, IntervalTree> termlessByCategory,
+                         Map<Long, int[]> termlessIds) {
+        // HashMap, а не Map.of(): поиск идет и по ключу null (поиски без категории)
+        static final Index EMPTY = new Index(new CompiledSearch[0], new HashMap<>(), new HashMap<>(), new HashMap<>());
+    }
+}
@@ -0,0 +1,208 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.exception.CategoryNotFoundException;
+import com.bsuir.adhubbackand.exception.InvalidSavedSearchException;
+import com.bsuir.adhubbackand.exception.SavedSearchNotFoundException;
+import com.bsuir.adhubbackand.exception.UserNotFoundException;
+import com.bsuir.adhubbackand.model.dto.request.search.SavedSearchRequest;
+import com.bsuir.adhubbackand.model.dto.response.SavedSearchResponse;
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.model.entities.SavedSearch;
+import com.bsuir.adhubbackand.model.entities.User;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.repositories.CategoryRepository;
+import com.bsuir.adhubbackand.repositories.SavedSearchRepository;
+import com.bsuir.adhubbackand.repositories.UserRepository;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Сохраненные поиски пользователя и оповещения о новых подходящих объявлениях.
+ * <p>
+ * Опубликованные объявления после коммита складываются в очередь; фоновая задача
+ * пакетами прогоняет их через {@link SavedSearchPercolator} и создает уведомления.
+ * Пользователь получает одно уведомление на объявление, даже если сработало несколько
+ * его поисков, и не получает уведомлений о собственных объявлениях.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SavedSearchService {
+
+    private static final int ALERT_BATCH_SIZE = 500;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final AdRepository adRepository;
+    private final SavedSearchPercolator percolator;
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Queue<Long> publishedAdIds = new ConcurrentLinkedQueue<>();
+
+    @Value("${saved-search.max-per-user:20}")
+    private int maxPerUser;
+
+    @Transactional(readOnly = true)
+    public List<SavedSearchResponse> getUserSavedSearches(Long userId) {
+        return savedSearchRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    @Transactional
+    public SavedSearchResponse createSavedSearch(Long userId, SavedSearchRequest request) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+
+        String query = SearchHistoryWriter.normalizeQuery(request.query());
+        String location = request.location() != null && !request.location().isBlank()
+                ? request.location().strip() : null;
+        if (query == null && request.categoryId() == null && request.minPrice() == null
+                && request.maxPrice() == null && location == null) {
+            throw new InvalidSavedSearchException("Укажите текст запроса или хотя бы один фильтр");
+        }
+        if (request.minPrice() != null && request.maxPrice() != null
+                && request.minPrice().compareTo(request.maxPrice()) > 0) {
+            throw new InvalidSavedSearchException("Минимальная цена больше максимальной");
+        }
+        if (request.categoryId() != null && !categoryRepository.existsById(request.categoryId())) {
+            throw new CategoryNotFoundException(request.categoryId());
+        }
+        if (savedSearchRepository.countByUserId(userId) >= maxPerUser) {
+            throw new InvalidSavedSearchException("Можно сохранить не более " + maxPerUser + " поисков");
+        }
+
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("categoryId", request.categoryId());
+        filters.put("minPrice", request.minPrice());
+        filters.put("maxPrice", request.maxPrice());
+        filters.put("location", location);
+        filters.values().removeIf(value -> value == null);
+
+        SavedSearch savedSearch = savedSearchRepository.save(SavedSearch.builder()
+                .user(user)
+                .name(request.name().strip())
+                .queryText(query)
+                .filters(toJson(filters))
+                .build());
+        TransactionUtils.afterCommit(percolator::markDirty);
+        log.info("Сохраненный поиск создан: ID={}, пользователь={}", savedSearch.getId(), userId);
+
+        return mapToResponse(savedSearch);
+    }
+
+    @Transactional
+    public void deleteSavedSearch(Long savedSearchId, Long userId) {
+        SavedSearch savedSearch = savedSearchRepository.findById(savedSearchId)
+                .orElseThrow(() -> new SavedSearchNotFoundException(savedSearchId));
+
+        if (!savedSearch.getUser().getId().equals(userId)) {
+            throw new AccessDeniedException("Нет доступа к удалению этого поиска");
+        }
+
+        savedSearchRepository.delete(savedSearch);
+        TransactionUtils.afterCommit(percolator::markDirty);
+        log.info("Сохраненный поиск удален: ID={}", savedSearchId);
+    }
+
+    /**
+     * Регистрирует опубликованные объявления для проверки по сохраненным поискам.
+     * Объявления попадают в очередь только после коммита текущей транзакции.
+     */
+    public void onAdsPublished(Collection<Long> adIds) {
+        if (adIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(adIds);
+        TransactionUtils.afterCommit(() -> publishedAdIds.addAll(ids));
+    }
+
+    @Scheduled(fixedDelayString = "${saved-search.alert-interval-ms:10000}")
+    public void sendAlerts() {
+        List<Long> batch = new ArrayList<>(ALERT_BATCH_SIZE);
+        Long adId;
+        while ((adId = publishedAdIds.poll()) != null) {
+            batch.add(adId);
+            if (batch.size() == ALERT_BATCH_SIZE) {
+                sendAlerts(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            sendAlerts(batch);
+        }
+    }
+
+    private void sendAlerts(List<Long> adIds) {
+        try {
+            int notified = transactionTemplate.execute(status -> {
+                int users = 0;
+                for (Ad ad : adRepository.findAllWithUserAndCategoryByIds(new LinkedHashSet<>(adIds))) {
+                    // Объявление могли снять с публикации, пока оно ждало в очереди
+                    if (ad.getStatus() != AdStatus.ACTIVE) {
+                        continue;
+                    }
+                    Map<Long, String> searchNamesByUser = new LinkedHashMap<>();
+                    for (SavedSearchPercolator.Match match : percolator.percolate(ad)) {
+                        if (!match.userId().equals(ad.getUser().getId())) {
+                            searchNamesByUser.putIfAbsent(match.userId(), match.name());
+                        }
+                    }
+                    notificationService.notifySavedSearchMatches(ad, searchNamesByUser);
+                    users += searchNamesByUser.size();
+                }
+                return users;
+            });
+            log.debug("Проверено по сохраненным поискам объявлений: {}, уведомлений: {}", adIds.size(), notified);
+        } catch (RuntimeException e) {
+            log.error("Ошибка оповещения по сохраненным поискам для {} объявлений", adIds.size(), e);
+        }
+    }
+
+    private String toJson(Map<String, Object> filters) {
+        if (filters.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(filters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать фильтры поиска", e);
+        }
+    }
+
+    private SavedSearchResponse mapToResponse(SavedSearch savedSearch) {
+        SavedSearchPercolator.SavedSearchFilters filters = percolator.parseFilters(savedSearch.getFilters());
+        return new SavedSearchResponse(
+                savedSearch.getId(),
+                savedSearch.getName(),
+                savedSearch.getQueryText(),
+                filters.categoryId(),
+                filters.minPrice(),
+                filters.maxPrice(),
+                filters.location(),
+                savedSearch.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,111 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.dto.response.SearchFacetsResponse;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.TtlLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Фасеты результатов поиска: число объявлений по категориям, ценовым диапазонам и городам.
+ * Все три группировки считаются одним запросом (GROUPING SETS) по тем же условиям, что и поиск.
+ * Результат для одинакового набора фильтров недолго кэшируется - популярные комбинации
+ * (пустой запрос, одна категория) запрашиваются постоянно.
+ */
+@Service
+public class SearchFacetService {
+
+    private final AdRepository adRepository;
+    private final TtlLruCache<FacetKey, SearchFacetsResponse> cache;
+    private final BigDecimal[] priceBounds;
+    private final String priceBoundsLiteral;
+    private final int topLocations;
+
+    public SearchFacetService(AdRepository adRepository,
+                              @Value("${search.facets.price-bounds:50,100,250,500,1000,2500,5000,10000,50000}")
+                              String priceBounds,
+                              @Value("${search.facets.top-locations:10}") int topLocations,
+                              @Value("${search.facets.cache-size:1000}") int cacheSize,
+                              @Value("${search.facets.cache-ttl-seconds:30}") long cacheTtlSeconds) {
+        this.adRepository = adRepository;
+        this.priceBounds = Arrays.stream(priceBounds.split(","))
+                .map(String::strip)
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+        this.priceBoundsLiteral = Arrays.stream(this.priceBounds)
+                .map(BigDecimal::toPlainString)
+                .collect(Collectors.joining(",", "{", "}"));
+        this.topLocations = topLocations;
+        this.cache = new TtlLruCache<>(cacheSize, cacheTtlSeconds * 1000);
+    }
+
+    public SearchFacetsResponse getFacets(String tsQuery, String searchQuery, Long categoryId,
+                                          BigDecimal minPrice, BigDecimal maxPrice, String location) {
+        FacetKey key = new FacetKey(tsQuery, tsQuery != null ? null : normalize(searchQuery),
+                categoryId, minPrice, maxPrice, normalize(location));
+        SearchFacetsResponse cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<SearchFacetsResponse.CategoryCount> categories = new ArrayList<>();
+        List<SearchFacetsResponse.PriceRange> priceRanges = new ArrayList<>();
+        List<SearchFacetsResponse.LocationCount> locations = new ArrayList<>();
+        for (Object[] row : adRepository.countSearchFacets(tsQuery, searchQuery, categoryId, minPrice, maxPrice,
+                location, priceBoundsLiteral)) {
+            long count = ((Number) row[7]).longValue();
+            if (((Number) row[0]).intValue() == 0) {
+                categories.add(new SearchFacetsResponse.CategoryCount(
+                        ((Number) row[3]).longValue(), (String) row[4], count));
+            } else if (((Number) row[1]).intValue() == 0) {
+                if (row[5] != null) {
+                    priceRanges.add(priceRange(((Number) row[5]).intValue(), count));
+                }
+            } else if (((Number) row[2]).intValue() == 0) {
+                String name = row[6] != null ? ((String) row[6]).strip() : "";
+                if (!name.isEmpty()) {
+                    locations.add(new SearchFacetsResponse.LocationCount(name, count));
+                }
+            }
+        }
+
+        categories.sort(Comparator.comparingLong(SearchFacetsResponse.CategoryCount::count).reversed()
+                .thenComparing(SearchFacetsResponse.CategoryCount::categoryId));
+        priceRanges.sort(Comparator.comparing(SearchFacetsResponse.PriceRange::from,
+                Comparator.nullsFirst(Comparator.naturalOrder())));
+        List<SearchFacetsResponse.LocationCount> topLocationCounts = locations.stream()
+                .sorted(Comparator.comparingLong(SearchFacetsResponse.LocationCount::count).reversed()
+                        .thenComparing(SearchFacetsResponse.LocationCount::location))
+                .limit(topLocations)
+                .toList();
+
+        SearchFacetsResponse facets = new SearchFacetsResponse(
+                List.copyOf(categories), List.copyOf(priceRanges), topLocationCounts);
+        cache.put(key, facets);
+        return facets;
+    }
+
+    // width_bucket: 0 - ниже первой границы, n - не ниже последней, i - [bounds[i-1], bounds[i])
+    private SearchFacetsResponse.PriceRange priceRange(int bucket, long count) {
+        BigDecimal from = bucket > 0 ? priceBounds[bucket - 1] : null;
+        BigDecimal to = bucket < priceBounds.length ? priceBounds[bucket] : null;
+        return new SearchFacetsResponse.PriceRange(from, to, count);
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isBlank() ? null : value.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private record FacetKey(String tsQuery, String searchQuery, Long categoryId,
+                            BigDecimal minPrice, BigDecimal maxPrice, String location) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.bsuir.adhubbackand.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Асинхронная запись истории поиска. Запросы складываются в ограниченный буфер
+ * и периодически сбрасываются в search_history пакетным INSERT, не задерживая
+ * ответ на поиск. При переполнении буфера запись отбрасывается - история поиска
+ * нужна только для статистики.
+ */
+@Slf4j
+@Component
+public class SearchHistoryWriter {
+
+    private static final int MAX_QUERY_LENGTH = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO search_history " +
+            "(user_id, query_text, filters, results_count, search_date) VALUES (?, ?, CAST(? AS jsonb), ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<SearchEvent> buffer;
+    private final int batchSize;
+    // Даты пишутся так же, как их пишет Hibernate с hibernate.jdbc.time_zone
+    private final TimeZone jdbcTimeZone;
+    private final LongAdder dropped = new LongAdder();
+
+    public SearchHistoryWriter(JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               @Value("${search-history.buffer-capacity:50000}") int bufferCapacity,
+                               @Value("${search-history.batch-size:500}") int batchSize,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.time_zone:}") String jdbcTimeZone) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.jdbcTimeZone = jdbcTimeZone.isBlank() ? null : TimeZone.getTimeZone(jdbcTimeZone);
+    }
+
+    /**
+     * Нормализованный вид запроса: нижний регистр, одиночные пробелы. Null для пустого запроса.
+     */
+    public static String normalizeQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        String normalized = query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        return normalized.length() > MAX_QUERY_LENGTH ? normalized.substring(0, MAX_QUERY_LENGTH) : normalized;
+    }
+
+    /**
+     * Регистрирует поисковый запрос. Пустые запросы не записываются.
+     *
+     * @param filters примененные фильтры; значения null не сохраняются
+     */
+    public void record(Long userId, String query, Map<String, Object> filters, long resultsCount) {
+        String normalized = normalizeQuery(query);
+        if (normalized == null) {
+            return;
+        }
+
+        SearchEvent event = new SearchEvent(userId, normalized, toJson(filters),
+                (int) Math.min(resultsCount, Integer.MAX_VALUE), LocalDateTime.now());
+        if (!buffer.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search-history.flush-interval-ms:2000}")
+    public synchronized void flush() {
+        List<SearchEvent> batch = new ArrayList<>(batchSize);
+        int written = 0;
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                    if (event.userId() != null) {
+                        ps.setLong(1, event.userId());
+                    } else {
+                        ps.setNull(1, Types.BIGINT);
+                    }
+                    ps.setString(2, event.queryText());
+                    ps.setString(3, event.filtersJson());
+                    ps.setInt(4, event.resultsCount());
+                    Timestamp searchDate = Timestamp.valueOf(event.searchDate());
+                    if (jdbcTimeZone != null) {
+                        ps.setTimestamp(5, searchDate, Calendar.getInstance(jdbcTimeZone));
+                    } else {
+                        ps.setTimestamp(5, searchDate);
+                    }
+                });
+                written += batch.size();
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать историю поиска ({} записей): {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+
+        long droppedCount = dropped.sumThenReset();
+        if (droppedCount > 0) {
+            log.warn("Буфер истории поиска переполнен, отброшено записей: {}", droppedCount);
+        }
+        if (written > 0) {
+            log.debug("История поиска записана: {}", written);
+        }
+    }
+
+    private String toJson(Map<String, Object> filters) {
+        Map<String, Object> applied = new LinkedHashMap<>();
+        filters.forEach((key, value) -> {
+            if (value != null) {
+                applied.put(key, value);
+            }
+        });
+        if (applied.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(applied);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private record SearchEvent(Long userId, String queryText, String filtersJson,
+                               int resultsCount, LocalDateTime searchDate) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.SnippetBuilder;
+import com.bsuir.adhubbackand.utils.TtlLruCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ранжирование результатов поиска по релевантности (SortBy.RELEVANCE) и фрагменты с подсветкой.
+ * <p>
+ * Оценка - BM25F по основам слов: вхождения в заголовок весят больше вхождений в описание,
+ * длина каждого поля нормируется по средней длине поля в каталоге. К текстовой оценке
+ * добавляются свежесть (экспоненциальное затухание по возрасту) и популярность
+ * (логарифм просмотров и добавлений в избранное).
+ * <p>
+ * Ранжируются не более search.relevance.max-candidates самых новых подходящих объявлений;
+ * документная частота слов запроса берется из GIN-индекса и кэшируется.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchRelevanceService {
+
+    private static final int DF_CACHE_SIZE = 10_000;
+    private static final long DF_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int FAVORITE_POPULARITY_WEIGHT = 5;
+
+    private final AdRepository adRepository;
+
+    private final TtlLruCache<String, Long> documentFrequencies = new TtlLruCache<>(DF_CACHE_SIZE, DF_CACHE_TTL_MILLIS);
+    private volatile CorpusStats corpusStats = new CorpusStats(1, 1, 1);
+
+    @Value("${search.relevance.max-candidates:1000}")
+    private int maxCandidates;
+
+    @Value("${search.relevance.k1:1.2}")
+    private double k1;
+
+    @Value("${search.relevance.b:0.75}")
+    private double b;
+
+    @Value("${search.relevance.title-boost:3.0}")
+    private double titleBoost;
+
+    @Value("${search.relevance.description-boost:1.0}")
+    private double descriptionBoost;
+
+    @Value("${search.relevance.freshness-weight:1.0}")
+    private double freshnessWeight;
+
+    @Value("${search.relevance.freshness-half-life-days:14}")
+    private double freshnessHalfLifeDays;
+
+    @Value("${search.relevance.popularity-weight:0.2}")
+    private double popularityWeight;
+
+    @Value("${search.relevance.snippet-length:160}")
+    private int snippetLength;
+
+    /**
+     * Страница объявлений, упорядоченных по релевантности. Общее число результатов
+     * ограничено числом ранжируемых кандидатов.
+     */
+    public Page<Ad> search(List<SearchTextAnalyzer.QueryTerm> queryTerms, String tsQuery,
+                           Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, String location,
+                           int pageNumber, int pageSize) {
+        List<Object[]> candidates = adRepository.findRelevanceCandidates(
+                tsQuery, categoryId, minPrice, maxPrice, location, maxCandidates);
+
+        CorpusStats stats = corpusStats;
+        List<double[]> scored = new ArrayList<>(candidates.size());
+        double[] idf = inverseDocumentFrequencies(queryTerms, stats);
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : candidates) {
+            double score = score(queryTerms, idf, stats, (String) row[1], toInt(row[2]))
+                    + freshness(toLocalDateTime(row[3]), now)
+                    + popularity(toInt(row[4]), toInt(row[5]));
+            scored.add(new double[]{((Number) row[0]).longValue(), score});
+        }
+        scored.sort(Comparator.<double[]>comparingDouble(entry -> entry[1]).reversed());
+
+        int from = Math.min(pageNumber * pageSize, scored.size());
+        int to = Math.min(from + pageSize, scored.size());
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (double[] entry : scored.subList(from, to)) {
+            pageIds.add((long) entry[0]);
+        }
+
+        Map<Long, Ad> adsById = new HashMap<>();
+        if (!pageIds.isEmpty()) {
+            for (Ad ad : adRepository.findAllWithUserAndCategoryByIds(pageIds)) {
+                adsById.put(ad.getId(), ad);
+            }
+        }
+        List<Ad> content = pageIds.stream().map(adsById::get).filter(ad -> ad != null).toList();
+        return new PageImpl<>(content, PageRequest.of(pageNumber, pageSize), scored.size());
+    }
+
+    /**
+     * Фрагмент описания с подсветкой слов запроса; null, если в запросе нет значимых слов.
+     */
+    public String snippet(Ad ad, List<SearchTextAnalyzer.QueryTerm> queryTerms) {
+        if (queryTerms.isEmpty()) {
+            return null;
+        }
+        Set<String> stems = new HashSet<>();
+        for (SearchTextAnalyzer.QueryTerm queryTerm : queryTerms) {
+            queryTerm.alternatives().forEach(stems::addAll);
+        }
+
+        String[] terms = ad.getSearchTerms() == null || ad.getSearchTerms().isEmpty()
+                ? new String[0] : ad.getSearchTerms().split(" ");
+        int titleLength = ad.getSearchTitleLength() != null ? Math.min(ad.getSearchTitleLength(), terms.length) : 0;
+        return SnippetBuilder.build(ad.getDescription(), Arrays.copyOfRange(terms, titleLength, terms.length),
+                SearchTextAnalyzer.decodeOffsets(ad.getSearchOffsets()), stems, snippetLength);
+    }
+
+    @Scheduled(fixedDelayString = "${search.relevance.stats-refresh-interval-ms:600000}")
+    public void refreshCorpusStats() {
+        Object[] row = adRepository.getSearchCorpusStats().get(0);
+        long documents = ((Number) row[0]).longValue();
+        double avgTitle = row[1] != null ? ((Number) row[1]).doubleValue() : 0;
+        double avgDescription = row[2] != null ? ((Number) row[2]).doubleValue() : 0;
+        corpusStats = new CorpusStats(Math.max(documents, 1), Math.max(avgTitle, 1), Math.max(avgDescription, 1));
+        log.debug("Статистика поискового корпуса обновлена: документов={}", documents);
+    }
+
+    private double score(List<SearchTextAnalyzer.QueryTerm> queryTerms, double[] idf, CorpusStats stats,
+                         String searchTerms, int titleLength) {
+        if (searchTerms == null || searchTerms.isEmpty()) {
+            return 0;
+        }
+        String[] terms = searchTerms.split(" ");
+        titleLength = Math.min(titleLength, terms.length);
+        double titleNorm = 1 - b + b * titleLength / stats.avgTitleLength();
+        double descriptionNorm = 1 - b + b * (terms.length - titleLength) / stats.avgDescriptionLength();
+
+        double score = 0;
+        for (int q = 0; q < queryTerms.size(); q++) {
+            int titleFrequency = 0;
+            int descriptionFrequency = 0;
+            for (List<String> alternative : queryTerms.get(q).alternatives()) {
+                titleFrequency += countOccurrences(terms, 0, titleLength, alternative);
+                descriptionFrequency += countOccurrences(terms, titleLength, terms.length, alternative);
+            }
+            double frequency = titleBoost * titleFrequency / titleNorm
+                    + descriptionBoost * descriptionFrequency / descriptionNorm;
+            score += idf[q] * frequency * (k1 + 1) / (frequency + k1);
+        }
+        return score;
+    }
+
+    // Вхождения последовательности основ в поле [from, to) - фраза не переходит границу поля
+    private static int countOccurrences(String[] terms, int from, int to, List<String> sequence) {
+        int count = 0;
+        for (int i = from; i + sequence.size() <= to; i++) {
+            boolean matches = true;
+            for (int j = 0; j < sequence.size() && matches; j++) {
+                matches = terms[i + j].equals(sequence.get(j));
+            }
+            if (matches) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private double[] inverseDocumentFrequencies(List<SearchTextAnalyzer.QueryTerm> queryTerms, CorpusStats stats) {
+        double[] idf = new double[queryTerms.size()];
+        for (int q = 0; q < queryTerms.size(); q++) {
+            String termQuery = queryTerms.get(q).toTsQuery();
+            Long df = documentFrequencies.get(termQuery);
+            if (df == null) {
+                df = adRepository.countActiveMatching(termQuery);
+                documentFrequencies.put(termQuery, df);
+            }
+            idf[q] = Math.log(1 + (stats.documents() - df + 0.5) / (df + 0.5));
+        }
+        return idf;
+    }
+
+    private double freshness(LocalDateTime createdAt, LocalDateTime now) {
+        if (createdAt == null) {
+            return 0;
+        }
+        double ageDays = Math.max(0, Duration.between(createdAt, now).toMinutes() / (24.0 * 60));
+        return freshnessWeight * Math.pow(0.5, ageDays / freshnessHalfLifeDays);
+    }
+
+    private double popularity(int views, int favorites) {
+        return popularityWeight * Math.log1p(views + FAVORITE_POPULARITY_WEIGHT * (double) favorites);
+    }
+
+    private static int toInt(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private record CorpusStats(long documents, double avgTitleLength, double avgDescriptionLength) {
+    }
+}
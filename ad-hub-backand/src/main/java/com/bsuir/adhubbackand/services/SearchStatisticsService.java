@@ -0,0 +1,177 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.dto.response.admin.SearchStatisticsResponse;
+import com.bsuir.adhubbackand.model.entities.SearchStatsRollup;
+import com.bsuir.adhubbackand.model.entities.SearchTopQuery;
+import com.bsuir.adhubbackand.model.enums.StatsGranularity;
+import com.bsuir.adhubbackand.repositories.SearchHistoryRepository;
+import com.bsuir.adhubbackand.repositories.SearchStatsRollupRepository;
+import com.bsuir.adhubbackand.repositories.SearchTopQueryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Статистика поиска для админ-панели. Фоновая задача сворачивает завершенные часы
+ * и сутки search_history в агрегаты (всего запросов, различных запросов, топ запросов);
+ * статистика складывает несколько строк агрегатов и досчитывает по сырой истории
+ * только еще не свернутый хвост - последний неполный час.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchStatisticsService {
+
+    private static final int TOP_QUERIES_IN_RESPONSE = 10;
+    // Ограничение на число интервалов за один запуск, чтобы догонять большую историю частями
+    private static final int MAX_HOURS_PER_RUN = 24 * 7;
+    private static final int MAX_DAYS_PER_RUN = 31;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SearchHistoryRepository searchHistoryRepository;
+    private final SearchStatsRollupRepository rollupRepository;
+    private final SearchTopQueryRepository topQueryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${search-stats.top-queries-per-bucket:50}")
+    private int topQueriesPerBucket;
+
+    @Transactional(readOnly = true)
+    public SearchStatisticsResponse getStatistics() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime todayStart = now.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime weekStart = todayStart.minusDays(6);
+        LocalDateTime monthStart = todayStart.minusDays(29);
+
+        // Граница свернутых данных: до нее - агрегаты, после - сырая история
+        LocalDateTime hoursEnd = nextBucket(StatsGranularity.HOUR).orElse(EPOCH);
+        LocalDateTime daysEnd = nextBucket(StatsGranularity.DAY).orElse(EPOCH);
+        LocalDateTime end = now.plusSeconds(1);
+        long tail = searchHistoryRepository.countBetween(hoursEnd, end);
+
+        long today = periodCount(todayStart, hoursEnd, end, tail);
+        long thisWeek = periodCount(weekStart, hoursEnd, end, tail);
+        long thisMonth = periodCount(monthStart, hoursEnd, end, tail);
+        long total = rollupRepository.sumTotalSearches(StatsGranularity.DAY, EPOCH, daysEnd)
+                + hourlySum(daysEnd, hoursEnd) + tail;
+
+        return new SearchStatisticsResponse(total, today, thisWeek, thisMonth,
+                topQueries(weekStart, daysEnd, hoursEnd));
+    }
+
+    /**
+     * Сворачивает завершенные часы, затем завершенные сутки. Каждый интервал пишется
+     * в отдельной транзакции, повторный запуск продолжает с последнего свернутого интервала.
+     */
+    @Scheduled(cron = "${search-stats.rollup-cron:0 2 * * * *}")
+    public synchronized void rollup() {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime hour = nextBucket(StatsGranularity.HOUR)
+                .or(() -> searchHistoryRepository.findFirstSearchDate().map(d -> d.truncatedTo(ChronoUnit.HOURS)))
+                .orElse(null);
+
+        int hours = 0;
+        while (hour != null && hour.isBefore(currentHour) && hours < MAX_HOURS_PER_RUN) {
+            rollupBucket(StatsGranularity.HOUR, hour, hour.plusHours(1));
+            hour = hour.plusHours(1);
+            hours++;
+        }
+
+        // Сутки сворачиваются только когда свернуты все их часы
+        LocalDateTime hoursEnd = nextBucket(StatsGranularity.HOUR).orElse(null);
+        LocalDateTime day = nextBucket(StatsGranularity.DAY)
+                .or(() -> searchHistoryRepository.findFirstSearchDate().map(d -> d.truncatedTo(ChronoUnit.DAYS)))
+                .orElse(null);
+
+        int days = 0;
+        while (day != null && hoursEnd != null && !day.plusDays(1).isAfter(hoursEnd) && days < MAX_DAYS_PER_RUN) {
+            rollupBucket(StatsGranularity.DAY, day, day.plusDays(1));
+            day = day.plusDays(1);
+            days++;
+        }
+
+        if (hours > 0 || days > 0) {
+            log.info("Статистика поиска свернута: часов={}, суток={}", hours, days);
+        }
+    }
+
+    private void rollupBucket(StatsGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Object[] aggregate = searchHistoryRepository.aggregateBetween(from, to).get(0);
+            rollupRepository.save(SearchStatsRollup.builder()
+                    .granularity(granularity)
+                    .bucketStart(from)
+                    .totalSearches(((Number) aggregate[0]).longValue())
+                    .distinctQueries(((Number) aggregate[1]).longValue())
+                    .zeroResultSearches(((Number) aggregate[2]).longValue())
+                    .build());
+
+            List<SearchTopQuery> topQueries = new ArrayList<>();
+            for (Object[] row : searchHistoryRepository.findTopQueriesBetween(
+                    from, to, PageRequest.of(0, topQueriesPerBucket))) {
+                topQueries.add(SearchTopQuery.builder()
+                        .granularity(granularity)
+                        .bucketStart(from)
+                        .queryText((String) row[0])
+                        .searchCount(((Number) row[1]).longValue())
+                        .build());
+            }
+            topQueryRepository.saveAll(topQueries);
+        });
+    }
+
+    /**
+     * Топ запросов за период: суточные агрегаты, затем часовые за еще не свернутые сутки.
+     * Сумма топов по интервалам приближенная - запрос, не попавший в топ какого-то интервала,
+     * недосчитывается за этот интервал.
+     */
+    private List<SearchStatisticsResponse.TopQuery> topQueries(LocalDateTime from, LocalDateTime daysEnd,
+                                                               LocalDateTime hoursEnd) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : topQueryRepository.sumByQuery(StatsGranularity.DAY, from, daysEnd)) {
+            counts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+        LocalDateTime hoursFrom = daysEnd.isAfter(from) ? daysEnd : from;
+        for (Object[] row : topQueryRepository.sumByQuery(StatsGranularity.HOUR, hoursFrom, hoursEnd)) {
+            counts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(TOP_QUERIES_IN_RESPONSE)
+                .map(entry -> new SearchStatisticsResponse.TopQuery(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    // Часовые агрегаты до границы свертки плюс несвернутый хвост; если период начинается
+    // после границы (свертка отстала), он целиком считается по сырой истории
+    private long periodCount(LocalDateTime from, LocalDateTime hoursEnd, LocalDateTime end, long tail) {
+        if (from.isAfter(hoursEnd)) {
+            return searchHistoryRepository.countBetween(from, end);
+        }
+        return hourlySum(from, hoursEnd) + tail;
+    }
+
+    private long hourlySum(LocalDateTime from, LocalDateTime to) {
+        return from.isBefore(to) ? rollupRepository.sumTotalSearches(StatsGranularity.HOUR, from, to) : 0;
+    }
+
+    private Optional<LocalDateTime> nextBucket(StatsGranularity granularity) {
+        return rollupRepository.findLastBucketStart(granularity)
+                .map(last -> granularity == StatsGranularity.HOUR ? last.plusHours(1) : last.plusDays(1));
+    }
+}
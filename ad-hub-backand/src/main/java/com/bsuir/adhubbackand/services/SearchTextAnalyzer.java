@@ -0,0 +1,261 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.utils.RussianStemmer;
+import com.bsuir.adhubbackand.utils.Transliteration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Анализ текста для поиска объявлений: разбиение на слова, нижний регистр, "ё" -> "е",
+ * удаление служебных слов и стемминг русских слов (Snowball).
+ * <p>
+ * При индексации ({@link #index}) текст объявления превращается в последовательность
+ * основ, которая хранится в ads.search_terms. При поиске ({@link #toTsQuery}) запрос проходит
+ * ту же цепочку, и каждое слово дополнительно расширяется синонимами из словаря и
+ * транслитерацией ("samsung" - "самсунг"). Результат - выражение tsquery для конфигурации 'simple'.
+ */
+@Slf4j
+@Component
+public class SearchTextAnalyzer {
+
+    private static final String COMMENT_PREFIX = "#";
+    private static final int MAX_TOKEN_LENGTH = 50;
+    private static final int MIN_TRANSLITERATED_LENGTH = 3;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "и", "в", "во", "на", "с", "со", "по", "для", "не", "от", "до", "за", "из", "к", "ко",
+            "о", "об", "у", "а", "но", "или", "же", "ли", "бы", "то", "это", "при", "без", "под", "над");
+
+    private final Resource synonymsResource;
+
+    // Основа слова -> варианты группы синонимов (каждый вариант - последовательность основ)
+    private volatile Map<String, List<List<String>>> synonyms = Map.of();
+    private volatile long loadedLastModified = -1;
+
+    public SearchTextAnalyzer(ResourceLoader resourceLoader,
+                              @Value("${search.synonyms-location:classpath:search/synonyms.txt}") String location) {
+        this.synonymsResource = resourceLoader.getResource(location);
+        reloadSynonyms();
+    }
+
+    /**
+     * Основы слов текста в исходном порядке.
+     */
+    public List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        forEachTerm(text, (term, start) -> terms.add(term));
+        return terms;
+    }
+
+    /**
+     * Поисковый индекс объявления: основы заголовка, затем описания, и смещения слов описания
+     * в исходном тексте (для фрагментов с подсветкой без повторного разбора описания).
+     */
+    public IndexedText index(String title, String description) {
+        List<String> terms = analyze(title);
+        int titleLength = terms.size();
+        StringBuilder offsets = new StringBuilder();
+        int[] previous = {0};
+        forEachTerm(description, (term, start) -> {
+            terms.add(term);
+            if (!offsets.isEmpty()) {
+                offsets.append(' ');
+            }
+            // Разности соседних смещений в base36 - обычно один-два символа на слово
+            offsets.append(Integer.toString(start - previous[0], Character.MAX_RADIX));
+            previous[0] = start;
+        });
+        return new IndexedText(String.join(" ", terms), titleLength, offsets.toString());
+    }
+
+    /**
+     * Слова запроса с альтернативами: синонимами и транслитерацией. Повторы слов убираются.
+     */
+    public List<QueryTerm> analyzeQuery(String query) {
+        Map<String, List<List<String>>> currentSynonyms = synonyms;
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(analyze(query))) {
+            Set<List<String>> alternatives = new LinkedHashSet<>();
+            alternatives.add(List.of(term));
+            String transliterated = transliterate(term);
+            if (transliterated != null) {
+                alternatives.add(List.of(transliterated));
+            }
+            alternatives.addAll(currentSynonyms.getOrDefault(term, List.of()));
+            queryTerms.add(new QueryTerm(List.copyOf(alternatives)));
+        }
+        return queryTerms;
+    }
+
+    /**
+     * Запрос tsquery: все слова запроса обязательны, каждое - с любой из альтернатив.
+     * Null, если в запросе нет значимых слов.
+     */
+    public String toTsQuery(String query) {
+        return toTsQuery(analyzeQuery(query));
+    }
+
+    public static String toTsQuery(List<QueryTerm> queryTerms) {
+        if (queryTerms.isEmpty()) {
+            return null;
+        }
+        List<String> groups = new ArrayList<>(queryTerms.size());
+        for (QueryTerm queryTerm : queryTerms) {
+            groups.add(queryTerm.toTsQuery());
+        }
+        return String.join(" & ", groups);
+    }
+
+    public static int[] decodeOffsets(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = encoded.split(" ");
+        int[] offsets = new int[parts.length];
+        int position = 0;
+        for (int i = 0; i < parts.length; i++) {
+            position += Integer.parseInt(parts[i], Character.MAX_RADIX);
+            offsets[i] = position;
+        }
+        return offsets;
+    }
+
+    /**
+     * Перечитывает словарь синонимов. При ошибке чтения остается прежний словарь.
+     */
+    public synchronized boolean reloadSynonyms() {
+        try {
+            long lastModified = lastModified();
+            Map<String, List<List<String>>> loaded = new HashMap<>();
+            int groupCount = 0;
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(synonymsResource.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.strip();
+                    if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                        continue;
+                    }
+                    List<List<String>> group = new ArrayList<>();
+                    for (String member : line.split(",")) {
+                        List<String> variant = analyze(member);
+                        if (!variant.isEmpty() && !group.contains(variant)) {
+                            group.add(variant);
+                        }
+                    }
+                    if (group.size() < 2) {
+                        continue;
+                    }
+                    // Ключами служат только однословные члены группы
+                    for (List<String> variant : group) {
+                        if (variant.size() == 1) {
+                            loaded.computeIfAbsent(variant.get(0), key -> new ArrayList<>()).addAll(group);
+                        }
+                    }
+                    groupCount++;
+                }
+            }
+
+            synonyms = loaded;
+            loadedLastModified = lastModified;
+            log.info("Словарь синонимов загружен из {}: групп={}", synonymsResource.getDescription(), groupCount);
+            return true;
+        } catch (IOException e) {
+            log.error("Не удалось загрузить словарь синонимов из {}: {}",
+                    synonymsResource.getDescription(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.synonyms-check-interval-ms:30000}")
+    public void reloadSynonymsIfChanged() {
+        if (synonymsResource.isFile() && lastModified() != loadedLastModified) {
+            reloadSynonyms();
+        }
+    }
+
+    private static void forEachTerm(String text, TermConsumer consumer) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (token.isEmpty()) {
+                    start = i;
+                }
+                char lower = Character.toLowerCase(c);
+                token.append(lower == 'ё' ? 'е' : lower);
+            } else if (!token.isEmpty()) {
+                String word = token.toString();
+                if (word.length() <= MAX_TOKEN_LENGTH && !STOP_WORDS.contains(word)) {
+                    consumer.accept(Transliteration.containsCyrillic(word) ? RussianStemmer.stem(word) : word, start);
+                }
+                token.setLength(0);
+            }
+        }
+    }
+
+    // Основа в другой письменности; только для слов из букв, короткие слова дают слишком много совпадений
+    private static String transliterate(String term) {
+        if (term.length() < MIN_TRANSLITERATED_LENGTH || !term.chars().allMatch(Character::isLetter)) {
+            return null;
+        }
+        return Transliteration.containsCyrillic(term)
+                ? Transliteration.toLatin(term)
+                : RussianStemmer.stem(Transliteration.toCyrillic(term));
+    }
+
+    private long lastModified() {
+        try {
+            return synonymsResource.lastModified();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @FunctionalInterface
+    private interface TermConsumer {
+        void accept(String term, int start);
+    }
+
+    /**
+     * @param terms              основы через пробел (значение ads.search_terms)
+     * @param titleLength        сколько первых основ относится к заголовку
+     * @param descriptionOffsets смещения слов описания (значение ads.search_offsets)
+     */
+    public record IndexedText(String terms, int titleLength, String descriptionOffsets) {
+    }
+
+    /**
+     * Слово запроса; каждая альтернатива - последовательность основ (многословный синоним - фраза).
+     */
+    public record QueryTerm(List<List<String>> alternatives) {
+
+        public String toTsQuery() {
+            List<String> parts = new ArrayList<>(alternatives.size());
+            for (List<String> alternative : alternatives) {
+                parts.add(String.join(" <-> ", alternative));
+            }
+            return parts.size() == 1 ? parts.get(0) : "(" + String.join(" | ", parts) + ")";
+        }
+    }
+}
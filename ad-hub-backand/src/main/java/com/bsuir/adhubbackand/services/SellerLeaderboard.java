@@ -0,0 +1,180 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.repositories.UserRatingStatsRepository;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Рейтинг продавцов по байесовской оценке: (C * m + сумма) / (C + количество),
+ * где m - априорное среднее, C - его вес. Продавцы с парой пятерок не обгоняют
+ * продавцов с сотнями оценок.
+ * <p>
+ * Рейтинг хранится в памяти как неизменяемый отсортированный снимок: топ-N - срез массива,
+ * место продавца - бинарный поиск. Изменения оценок копятся и вливаются в новый снимок
+ * слиянием, после чего снимок подменяется атомарно.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SellerLeaderboard {
+
+    // По убыванию оценки, затем по числу оценок, затем по id для однозначного порядка
+    private static final Comparator<SellerScore> RANK_ORDER = Comparator
+            .comparingDouble(SellerScore::score).reversed()
+            .thenComparing(Comparator.comparingInt(SellerScore::ratingCount).reversed())
+            .thenComparingLong(SellerScore::userId);
+
+    private final UserRatingStatsRepository userRatingStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${leaderboard.prior-mean:3.5}")
+    private double priorMean;
+
+    @Value("${leaderboard.prior-weight:5}")
+    private double priorWeight;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private final Map<Long, SellerScore> pendingUpdates = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Integer backfilled = transactionTemplate.execute(status -> userRatingStatsRepository.backfillMissingStats());
+        if (backfilled != null && backfilled > 0) {
+            log.info("Созданы агрегаты оценок для пользователей без них: {}", backfilled);
+        }
+        rebuild();
+    }
+
+    /**
+     * Полная перестройка снимка из user_rating_stats. Страхует от пропущенных
+     * инкрементальных обновлений и подхватывает смену имен пользователей.
+     */
+    @Scheduled(cron = "${leaderboard.rebuild-cron:0 0 * * * *}")
+    public synchronized void rebuild() {
+        List<SellerScore> scores = new ArrayList<>();
+        for (Object[] row : userRatingStatsRepository.findLeaderboardRows()) {
+            scores.add(score((Long) row[0], (String) row[1], (BigDecimal) row[2], (Integer) row[3]));
+        }
+
+        SellerScore[] ranked = scores.toArray(new SellerScore[0]);
+        Arrays.sort(ranked, RANK_ORDER);
+        snapshot = Snapshot.of(ranked);
+        applyPendingUpdates();
+
+        log.info("Рейтинг продавцов перестроен: продавцов={}", snapshot.ranked().length);
+    }
+
+    public void onRatingChanged(Long userId, String username, BigDecimal ratingSum, int ratingCount) {
+        SellerScore updated = score(userId, username, ratingSum, ratingCount);
+        TransactionUtils.afterCommit(() -> pendingUpdates.put(userId, updated));
+    }
+
+    @Scheduled(fixedDelayString = "${leaderboard.refresh-interval-ms:2000}")
+    public synchronized void applyPendingUpdates() {
+        if (pendingUpdates.isEmpty()) {
+            return;
+        }
+
+        List<SellerScore> updates = new ArrayList<>();
+        for (Long userId : new ArrayList<>(pendingUpdates.keySet())) {
+            SellerScore update = pendingUpdates.remove(userId);
+            if (update != null) {
+                updates.add(update);
+            }
+        }
+        updates.sort(RANK_ORDER);
+        Set<Long> updatedUserIds = new HashSet<>();
+        updates.forEach(update -> updatedUserIds.add(update.userId()));
+
+        // Слияние: старый снимок без обновленных продавцов + отсортированные обновления, O(n + k log k)
+        Snapshot current = snapshot;
+        SellerScore[] merged = new SellerScore[current.ranked().length + updates.size()];
+        int size = 0;
+        int u = 0;
+        for (SellerScore existing : current.ranked()) {
+            if (updatedUserIds.contains(existing.userId())) {
+                continue;
+            }
+            while (u < updates.size() && RANK_ORDER.compare(updates.get(u), existing) < 0) {
+                merged[size++] = updates.get(u++);
+            }
+            merged[size++] = existing;
+        }
+        while (u < updates.size()) {
+            merged[size++] = updates.get(u++);
+        }
+
+        snapshot = Snapshot.of(Arrays.copyOf(merged, size));
+        log.debug("Рейтинг продавцов обновлен: изменений={}", updates.size());
+    }
+
+    public List<SellerScore> top(int limit) {
+        SellerScore[] ranked = snapshot.ranked();
+        return Arrays.asList(ranked).subList(0, Math.min(Math.max(limit, 0), ranked.length));
+    }
+
+    /**
+     * @return место продавца (с 1) или null, если у него нет оценок
+     */
+    public Integer rankOf(Long userId) {
+        Snapshot current = snapshot;
+        SellerScore score = current.byUserId().get(userId);
+        if (score == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(current.ranked(), score, RANK_ORDER);
+        return index >= 0 ? index + 1 : null;
+    }
+
+    public SellerScore scoreOf(Long userId) {
+        return snapshot.byUserId().get(userId);
+    }
+
+    public int size() {
+        return snapshot.ranked().length;
+    }
+
+    private SellerScore score(Long userId, String username, BigDecimal ratingSum, int ratingCount) {
+        double score = (priorWeight * priorMean + ratingSum.doubleValue()) / (priorWeight + ratingCount);
+        return new SellerScore(userId, username, ratingSum, ratingCount, score);
+    }
+
+    public record SellerScore(Long userId, String username, BigDecimal ratingSum, int ratingCount, double score) {
+        public boolean isRanked() {
+            return ratingCount > 0;
+        }
+    }
+
+    private record Snapshot(SellerScore[] ranked, Map<Long, SellerScore> byUserId) {
+        static final Snapshot EMPTY = new Snapshot(new SellerScore[0], Map.of());
+
+        static Snapshot of(SellerScore[] scores) {
+            // Продавцы без оценок (например, после удаления) в рейтинг не попадают
+            SellerScore[] ranked = Arrays.stream(scores).filter(SellerScore::isRanked).toArray(SellerScore[]::new);
+            Map<Long, SellerScore> byUserId = new HashMap<>(ranked.length * 2);
+            for (SellerScore score : ranked) {
+                byUserId.put(score.userId(), score);
+            }
+            return new Snapshot(ranked, byUserId);
+        }
+    }
+}
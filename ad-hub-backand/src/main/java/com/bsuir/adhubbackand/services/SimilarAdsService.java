@@ -0,0 +1,267 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import com.bsuir.adhubbackand.utils.LongHashSet;
+import com.bsuir.adhubbackand.utils.MinHash;
+import com.bsuir.adhubbackand.utils.TransactionUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * "Похожие объявления" без поиска по каталогу на каждый просмотр.
+ * <p>
+ * Для активных объявлений по основам заголовка и описания (ads.search_terms, слова и пары
+ * соседних слов) считаются MinHash-сигнатуры; полосы сигнатур раскладываются по корзинам
+ * LSH внутри категории. Кандидаты в похожие - объявления той же категории из общих корзин,
+ * из них по оценке Жаккара отбираются top-K. Списки соседей считаются заранее, запрос
+ * похожих - чтение готового списка из памяти.
+ * <p>
+ * Созданные, отредактированные и промодерированные объявления после коммита попадают
+ * в очередь; фоновая задача пересчитывает их сигнатуры и списки соседей у них и у
+ * затронутых объявлений. Индекс целиком периодически пересобирается.
+ */
+@Slf4j
+@Service
+public class SimilarAdsService {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final AdRepository adRepository;
+    private final MinHash minHash;
+    private final int bands;
+    private final int rows;
+    private final int topK;
+    private final int maxCandidates;
+    private final double minSimilarity;
+
+    private final Queue<Long> changedAdIds = new ConcurrentLinkedQueue<>();
+
+    // Индекс меняется только под монитором сервиса; читаются только готовые списки соседей
+    private Map<Long, Entry> entries = new HashMap<>();
+    private Map<Long, LongHashSet> buckets = new HashMap<>();
+    private volatile Map<Long, long[]> neighbours = new ConcurrentHashMap<>();
+
+    public SimilarAdsService(AdRepository adRepository,
+                             @Value("${similar.bands:16}") int bands,
+                             @Value("${similar.rows:4}") int rows,
+                             @Value("${similar.top-k:12}") int topK,
+                             @Value("${similar.max-candidates:500}") int maxCandidates,
+                             @Value("${similar.min-similarity:0.2}") double minSimilarity) {
+        this.adRepository = adRepository;
+        this.minHash = new MinHash(bands * rows);
+        this.bands = bands;
+        this.rows = rows;
+        this.topK = topK;
+        this.maxCandidates = maxCandidates;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Id похожих объявлений, самые похожие сначала. Список может содержать объявления,
+     * снятые с публикации после последнего пересчета, - статус проверяет вызывающий.
+     */
+    public List<Long> findSimilarAdIds(Long adId, int limit) {
+        long[] similar = neighbours.get(adId);
+        if (similar == null) {
+            return List.of();
+        }
+        List<Long> result = new ArrayList<>(Math.min(limit, similar.length));
+        for (int i = 0; i < similar.length && result.size() < limit; i++) {
+            result.add(similar[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Регистрирует объявления, у которых изменились текст, категория или статус.
+     * Объявления попадают в очередь только после коммита текущей транзакции.
+     */
+    public void onAdsChanged(Collection<Long> adIds) {
+        if (adIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(adIds);
+        TransactionUtils.afterCommit(() -> changedAdIds.addAll(ids));
+    }
+
+    @Scheduled(fixedDelayString = "${similar.update-interval-ms:10000}")
+    public synchronized void applyChanges() {
+        Set<Long> adIds = new LinkedHashSet<>();
+        Long adId;
+        while (adIds.size() < BATCH_SIZE && (adId = changedAdIds.poll()) != null) {
+            adIds.add(adId);
+        }
+        if (adIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> affected = new HashSet<>();
+        for (Long id : adIds) {
+            affected.addAll(candidates(id));
+            remove(id);
+        }
+        for (Object[] row : adRepository.findSearchTermsByIds(adIds)) {
+            if (row[2] == AdStatus.ACTIVE) {
+                Long id = (Long) row[0];
+                if (add(entries, buckets, id, (Long) row[1], (String) row[3])) {
+                    affected.add(id);
+                    affected.addAll(candidates(id));
+                }
+            }
+        }
+
+        Map<Long, long[]> current = neighbours;
+        for (Long id : adIds) {
+            current.remove(id);
+        }
+        for (Long id : affected) {
+            if (entries.containsKey(id)) {
+                storeNeighbours(current, id);
+            }
+        }
+        log.debug("Похожие объявления пересчитаны: изменено={}, затронуто={}", adIds.size(), affected.size());
+    }
+
+    @Scheduled(fixedDelayString = "${similar.rebuild-interval-ms:21600000}")
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        Map<Long, Entry> builtEntries = new HashMap<>();
+        Map<Long, LongHashSet> builtBuckets = new HashMap<>();
+
+        long lastId = 0;
+        List<Object[]> batch;
+        do {
+            batch = adRepository.findActiveSearchTermsAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                add(builtEntries, builtBuckets, lastId, (Long) row[1], (String) row[2]);
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        entries = builtEntries;
+        buckets = builtBuckets;
+        Map<Long, long[]> built = new ConcurrentHashMap<>(builtEntries.size());
+        for (Long id : builtEntries.keySet()) {
+            storeNeighbours(built, id);
+        }
+        neighbours = built;
+        log.info("Индекс похожих объявлений пересобран: объявлений={}, корзин={}, за {} мс",
+                builtEntries.size(), builtBuckets.size(), System.currentTimeMillis() - started);
+    }
+
+    private boolean add(Map<Long, Entry> targetEntries, Map<Long, LongHashSet> targetBuckets,
+                        Long adId, Long categoryId, String searchTerms) {
+        int[] signature = minHash.signature(shingles(searchTerms));
+        if (signature == null) {
+            return false;
+        }
+        Entry entry = new Entry(categoryId, signature);
+        targetEntries.put(adId, entry);
+        for (int band = 0; band < bands; band++) {
+            targetBuckets.computeIfAbsent(bucketKey(entry, band), key -> new LongHashSet(4)).add(adId);
+        }
+        return true;
+    }
+
+    private void remove(Long adId) {
+        Entry entry = entries.remove(adId);
+        if (entry == null) {
+            return;
+        }
+        for (int band = 0; band < bands; band++) {
+            long key = bucketKey(entry, band);
+            LongHashSet bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(adId) && bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    // Объявления той же категории, совпавшие с данным хотя бы по одной полосе
+    private Set<Long> candidates(Long adId) {
+        Entry entry = entries.get(adId);
+        if (entry == null) {
+            return Set.of();
+        }
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < bands && candidates.size() < maxCandidates; band++) {
+            LongHashSet bucket = buckets.get(bucketKey(entry, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (long candidate : bucket.toArray()) {
+                if (candidate != adId && candidates.size() < maxCandidates) {
+                    candidates.add(candidate);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void storeNeighbours(Map<Long, long[]> target, Long adId) {
+        Entry entry = entries.get(adId);
+        List<Scored> scored = new ArrayList<>();
+        for (Long candidate : candidates(adId)) {
+            Entry other = entries.get(candidate);
+            // Корзины общие для всех категорий, совпадение ключа из другой категории отбрасываем
+            if (other == null || !other.categoryId().equals(entry.categoryId())) {
+                continue;
+            }
+            double similarity = MinHash.similarity(entry.signature(), other.signature());
+            if (similarity >= minSimilarity) {
+                scored.add(new Scored(candidate, similarity));
+            }
+        }
+        if (scored.isEmpty()) {
+            target.remove(adId);
+            return;
+        }
+        // При равной похожести сначала более новые объявления
+        scored.sort(Comparator.comparingDouble(Scored::similarity).reversed()
+                .thenComparing(Comparator.comparingLong(Scored::adId).reversed()));
+        target.put(adId, scored.stream().limit(topK).mapToLong(Scored::adId).toArray());
+    }
+
+    private long bucketKey(Entry entry, int band) {
+        return MinHash.bandHash(entry.signature(), band, rows) * 31 + entry.categoryId();
+    }
+
+    // Шинглы - основы слов и пары соседних основ: одинаковый набор слов в другом порядке менее похож
+    private static Set<String> shingles(String searchTerms) {
+        if (searchTerms == null || searchTerms.isBlank()) {
+            return Set.of();
+        }
+        String[] terms = searchTerms.split(" ");
+        Set<String> shingles = new HashSet<>(terms.length * 2);
+        for (int i = 0; i < terms.length; i++) {
+            shingles.add(terms[i]);
+            if (i + 1 < terms.length) {
+                shingles.add(terms[i] + ' ' + terms[i + 1]);
+            }
+        }
+        return shingles;
+    }
+
+    private record Entry(Long categoryId, int[] signature) {
+    }
+
+    private record Scored(long adId, double similarity) {
+    }
+}
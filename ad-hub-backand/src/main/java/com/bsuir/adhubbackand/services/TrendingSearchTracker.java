@@ -0,0 +1,253 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.dto.response.TrendingSearchesResponse;
+import com.bsuir.adhubbackand.model.entities.TrendingSnapshot;
+import com.bsuir.adhubbackand.model.enums.TrendingWindow;
+import com.bsuir.adhubbackand.repositories.TrendingSnapshotRepository;
+import com.bsuir.adhubbackand.utils.CountMinSketch;
+import com.bsuir.adhubbackand.utils.SpaceSaving;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Популярные поисковые запросы за последний час, сутки и неделю без обращений к БД на чтение.
+ * <p>
+ * Каждое окно - кольцо интервалов; в интервале Space-Saving отбирает кандидатов в частые
+ * запросы, а count-min sketch дает оценку частоты, которую можно суммировать по интервалам.
+ * Периодически по окнам строится готовый топ с затуханием: вклад интервала уменьшается
+ * вдвое каждые полокна, поэтому растущие запросы поднимаются быстрее давно популярных.
+ * Состояние периодически сохраняется в БД и восстанавливается при запуске.
+ */
+@Slf4j
+@Service
+public class TrendingSearchTracker {
+
+    private static final long SNAPSHOT_ID = 1L;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int MAX_TOP_SIZE = 50;
+
+    private final TrendingSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final int candidatesPerBucket;
+
+    private final Map<TrendingWindow, Bucket[]> rings = new EnumMap<>(TrendingWindow.class);
+    private volatile Map<TrendingWindow, List<TrendingSearchesResponse.TrendingQuery>> top = Map.of();
+    private volatile LocalDateTime updatedAt = LocalDateTime.now();
+
+    public TrendingSearchTracker(TrendingSnapshotRepository snapshotRepository,
+                                 ObjectMapper objectMapper,
+                                 @Value("${trending.candidates-per-bucket:500}") int candidatesPerBucket) {
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.candidatesPerBucket = candidatesPerBucket;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            rings.put(window, new Bucket[window.getBucketCount()]);
+        }
+    }
+
+    /**
+     * Учитывает нормализованный запрос (см. {@link SearchHistoryWriter#normalizeQuery(String)}).
+     */
+    public void record(String normalizedQuery) {
+        if (normalizedQuery == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Bucket[] ring = rings.get(window);
+            synchronized (ring) {
+                currentBucket(window, ring, now).add(normalizedQuery, 1);
+            }
+        }
+    }
+
+    public TrendingSearchesResponse getTrending(TrendingWindow window, int limit) {
+        List<TrendingSearchesResponse.TrendingQuery> queries = top.getOrDefault(window, List.of());
+        return new TrendingSearchesResponse(window, queries.subList(0, Math.min(limit, queries.size())), updatedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${trending.refresh-interval-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Map<TrendingWindow, List<TrendingSearchesResponse.TrendingQuery>> computed = new EnumMap<>(TrendingWindow.class);
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Bucket[] ring = rings.get(window);
+            synchronized (ring) {
+                computed.put(window, computeTop(window, ring, now));
+            }
+        }
+        top = computed;
+        updatedAt = LocalDateTime.now();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        snapshotRepository.findById(SNAPSHOT_ID).ifPresent(snapshot -> {
+            try {
+                PersistedState state = objectMapper.readValue(snapshot.getPayload(), PersistedState.class);
+                long now = System.currentTimeMillis();
+                int restored = 0;
+                for (PersistedBucket persisted : state.buckets()) {
+                    Bucket[] ring = rings.get(persisted.window());
+                    long bucketMillis = persisted.window().getBucketDuration().toMillis();
+                    if (!isLive(persisted.window(), persisted.start(), now)) {
+                        continue;
+                    }
+                    synchronized (ring) {
+                        Bucket bucket = new Bucket(persisted.start(), candidatesPerBucket);
+                        for (PersistedEntry entry : persisted.entries()) {
+                            bucket.add(entry.query(), entry.count());
+                        }
+                        ring[(int) ((persisted.start() / bucketMillis) % ring.length)] = bucket;
+                    }
+                    restored++;
+                }
+                log.info("Популярные запросы восстановлены из снимка от {}: интервалов={}",
+                        snapshot.getSavedAt(), restored);
+            } catch (JsonProcessingException e) {
+                log.warn("Не удалось прочитать снимок популярных запросов: {}", e.getMessage());
+            }
+        });
+        refresh();
+    }
+
+    /**
+     * Сохраняет кандидатов каждого живого интервала с их счетчиками. Хвост распределения,
+     * не попавший в кандидаты, после восстановления теряется - на топ это не влияет.
+     */
+    @Scheduled(fixedDelayString = "${trending.snapshot-interval-ms:300000}",
+            initialDelayString = "${trending.snapshot-interval-ms:300000}")
+    public void saveSnapshot() {
+        long now = System.currentTimeMillis();
+        List<PersistedBucket> buckets = new ArrayList<>();
+        for (TrendingWindow window : TrendingWindow.values()) {
+            Bucket[] ring = rings.get(window);
+            synchronized (ring) {
+                for (Bucket bucket : ring) {
+                    if (bucket != null && isLive(window, bucket.start, now)) {
+                        List<PersistedEntry> entries = new ArrayList<>();
+                        for (SpaceSaving.Entry<String> entry : bucket.candidates.entries()) {
+                            entries.add(new PersistedEntry(entry.key(), bucket.sketch.estimate(entry.key())));
+                        }
+                        buckets.add(new PersistedBucket(window, bucket.start, entries));
+                    }
+                }
+            }
+        }
+
+        try {
+            snapshotRepository.save(TrendingSnapshot.builder()
+                    .id(SNAPSHOT_ID)
+                    .payload(objectMapper.writeValueAsString(new PersistedState(buckets)))
+                    .savedAt(LocalDateTime.now())
+                    .build());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Не удалось сохранить снимок популярных запросов: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveSnapshot();
+    }
+
+    private List<TrendingSearchesResponse.TrendingQuery> computeTop(TrendingWindow window, Bucket[] ring, long now) {
+        long bucketMillis = window.getBucketDuration().toMillis();
+        long currentStart = now - now % bucketMillis;
+        double halfLifeBuckets = window.getBucketCount() / 2.0;
+
+        List<Bucket> live = new ArrayList<>();
+        Set<String> candidates = new HashSet<>();
+        for (Bucket bucket : ring) {
+            if (bucket != null && isLive(window, bucket.start, now)) {
+                live.add(bucket);
+                for (SpaceSaving.Entry<String> entry : bucket.candidates.entries()) {
+                    candidates.add(entry.key());
+                }
+            }
+        }
+
+        List<Scored> scored = new ArrayList<>(candidates.size());
+        for (String query : candidates) {
+            long count = 0;
+            double score = 0;
+            for (Bucket bucket : live) {
+                long estimate = bucket.sketch.estimate(query);
+                long age = (currentStart - bucket.start) / bucketMillis;
+                count += estimate;
+                score += estimate * Math.pow(0.5, age / halfLifeBuckets);
+            }
+            scored.add(new Scored(query, count, score));
+        }
+
+        return scored.stream()
+                .sorted(Comparator.comparingDouble(Scored::score).reversed().thenComparing(Scored::query))
+                .limit(MAX_TOP_SIZE)
+                .map(s -> new TrendingSearchesResponse.TrendingQuery(s.query(), s.count()))
+                .toList();
+    }
+
+    private Bucket currentBucket(TrendingWindow window, Bucket[] ring, long now) {
+        long bucketMillis = window.getBucketDuration().toMillis();
+        long start = now - now % bucketMillis;
+        int index = (int) ((start / bucketMillis) % ring.length);
+        Bucket bucket = ring[index];
+        if (bucket == null || bucket.start != start) {
+            // Интервал, занимавший эту ячейку кольца, вышел за окно
+            bucket = new Bucket(start, candidatesPerBucket);
+            ring[index] = bucket;
+        }
+        return bucket;
+    }
+
+    private static boolean isLive(TrendingWindow window, long start, long now) {
+        long bucketMillis = window.getBucketDuration().toMillis();
+        long currentStart = now - now % bucketMillis;
+        return start <= currentStart && start > currentStart - bucketMillis * window.getBucketCount();
+    }
+
+    private static final class Bucket {
+        private final long start;
+        private final SpaceSaving<String> candidates;
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+
+        private Bucket(long start, int capacity) {
+            this.start = start;
+            this.candidates = new SpaceSaving<>(capacity);
+        }
+
+        private void add(String query, long weight) {
+            candidates.offer(query, weight);
+            sketch.add(query, weight);
+        }
+    }
+
+    private record Scored(String query, long count, double score) {
+    }
+
+    record PersistedState(List<PersistedBucket> buckets) {
+    }
+
+    record PersistedBucket(TrendingWindow window, long start, List<PersistedEntry> entries) {
+    }
+
+    record PersistedEntry(String query, long count) {
+    }
+}
@@ -3,27 +3,42 @@ package com.bsuir.adhubbackand.services;
 import com.bsuir.adhubbackand.exception.SelfRatingException;
 import com.bsuir.adhubbackand.exception.UserNotFoundException;
 import com.bsuir.adhubbackand.model.dto.request.user.UserRatingRequest;
+import com.bsuir.adhubbackand.model.dto.response.SellerLeaderboardResponse;
+import com.bsuir.adhubbackand.model.dto.response.SellerRankResponse;
 import com.bsuir.adhubbackand.model.dto.response.UserRatingsResponse;
 import com.bsuir.adhubbackand.model.entities.User;
 import com.bsuir.adhubbackand.model.entities.UserRating;
+import com.bsuir.adhubbackand.model.entities.UserRatingStats;
 import com.bsuir.adhubbackand.repositories.UserRatingRepository;
+import com.bsuir.adhubbackand.repositories.UserRatingStatsRepository;
 import com.bsuir.adhubbackand.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserRatingService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_LEADERBOARD_SIZE = 10;
+
     private final UserRatingRepository userRatingRepository;
+    private final UserRatingStatsRepository userRatingStatsRepository;
     private final UserRepository userRepository;
+    private final SellerLeaderboard sellerLeaderboard;
 
     @Transactional
     public void rateUser(Long ratedUserId, Long raterUserId, UserRatingRequest request) {
@@ -37,25 +52,38 @@ public class UserRatingService {
         User raterUser = userRepository.findById(raterUserId)
                 .orElseThrow(() -> new UserNotFoundException(raterUserId));
 
+        // Блокируем агрегаты до изменения оценки, чтобы параллельные оценки применялись последовательно
+        UserRatingStats stats = lockStats(ratedUserId);
+
         // Проверяем, не оценивал ли уже этот пользователь (обновляем если есть)
         UserRating existingRating = userRatingRepository
                 .findByRatedUserIdAndRaterUserId(ratedUserId, raterUserId)
                 .orElse(null);
 
+        BigDecimal newValue = BigDecimal.valueOf(request.score());
         UserRating rating;
         if (existingRating != null) {
-            // Обновляем существующую оценку
-            existingRating.setRatingValue(BigDecimal.valueOf(request.score()));
+            // Обновляем существующую оценку: количество не меняется, применяем разницу
+            BigDecimal oldValue = existingRating.getRatingValue();
+            stats.setRatingSum(stats.getRatingSum().add(newValue.subtract(oldValue)));
+            adjustBucket(stats, oldValue, -1);
+            adjustBucket(stats, newValue, 1);
+
+            existingRating.setRatingValue(newValue);
             existingRating.setComment(request.comment());
             rating = existingRating;
             log.info("Оценка обновлена: пользователь {} -> пользователь {}: {}",
                     raterUser.getUsername(), ratedUser.getUsername(), request.score());
         } else {
             // Создаем новую оценку
+            stats.setRatingSum(stats.getRatingSum().add(newValue));
+            stats.setRatingCount(stats.getRatingCount() + 1);
+            adjustBucket(stats, newValue, 1);
+
             rating = UserRating.builder()
                     .ratedUser(ratedUser)
                     .raterUser(raterUser)
-                    .ratingValue(BigDecimal.valueOf(request.score()))
+                    .ratingValue(newValue)
                     .comment(request.comment())
                     .build();
             log.info("Новая оценка: пользователь {} -> пользователь {}: {}",
@@ -63,32 +91,82 @@ public class UserRatingService {
         }
 
         userRatingRepository.save(rating);
-    }
+        userRatingStatsRepository.save(stats);
 
-    public UserRatingsResponse getUserRatingsWithStats(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException(userId));
+        ratedUser.setRating(calculateAverage(stats));
+        userRepository.save(ratedUser);
 
-        List<UserRating> ratings = userRatingRepository.findByRatedUserId(userId);
+        sellerLeaderboard.onRatingChanged(ratedUserId, ratedUser.getUsername(),
+                stats.getRatingSum(), stats.getRatingCount());
+    }
 
-        if (ratings.isEmpty()) {
-            return new UserRatingsResponse(BigDecimal.ZERO, 0, List.of());
+    /**
+     * Агрегаты берутся из user_rating_stats за O(1), список оценок отдается постранично.
+     */
+    @Transactional(readOnly = true)
+    public UserRatingsResponse getUserRatingsWithStats(Long userId, Integer page, Integer size) {
+        if (!userRepository.existsById(userId)) {
+            throw new UserNotFoundException(userId);
         }
 
-        // Расчет средней оценки
-        double average = ratings.stream()
-                .mapToDouble(rating -> rating.getRatingValue().doubleValue())
-                .average()
-                .orElse(0.0);
+        int pageNumber = page != null && page > 0 ? page - 1 : 0;
+        int pageSize = size != null && size > 0 ? Math.min(size, MAX_PAGE_SIZE) : DEFAULT_PAGE_SIZE;
 
-        BigDecimal averageRating = BigDecimal.valueOf(average).setScale(2, RoundingMode.HALF_UP);
+        UserRatingStats stats = userRatingStatsRepository.findById(userId)
+                .orElseGet(() -> buildStatsFromRatings(userId));
+
+        if (stats.getRatingCount() == 0) {
+            return new UserRatingsResponse(BigDecimal.ZERO, 0, toDistribution(stats), List.of(),
+                    pageNumber + 1, pageSize, false);
+        }
 
-        // Формирование items
-        List<UserRatingsResponse.RatingItem> items = ratings.stream()
+        List<UserRatingsResponse.RatingItem> items = userRatingRepository
+                .findPageByRatedUserIdWithRater(userId, PageRequest.of(pageNumber, pageSize))
+                .stream()
                 .map(this::mapToRatingItem)
                 .toList();
 
-        return new UserRatingsResponse(averageRating, ratings.size(), items);
+        boolean hasNext = (long) (pageNumber + 1) * pageSize < stats.getRatingCount();
+
+        return new UserRatingsResponse(
+                calculateAverage(stats),
+                stats.getRatingCount(),
+                toDistribution(stats),
+                items,
+                pageNumber + 1,
+                pageSize,
+                hasNext
+        );
+    }
+
+    public SellerLeaderboardResponse getTopSellers(Integer limit) {
+        int topSize = limit != null && limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : DEFAULT_LEADERBOARD_SIZE;
+
+        List<SellerLeaderboard.SellerScore> top = sellerLeaderboard.top(topSize);
+        List<SellerLeaderboardResponse.SellerItem> sellers = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            SellerLeaderboard.SellerScore seller = top.get(i);
+            sellers.add(new SellerLeaderboardResponse.SellerItem(
+                    i + 1,
+                    seller.userId(),
+                    seller.username(),
+                    BigDecimal.valueOf(seller.score()).setScale(3, RoundingMode.HALF_UP),
+                    seller.ratingSum().divide(BigDecimal.valueOf(seller.ratingCount()), 2, RoundingMode.HALF_UP),
+                    seller.ratingCount()
+            ));
+        }
+
+        return new SellerLeaderboardResponse(sellers, sellerLeaderboard.size());
+    }
+
+    public SellerRankResponse getSellerRank(Long userId) {
+        SellerLeaderboard.SellerScore seller = sellerLeaderboard.scoreOf(userId);
+        return new SellerRankResponse(
+                userId,
+                sellerLeaderboard.rankOf(userId),
+                sellerLeaderboard.size(),
+                seller != null ? BigDecimal.valueOf(seller.score()).setScale(3, RoundingMode.HALF_UP) : null
+        );
     }
 
     public List<UserRatingsResponse.RatingItem> getMyRatings(Long userId) {
@@ -98,6 +176,63 @@ public class UserRatingService {
                 .toList();
     }
 
+    // Строку агрегатов создаем вставкой с ON CONFLICT: при двух первых оценках одновременно
+    // вторая вставка ждет первую и ничего не делает, а блокировка берется уже на готовую строку
+    private UserRatingStats lockStats(Long userId) {
+        Optional<UserRatingStats> stats = userRatingStatsRepository.findByUserIdForUpdate(userId);
+        if (stats.isPresent()) {
+            return stats.get();
+        }
+        userRatingStatsRepository.insertStatsFromRatings(userId);
+        return userRatingStatsRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new IllegalStateException("Агрегаты оценок не созданы: userId=" + userId));
+    }
+
+    // Для пользователей без строки агрегатов считаем их по существующим оценкам, не сохраняя
+    private UserRatingStats buildStatsFromRatings(Long userId) {
+        UserRatingStats stats = UserRatingStats.builder()
+                .userId(userId)
+                .build();
+
+        for (Object[] row : userRatingRepository.countByRatingValueForUser(userId)) {
+            BigDecimal value = (BigDecimal) row[0];
+            int count = ((Long) row[1]).intValue();
+            stats.setRatingSum(stats.getRatingSum().add(value.multiply(BigDecimal.valueOf(count))));
+            stats.setRatingCount(stats.getRatingCount() + count);
+            adjustBucket(stats, value, count);
+        }
+
+        return stats;
+    }
+
+    private void adjustBucket(UserRatingStats stats, BigDecimal value, int delta) {
+        switch (value.setScale(0, RoundingMode.HALF_UP).intValue()) {
+            case 1 -> stats.setScore1Count(stats.getScore1Count() + delta);
+            case 2 -> stats.setScore2Count(stats.getScore2Count() + delta);
+            case 3 -> stats.setScore3Count(stats.getScore3Count() + delta);
+            case 4 -> stats.setScore4Count(stats.getScore4Count() + delta);
+            case 5 -> stats.setScore5Count(stats.getScore5Count() + delta);
+            default -> log.warn("Оценка вне диапазона 1-5: {}", value);
+        }
+    }
+
+    private BigDecimal calculateAverage(UserRatingStats stats) {
+        if (stats.getRatingCount() == 0) {
+            return null;
+        }
+        return stats.getRatingSum().divide(BigDecimal.valueOf(stats.getRatingCount()), 2, RoundingMode.HALF_UP);
+    }
+
+    private Map<Integer, Integer> toDistribution(UserRatingStats stats) {
+        Map<Integer, Integer> distribution = new LinkedHashMap<>();
+        distribution.put(1, stats.getScore1Count());
+        distribution.put(2, stats.getScore2Count());
+        distribution.put(3, stats.getScore3Count());
+        distribution.put(4, stats.getScore4Count());
+        distribution.put(5, stats.getScore5Count());
+        return distribution;
+    }
+
     private UserRatingsResponse.RatingItem mapToRatingItem(UserRating rating) {
         return new UserRatingsResponse.RatingItem(
                 rating.getRaterUser().getId(),
@@ -107,4 +242,4 @@ public class UserRatingService {
                 rating.getCreatedAt().toLocalDate().toString()
         );
     }
-}
\ No newline at end of file
+}
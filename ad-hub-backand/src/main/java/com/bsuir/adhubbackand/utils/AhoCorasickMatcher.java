@@ -0,0 +1,170 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Автомат Ахо-Корасик для поиска всех вхождений набора фраз в тексте за один проход.
+ * Время поиска линейно от длины текста и числа совпадений и не зависит от размера словаря.
+ * Сравнение без учета регистра, "ё" приравнивается к "е".
+ * <p>
+ * Экземпляр неизменяем после построения и может использоваться из нескольких потоков.
+ */
+public final class AhoCorasickMatcher {
+
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * @param patternIndex индекс фразы в списке, переданном в {@link #build(List)}
+         * @param start        начало вхождения в тексте (включительно)
+         * @param end          конец вхождения в тексте (не включительно)
+         */
+        void accept(int patternIndex, int start, int end);
+    }
+
+    private final String[] patterns;
+    private final int[] patternLengths;
+
+    // Переходы узла i: отсортированные символы childChars[i] и соответствующие узлы childNodes[i]
+    private final char[][] childChars;
+    private final int[][] childNodes;
+    private final int[] fail;
+    // Фраза, заканчивающаяся в узле (-1 если нет), и ближайший по суффиксным ссылкам узел с фразой
+    private final int[] patternAt;
+    private final int[] outputLink;
+
+    private AhoCorasickMatcher(String[] patterns, int[] patternLengths, char[][] childChars, int[][] childNodes,
+                               int[] fail, int[] patternAt, int[] outputLink) {
+        this.patterns = patterns;
+        this.patternLengths = patternLengths;
+        this.childChars = childChars;
+        this.childNodes = childNodes;
+        this.fail = fail;
+        this.patternAt = patternAt;
+        this.outputLink = outputLink;
+    }
+
+    public static AhoCorasickMatcher build(List<String> phrases) {
+        String[] patterns = phrases.toArray(new String[0]);
+        int[] patternLengths = new int[patterns.length];
+
+        // 1. Префиксное дерево
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        children.add(new TreeMap<>());
+        terminal.add(-1);
+
+        for (int p = 0; p < patterns.length; p++) {
+            String pattern = patterns[p];
+            patternLengths[p] = pattern.length();
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = normalize(pattern.charAt(i));
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    terminal.add(-1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            if (pattern.length() > 0 && terminal.get(node) < 0) {
+                terminal.set(node, p);
+            }
+        }
+
+        int size = children.size();
+        char[][] childChars = new char[size][];
+        int[][] childNodes = new int[size][];
+        int[] patternAt = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> map = children.get(node);
+            childChars[node] = new char[map.size()];
+            childNodes[node] = new int[map.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> entry : map.entrySet()) {
+                childChars[node][i] = entry.getKey();
+                childNodes[node][i] = entry.getValue();
+                i++;
+            }
+            patternAt[node] = terminal.get(node);
+        }
+
+        // 2. Суффиксные ссылки и ссылки на ближайший узел с фразой - обход в ширину
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[0]) {
+            queue.add(child);
+        }
+
+        AhoCorasickMatcher partial = new AhoCorasickMatcher(
+                patterns, patternLengths, childChars, childNodes, fail, patternAt, outputLink);
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < childChars[node].length; i++) {
+                char c = childChars[node][i];
+                int child = childNodes[node][i];
+
+                int state = fail[node];
+                int target = partial.transition(state, c);
+                while (target < 0 && state != 0) {
+                    state = fail[state];
+                    target = partial.transition(state, c);
+                }
+                fail[child] = target >= 0 ? target : 0;
+
+                int suffix = fail[child];
+                outputLink[child] = patternAt[suffix] >= 0 ? suffix : outputLink[suffix];
+                queue.add(child);
+            }
+        }
+
+        return partial;
+    }
+
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next >= 0 ? next : 0;
+
+            int node = patternAt[state] >= 0 ? state : outputLink[state];
+            while (node >= 0) {
+                int pattern = patternAt[node];
+                consumer.accept(pattern, i + 1 - patternLengths[pattern], i + 1);
+                node = outputLink[node];
+            }
+        }
+    }
+
+    public String pattern(int index) {
+        return patterns[index];
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    private int transition(int node, char c) {
+        int index = Arrays.binarySearch(childChars[node], c);
+        return index >= 0 ? childNodes[node][index] : -1;
+    }
+
+    private static char normalize(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+}
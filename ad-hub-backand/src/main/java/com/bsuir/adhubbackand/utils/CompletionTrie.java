@@ -0,0 +1,180 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сжатое префиксное дерево (radix trie) для автодополнения. В каждом узле заранее
+ * сохранены topK лучших по весу завершений, поэтому поиск стоит O(длина префикса + K)
+ * независимо от размера словаря.
+ * <p>
+ * Неизменяемо после построения, безопасно для чтения из нескольких потоков.
+ */
+public final class CompletionTrie {
+
+    private static final int[] NO_COMPLETIONS = new int[0];
+
+    private final String[] terms;
+    private final String[] displayTexts;
+    private final Node root;
+
+    private static final class Node {
+        // Метка ребра, ведущего в узел: terms[labelTerm].substring(labelStart, labelEnd)
+        private final int labelTerm;
+        private final int labelStart;
+        private final int labelEnd;
+        private char[] childChars = new char[0];
+        private Node[] children = new Node[0];
+        private int[] completions = NO_COMPLETIONS;
+
+        private Node(int labelTerm, int labelStart, int labelEnd) {
+            this.labelTerm = labelTerm;
+            this.labelStart = labelStart;
+            this.labelEnd = labelEnd;
+        }
+    }
+
+    private CompletionTrie(String[] terms, String[] displayTexts, Node root) {
+        this.terms = terms;
+        this.displayTexts = displayTexts;
+        this.root = root;
+    }
+
+    /**
+     * @param entries нормализованный термин -> (текст для показа, вес)
+     * @param topK    сколько завершений хранить в каждом узле
+     */
+    public static CompletionTrie build(Map<String, Completion> entries, int topK) {
+        String[] terms = entries.keySet().stream()
+                .filter(term -> !term.isEmpty())
+                .sorted()
+                .toArray(String[]::new);
+        String[] displayTexts = new String[terms.length];
+        double[] weights = new double[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            Completion completion = entries.get(terms[i]);
+            displayTexts[i] = completion.displayText();
+            weights[i] = completion.weight();
+        }
+
+        Node root = new Node(0, 0, 0);
+        if (terms.length > 0) {
+            buildChildren(root, terms, weights, 0, terms.length, 0, topK);
+        }
+        return new CompletionTrie(terms, displayTexts, root);
+    }
+
+    /**
+     * До limit завершений префикса по убыванию веса (не больше topK, заданного при построении).
+     */
+    public List<String> complete(String prefix, int limit) {
+        Node node = root;
+        int position = 0;
+        while (position < prefix.length()) {
+            int index = Arrays.binarySearch(node.childChars, prefix.charAt(position));
+            if (index < 0) {
+                return List.of();
+            }
+            node = node.children[index];
+            String label = terms[node.labelTerm];
+            for (int i = node.labelStart; i < node.labelEnd && position < prefix.length(); i++, position++) {
+                if (label.charAt(i) != prefix.charAt(position)) {
+                    return List.of();
+                }
+            }
+        }
+
+        int count = Math.min(limit, node.completions.length);
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(displayTexts[node.completions[i]]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Строит потомков узла для отсортированного диапазона терминов [lo, hi),
+     * у которых совпадают первые depth символов. Возвращает топ завершений поддерева.
+     */
+    private static int[] buildChildren(Node node, String[] terms, double[] weights,
+                                       int lo, int hi, int depth, int topK) {
+        List<int[]> candidateLists = new ArrayList<>();
+        int i = lo;
+        // Термин, совпадающий с путем до узла, - завершение самого узла
+        List<Integer> terminal = new ArrayList<>();
+        while (i < hi && terms[i].length() == depth) {
+            terminal.add(i);
+            i++;
+        }
+        candidateLists.add(terminal.stream().mapToInt(Integer::intValue).toArray());
+
+        List<Character> chars = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (i < hi) {
+            char c = terms[i].charAt(depth);
+            int groupEnd = i + 1;
+            while (groupEnd < hi && terms[groupEnd].charAt(depth) == c) {
+                groupEnd++;
+            }
+
+            // Сжимаем цепочку узлов с единственным потомком в одно ребро
+            int labelEnd = commonPrefixLength(terms[i], terms[groupEnd - 1], depth + 1);
+            Node child = new Node(i, depth, labelEnd);
+            candidateLists.add(buildChildren(child, terms, weights, i, groupEnd, labelEnd, topK));
+
+            chars.add(c);
+            children.add(child);
+            i = groupEnd;
+        }
+
+        node.childChars = new char[chars.size()];
+        for (int c = 0; c < chars.size(); c++) {
+            node.childChars[c] = chars.get(c);
+        }
+        node.children = children.toArray(new Node[0]);
+        node.completions = mergeTop(candidateLists, weights, topK);
+        return node.completions;
+    }
+
+    private static int[] mergeTop(List<int[]> candidateLists, double[] weights, int topK) {
+        int total = 0;
+        for (int[] list : candidateLists) {
+            total += list.length;
+        }
+        Integer[] merged = new Integer[total];
+        int position = 0;
+        for (int[] list : candidateLists) {
+            for (int index : list) {
+                merged[position++] = index;
+            }
+        }
+        Arrays.sort(merged, Comparator.<Integer>comparingDouble(index -> weights[index]).reversed()
+                .thenComparingInt(index -> index));
+
+        int size = Math.min(topK, merged.length);
+        int[] result = new int[size];
+        for (int r = 0; r < size; r++) {
+            result[r] = merged[r];
+        }
+        return result;
+    }
+
+    private static int commonPrefixLength(String first, String last, int from) {
+        int limit = Math.min(first.length(), last.length());
+        int position = from;
+        while (position < limit && first.charAt(position) == last.charAt(position)) {
+            position++;
+        }
+        return position;
+    }
+
+    public record Completion(String displayText, double weight) {
+    }
+}
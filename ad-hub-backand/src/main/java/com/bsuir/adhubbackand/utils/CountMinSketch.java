@@ -0,0 +1,50 @@
+package com.bsuir.adhubbackand.utils;
+
+/**
+ * Count-min sketch: оценка частоты элемента сверху в фиксированной памяти (depth x width).
+ * Ошибка не больше 2N/width с вероятностью 1 - 2^-depth. Скетчи одинакового размера
+ * складываются поэлементно, поэтому оценку за несколько интервалов можно получить
+ * суммированием оценок по каждому интервалу.
+ * <p>
+ * Не потокобезопасен.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final long[][] table;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth and width must be positive");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.table = new long[depth][width];
+    }
+
+    public void add(Object key, long weight) {
+        // Из одного hashCode после перемешивания получаем две независимые половины
+        long hash = Hashing.mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            table[row][index(h1 + row * h2)] += weight;
+        }
+    }
+
+    public long estimate(Object key) {
+        long hash = Hashing.mix(key.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row][index(h1 + row * h2)]);
+        }
+        return min;
+    }
+
+    private int index(int hash) {
+        return (hash & Integer.MAX_VALUE) % width;
+    }
+}
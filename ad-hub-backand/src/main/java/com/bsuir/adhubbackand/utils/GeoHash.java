@@ -0,0 +1,126 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Геохеш: точка кодируется строкой, каждый символ которой уточняет ячейку сетки в 32 раза.
+ * Точки одной ячейки имеют общий префикс, поэтому ячейка - это диапазон строк
+ * [префикс, префикс + "~"), и обычный B-tree индекс по геохешу работает как пространственный.
+ * <p>
+ * Расстояния на сфере - по формуле гаверсинусов.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    // Верхняя граница диапазона строк ячейки: символ после всех символов алфавита
+    public static final String RANGE_END_SUFFIX = "~";
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double KM_PER_DEGREE_LATITUDE = 111.32;
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Ячейки геохеша, вместе покрывающие прямоугольник вокруг круга заданного радиуса.
+     * Выбирается самая мелкая сетка, в которой покрытие занимает не больше maxCells ячеек,
+     * но не мельче maxPrecision - точности, с которой хранятся геохеши: ячейка длиннее
+     * хранимого геохеша не содержит ни одной строки.
+     */
+    public static List<String> coverCircle(double latitude, double longitude, double radiusKm,
+                                           int maxCells, int maxPrecision) {
+        double latDelta = radiusKm / KM_PER_DEGREE_LATITUDE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double lonDelta = cosLat > 1e-6 ? radiusKm / (KM_PER_DEGREE_LATITUDE * cosLat) : 360;
+
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double minLon = Math.max(-180, longitude - lonDelta);
+        double maxLon = Math.min(180, longitude + lonDelta);
+
+        for (int precision = Math.min(maxPrecision, MAX_PRECISION); precision > 1; precision--) {
+            List<String> cells = cover(minLat, maxLat, minLon, maxLon, precision, maxCells);
+            if (cells != null) {
+                return cells;
+            }
+        }
+        return cover(minLat, maxLat, minLon, maxLon, 1, Integer.MAX_VALUE);
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Null, если при этой точности ячеек больше limit
+    private static List<String> cover(double minLat, double maxLat, double minLon, double maxLon,
+                                      int precision, int limit) {
+        int lonBits = (5 * precision + 1) / 2;
+        int latBits = 5 * precision / 2;
+        double cellHeight = 180 / Math.pow(2, latBits);
+        double cellWidth = 360 / Math.pow(2, lonBits);
+
+        long fromRow = cellIndex(minLat + 90, cellHeight, latBits);
+        long toRow = cellIndex(maxLat + 90, cellHeight, latBits);
+        long fromColumn = cellIndex(minLon + 180, cellWidth, lonBits);
+        long toColumn = cellIndex(maxLon + 180, cellWidth, lonBits);
+        if ((toRow - fromRow + 1) * (toColumn - fromColumn + 1) > limit) {
+            return null;
+        }
+
+        List<String> cells = new ArrayList<>();
+        for (long row = fromRow; row <= toRow; row++) {
+            for (long column = fromColumn; column <= toColumn; column++) {
+                // Центр ячейки однозначно кодируется ее геохешем
+                cells.add(encode(-90 + (row + 0.5) * cellHeight, -180 + (column + 0.5) * cellWidth, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static long cellIndex(double offset, double cellSize, int bits) {
+        return Math.min((long) Math.floor(offset / cellSize), (1L << bits) - 1);
+    }
+}
@@ -0,0 +1,204 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск 64-битных отпечатков в пределах расстояния Хэмминга k (Manku, Jain, Das Sarma).
+ * <p>
+ * Отпечаток делится на blocks блоков; если два отпечатка различаются не более чем в k битах,
+ * эти биты задевают не больше k блоков, и хотя бы blocks - k блоков совпадают целиком.
+ * Для каждого выбора blocks - k блоков из blocks заводится таблица, ключ которой - биты
+ * выбранных блоков (около 64 * (blocks - k) / blocks битов). Запрос - по одному поиску
+ * в каждой таблице и проверка расстояния только у отпечатков с совпавшим ключом.
+ * <p>
+ * Больше блоков - длиннее ключ и меньше случайных кандидатов (примерно n / 2^ключ на таблицу),
+ * но больше таблиц: C(blocks, k) поисков на запрос и столько же ссылок на каждый отпечаток.
+ * При blocks = k + 1 ключ всего 64 / (k + 1) битов, и при k = 6 поиск проверяет около n / 73
+ * отпечатков - почти полный перебор.
+ * <p>
+ * Таблицы - цепочки в массивах: на отпечаток в каждой таблице приходится две ссылки int.
+ * Не потокобезопасен.
+ */
+public class HammingIndex {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_TABLES = 256;
+
+    private final int maxDistance;
+    // Биты ключа каждой таблицы
+    private final long[] tableMasks;
+
+    // Отпечатки в ячейках; освобожденные ячейки связаны в список через next[0]
+    private long[] ids;
+    private long[] fingerprints;
+    // heads[t][корзина] - первая ячейка цепочки, next[t][ячейка] - следующая ячейка той же корзины
+    private int[][] heads;
+    private int[][] next;
+    private int bucketBits;
+    private int used;
+    private int freeSlot = NONE;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+
+    /**
+     * @param blocks число блоков (больше maxDistance); ключ таблиц - около 64 * (blocks - maxDistance) / blocks битов
+     */
+    public HammingIndex(int maxDistance, int blocks) {
+        if (maxDistance < 0 || maxDistance >= Long.SIZE) {
+            throw new IllegalArgumentException("maxDistance must be in [0, 63]");
+        }
+        if (blocks <= maxDistance || blocks > Long.SIZE) {
+            throw new IllegalArgumentException("blocks must be in [maxDistance + 1, 64]");
+        }
+        long[] blockMasks = new long[blocks];
+        int shift = 0;
+        for (int block = 0; block < blocks; block++) {
+            // Блоки почти равной длины: первые 64 % blocks блоков на бит длиннее
+            int bits = Long.SIZE / blocks + (block < Long.SIZE % blocks ? 1 : 0);
+            blockMasks[block] = (bits == Long.SIZE ? -1L : (1L << bits) - 1) << shift;
+            shift += bits;
+        }
+
+        List<Long> masks = new ArrayList<>();
+        collectTableMasks(blockMasks, 0, blocks - maxDistance, 0L, masks);
+        if (masks.size() > MAX_TABLES) {
+            throw new IllegalArgumentException("Too many tables: C(" + blocks + ", " + maxDistance + ") = "
+                    + masks.size() + " > " + MAX_TABLES);
+        }
+        this.maxDistance = maxDistance;
+        this.tableMasks = masks.stream().mapToLong(Long::longValue).toArray();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int maxDistance() {
+        return maxDistance;
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    /**
+     * Добавляет или заменяет отпечаток с данным id.
+     */
+    public void put(long id, long fingerprint) {
+        remove(id);
+        int slot = takeSlot();
+        ids[slot] = id;
+        fingerprints[slot] = fingerprint;
+        link(slot);
+        slotById.put(id, slot);
+    }
+
+    public boolean remove(long id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        for (int table = 0; table < tableMasks.length; table++) {
+            int bucket = bucket(table, fingerprints[slot]);
+            int[] tableNext = next[table];
+            if (heads[table][bucket] == slot) {
+                heads[table][bucket] = tableNext[slot];
+            } else {
+                int previous = heads[table][bucket];
+                while (tableNext[previous] != slot) {
+                    previous = tableNext[previous];
+                }
+                tableNext[previous] = tableNext[slot];
+            }
+        }
+        next[0][slot] = freeSlot;
+        freeSlot = slot;
+        return true;
+    }
+
+    /**
+     * Отпечатки не дальше distance (не больше maxDistance индекса), ближайшие сначала.
+     */
+    public List<Match> search(long fingerprint, int distance) {
+        int limit = Math.min(distance, maxDistance);
+        LongHashSet found = new LongHashSet();
+        List<Match> matches = new ArrayList<>();
+        for (int table = 0; table < tableMasks.length; table++) {
+            long mask = tableMasks[table];
+            long key = fingerprint & mask;
+            int[] tableNext = next[table];
+            for (int slot = heads[table][bucket(table, fingerprint)]; slot != NONE; slot = tableNext[slot]) {
+                // В корзине бывают и другие ключи с тем же хешем
+                if ((fingerprints[slot] & mask) != key) {
+                    continue;
+                }
+                int actual = Long.bitCount(fingerprint ^ fingerprints[slot]);
+                if (actual <= limit && found.add(slot)) {
+                    matches.add(new Match(ids[slot], actual));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparingLong(Match::id));
+        return matches;
+    }
+
+    private int takeSlot() {
+        if (freeSlot != NONE) {
+            int slot = freeSlot;
+            freeSlot = next[0][slot];
+            return slot;
+        }
+        if (used == ids.length) {
+            // Свободных ячеек нет: увеличиваем вдвое и заново раскладываем по корзинам
+            int[] live = slotById.values().stream().mapToInt(Integer::intValue).toArray();
+            long[] oldIds = ids;
+            long[] oldFingerprints = fingerprints;
+            allocate(ids.length * 2);
+            System.arraycopy(oldIds, 0, ids, 0, oldIds.length);
+            System.arraycopy(oldFingerprints, 0, fingerprints, 0, oldFingerprints.length);
+            for (int slot : live) {
+                link(slot);
+            }
+        }
+        return used++;
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        fingerprints = new long[capacity];
+        bucketBits = Integer.numberOfTrailingZeros(capacity);
+        heads = new int[tableMasks.length][capacity];
+        next = new int[tableMasks.length][capacity];
+        for (int[] tableHeads : heads) {
+            Arrays.fill(tableHeads, NONE);
+        }
+    }
+
+    private void link(int slot) {
+        for (int table = 0; table < tableMasks.length; table++) {
+            int bucket = bucket(table, fingerprints[slot]);
+            next[table][slot] = heads[table][bucket];
+            heads[table][bucket] = slot;
+        }
+    }
+
+    private int bucket(int table, long fingerprint) {
+        return (int) (Hashing.mix(fingerprint & tableMasks[table]) >>> (Long.SIZE - bucketBits));
+    }
+
+    // Все сочетания из count блоков, начиная с блока from
+    private static void collectTableMasks(long[] blockMasks, int from, int count, long mask, List<Long> masks) {
+        if (count == 0) {
+            masks.add(mask);
+            return;
+        }
+        for (int block = from; block <= blockMasks.length - count; block++) {
+            collectTableMasks(blockMasks, block + 1, count - 1, mask | blockMasks[block], masks);
+        }
+    }
+
+    public record Match(long id, int distance) {
+    }
+}
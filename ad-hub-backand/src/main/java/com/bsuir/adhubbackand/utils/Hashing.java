@@ -0,0 +1,39 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Общие 64-битные хеш-функции для скетчей и отпечатков (MinHash, SimHash, CountMinSketch,
+ * HammingIndex). Значения не зависят от версии JVM, поэтому сохраненные отпечатки
+ * (ads.simhash) остаются сравнимыми между перезапусками.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a по UTF-8 байтам строки с финальным перемешиванием {@link #mix(long)}: в отличие
+     * от String.hashCode - 64 бита, а у самого FNV старшие биты коротких строк слабо перемешаны.
+     */
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Финальное перемешивание MurmurHash3 (fmix64): каждый бит входа влияет на все биты результата.
+     */
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,132 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Центрированное дерево отрезков [lo, hi] для запросов "какие отрезки содержат точку".
+ * Запрос стоит O(log n + k), где k - число найденных отрезков. Отрезки идентифицируются
+ * индексом в массивах, переданных в {@link #build(double[], double[])}; открытые границы
+ * задаются бесконечностями.
+ * <p>
+ * Неизменяемо после построения, безопасно для чтения из нескольких потоков.
+ */
+public final class IntervalTree {
+
+    private static final IntervalTree EMPTY = new IntervalTree(null);
+
+    private final Node root;
+
+    private static final class Node {
+        private final double center;
+        // Отрезки, содержащие center: по возрастанию lo и по убыванию hi
+        private final int[] byLo;
+        private final double[] sortedLo;
+        private final int[] byHi;
+        private final double[] sortedHi;
+        private final Node left;
+        private final Node right;
+
+        private Node(double center, int[] byLo, double[] sortedLo, int[] byHi, double[] sortedHi,
+                     Node left, Node right) {
+            this.center = center;
+            this.byLo = byLo;
+            this.sortedLo = sortedLo;
+            this.byHi = byHi;
+            this.sortedHi = sortedHi;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private IntervalTree(Node root) {
+        this.root = root;
+    }
+
+    public static IntervalTree build(double[] lo, double[] hi) {
+        if (lo.length == 0) {
+            return EMPTY;
+        }
+        List<Integer> all = new ArrayList<>(lo.length);
+        for (int i = 0; i < lo.length; i++) {
+            all.add(i);
+        }
+        return new IntervalTree(buildNode(all, lo, hi));
+    }
+
+    /**
+     * Передает consumer индексы всех отрезков, содержащих точку.
+     */
+    public void stab(double point, IntConsumer consumer) {
+        Node node = root;
+        while (node != null) {
+            if (point < node.center) {
+                for (int i = 0; i < node.byLo.length && node.sortedLo[i] <= point; i++) {
+                    consumer.accept(node.byLo[i]);
+                }
+                node = node.left;
+            } else if (point > node.center) {
+                for (int i = 0; i < node.byHi.length && node.sortedHi[i] >= point; i++) {
+                    consumer.accept(node.byHi[i]);
+                }
+                node = node.right;
+            } else {
+                for (int index : node.byLo) {
+                    consumer.accept(index);
+                }
+                return;
+            }
+        }
+    }
+
+    private static Node buildNode(List<Integer> intervals, double[] lo, double[] hi) {
+        if (intervals.isEmpty()) {
+            return null;
+        }
+        double center = medianEndpoint(intervals, lo, hi);
+
+        List<Integer> left = new ArrayList<>();
+        List<Integer> right = new ArrayList<>();
+        List<Integer> here = new ArrayList<>();
+        for (int index : intervals) {
+            if (hi[index] < center) {
+                left.add(index);
+            } else if (lo[index] > center) {
+                right.add(index);
+            } else {
+                here.add(index);
+            }
+        }
+
+        int[] byLo = here.stream().sorted(Comparator.comparingDouble(i -> lo[i])).mapToInt(Integer::intValue).toArray();
+        int[] byHi = here.stream().sorted(Comparator.<Integer>comparingDouble(i -> hi[i]).reversed())
+                .mapToInt(Integer::intValue).toArray();
+        double[] sortedLo = Arrays.stream(byLo).mapToDouble(i -> lo[i]).toArray();
+        double[] sortedHi = Arrays.stream(byHi).mapToDouble(i -> hi[i]).toArray();
+
+        return new Node(center, byLo, sortedLo, byHi, sortedHi,
+                buildNode(left, lo, hi), buildNode(right, lo, hi));
+    }
+
+    // Медиана конечных концов отрезков; бесконечные концы не годятся в центр
+    private static double medianEndpoint(List<Integer> intervals, double[] lo, double[] hi) {
+        double[] endpoints = new double[intervals.size() * 2];
+        int count = 0;
+        for (int index : intervals) {
+            if (Double.isFinite(lo[index])) {
+                endpoints[count++] = lo[index];
+            }
+            if (Double.isFinite(hi[index])) {
+                endpoints[count++] = hi[index];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(endpoints, 0, count);
+        return endpoints[count / 2];
+    }
+}
@@ -0,0 +1,168 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Множество примитивных long с открытой адресацией (линейное пробирование).
+ * Не хранит обертки Long, поэтому занимает ~8-16 байт на элемент.
+ * Не потокобезопасно: для конкурентного чтения используйте копию через {@link #copy()}.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+    }
+
+    public static LongHashSet of(Collection<Long> values) {
+        LongHashSet set = new LongHashSet(values.size());
+        for (Long value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsZero;
+            containsZero = true;
+            if (added) {
+                size++;
+            }
+            return added;
+        }
+        if ((size + 1) > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        if (value == EMPTY) {
+            boolean removed = containsZero;
+            containsZero = false;
+            if (removed) {
+                size--;
+            }
+            return removed;
+        }
+        int mask = keys.length - 1;
+        int index = mix(value) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == value) {
+                keys[index] = EMPTY;
+                size--;
+                shiftKeys(index, mask);
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        if (containsZero) {
+            result[i++] = EMPTY;
+        }
+        for (long key : keys) {
+            if (key != EMPTY) {
+                result[i++] = key;
+            }
+        }
+        return result;
+    }
+
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet(0);
+        copy.keys = Arrays.copyOf(keys, keys.length);
+        copy.containsZero = containsZero;
+        copy.size = size;
+        return copy;
+    }
+
+    // Сдвигаем последующие элементы цепочки, чтобы не оставлять "дыр" после удаления
+    private void shiftKeys(int freed, int mask) {
+        int index = (freed + 1) & mask;
+        while (keys[index] != EMPTY) {
+            int ideal = mix(keys[index]) & mask;
+            boolean outOfPlace = freed <= index
+                    ? ideal <= freed || ideal > index
+                    : ideal <= freed && ideal > index;
+            if (outOfPlace) {
+                keys[freed] = keys[index];
+                keys[index] = EMPTY;
+                freed = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        keys = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                int index = mix(key) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
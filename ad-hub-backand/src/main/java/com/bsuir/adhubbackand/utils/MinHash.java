@@ -0,0 +1,81 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash-сигнатуры множеств строк и их разбиение на полосы для LSH.
+ * <p>
+ * Доля совпадающих позиций двух сигнатур - несмещенная оценка коэффициента Жаккара
+ * исходных множеств. При разбиении сигнатуры на bands полос по rows значений пара
+ * с похожестью s попадает хотя бы в одну общую корзину с вероятностью 1 - (1 - s^rows)^bands.
+ * <p>
+ * Хеш-функции фиксированы (seed), поэтому сигнатуры сравнимы между пересборками и узлами.
+ */
+public class MinHash {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final long[] salts;
+
+    public MinHash(int numHashes) {
+        if (numHashes <= 0) {
+            throw new IllegalArgumentException("numHashes must be positive");
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        this.salts = new long[numHashes];
+        for (int i = 0; i < numHashes; i++) {
+            salts[i] = random.nextLong();
+        }
+    }
+
+    public int size() {
+        return salts.length;
+    }
+
+    /**
+     * Сигнатура множества; для пустого множества - null.
+     */
+    public int[] signature(Collection<String> shingles) {
+        if (shingles.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[salts.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String shingle : shingles) {
+            long base = Hashing.hash64(shingle);
+            for (int i = 0; i < salts.length; i++) {
+                int value = (int) (Hashing.mix(base ^ salts[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Оценка коэффициента Жаккара по двум сигнатурам одной длины.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Хеш полосы band (значения с band * rows по (band + 1) * rows - 1).
+     */
+    public static long bandHash(int[] signature, int band, int rows) {
+        long hash = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = Hashing.mix(hash * 31 + signature[i]);
+        }
+        return hash;
+    }
+}
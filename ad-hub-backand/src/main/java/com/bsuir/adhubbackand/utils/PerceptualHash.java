@@ -0,0 +1,102 @@
+package com.bsuir.adhubbackand.utils;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Перцептивный хеш изображения (dHash): картинка уменьшается до 9x8 в оттенках серого,
+ * бит i - "пиксель ярче соседа справа". Пересжатие, масштабирование и небольшая правка
+ * цвета меняют лишь несколько битов, поэтому похожесть фотографий сводится к расстоянию
+ * Хэмминга между хешами.
+ * <p>
+ * Изображение декодируется с прореживанием строк и столбцов - для 9x8 полное разрешение
+ * не нужно. Форматы без декодера ImageIO (например, WebP) не хешируются.
+ */
+public final class PerceptualHash {
+
+    private static final int WIDTH = 9;
+    private static final int HEIGHT = 8;
+    // После прореживания по короткой стороне остается не меньше стольких пикселей
+    private static final int DECODE_SIZE = 64;
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    private PerceptualHash() {
+    }
+
+    /**
+     * dHash изображения или null, если формат не поддерживается или картинка слишком велика.
+     */
+    public static Long dHash(InputStream input) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            if (stream == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width, height) / DECODE_SIZE);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return dHash(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public static long dHash(BufferedImage image) {
+        double[][] gray = downscale(image);
+        long hash = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH - 1; x++) {
+                if (gray[y][x] > gray[y][x + 1]) {
+                    hash |= 1L << (y * (WIDTH - 1) + x);
+                }
+            }
+        }
+        return hash;
+    }
+
+    // Средняя яркость прямоугольных областей сетки WIDTH x HEIGHT
+    private static double[][] downscale(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double[][] sum = new double[HEIGHT][WIDTH];
+        int[][] count = new int[HEIGHT][WIDTH];
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            int cellY = (int) ((long) y * HEIGHT / height);
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int cellX = (int) ((long) x * WIDTH / width);
+                int rgb = row[x];
+                // Яркость по ITU-R BT.601; прозрачные пиксели считаются белыми
+                int alpha = rgb >>> 24;
+                double luma = 0.299 * (rgb >> 16 & 0xff) + 0.587 * (rgb >> 8 & 0xff) + 0.114 * (rgb & 0xff);
+                sum[cellY][cellX] += (luma * alpha + 255.0 * (255 - alpha)) / 255.0;
+                count[cellY][cellX]++;
+            }
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                sum[y][x] = count[y][x] > 0 ? sum[y][x] / count[y][x] : 0;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,174 @@
+package com.bsuir.adhubbackand.utils;
+
+/**
+ * Стеммер русского языка по алгоритму Snowball (snowballstem.org/algorithms/russian).
+ * Ожидает слово в нижнем регистре с "ё", уже замененной на "е"; слова без кириллицы
+ * возвращаются без изменений. Не хранит состояние, безопасен для нескольких потоков.
+ */
+public final class RussianStemmer {
+
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] ADJECTIVE = {
+            "ими", "ыми", "его", "ого", "ему", "ому",
+            "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом",
+            "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"
+    };
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] VERB_1 = {
+            "ете", "йте", "ешь", "нно",
+            "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть", "й", "л", "н"
+    };
+    private static final String[] VERB_2 = {
+            "ейте", "уйте",
+            "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют", "ены", "ить", "ыть", "ишь",
+            "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую", "ю"
+    };
+    private static final String[] NOUN = {
+            "иями", "ями", "ами", "ией", "иям", "ием", "иях",
+            "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью",
+            "ия", "ья", "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"
+    };
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+
+    private RussianStemmer() {
+    }
+
+    public static String stem(String word) {
+        int rv = -1;
+        for (int i = 0; i < word.length(); i++) {
+            if (isVowel(word.charAt(i))) {
+                rv = i + 1;
+                break;
+            }
+        }
+        if (rv < 0) {
+            return word;
+        }
+        int r2 = region2(word, rv);
+
+        StringBuilder s = new StringBuilder(word);
+
+        // Шаг 1
+        if (!removeWithPrecedingAOrYa(s, rv, PERFECTIVE_GERUND_1, PERFECTIVE_GERUND_2)) {
+            removeLongest(s, rv, REFLEXIVE);
+            if (!removeAdjectival(s, rv)
+                    && !removeWithPrecedingAOrYa(s, rv, VERB_1, VERB_2)) {
+                removeLongest(s, rv, NOUN);
+            }
+        }
+
+        // Шаг 2
+        if (s.length() > rv && s.charAt(s.length() - 1) == 'и') {
+            s.setLength(s.length() - 1);
+        }
+
+        // Шаг 3
+        removeLongest(s, r2, DERIVATIONAL);
+
+        // Шаг 4
+        if (removeLongest(s, rv, SUPERLATIVE)) {
+            undoubleN(s, rv);
+        } else if (!undoubleN(s, rv) && s.length() > rv && s.charAt(s.length() - 1) == 'ь') {
+            s.setLength(s.length() - 1);
+        }
+
+        return s.toString();
+    }
+
+    private static boolean removeAdjectival(StringBuilder s, int limit) {
+        if (!removeLongest(s, limit, ADJECTIVE)) {
+            return false;
+        }
+        removeWithPrecedingAOrYa(s, limit, PARTICIPLE_1, PARTICIPLE_2);
+        return true;
+    }
+
+    /**
+     * Удаляет самое длинное окончание из обеих групп. Окончание первой группы удаляется
+     * только после "а" или "я" (сама буква остается); если самое длинное совпадение из
+     * первой группы этому условию не удовлетворяет, более короткие не проверяются.
+     */
+    private static boolean removeWithPrecedingAOrYa(StringBuilder s, int limit, String[] group1, String[] group2) {
+        String longest1 = longestSuffix(s, limit, group1);
+        String longest2 = longestSuffix(s, limit, group2);
+        if (longest2 != null && (longest1 == null || longest2.length() >= longest1.length())) {
+            s.setLength(s.length() - longest2.length());
+            return true;
+        }
+        if (longest1 == null) {
+            return false;
+        }
+        int before = s.length() - longest1.length() - 1;
+        if (before < limit || (s.charAt(before) != 'а' && s.charAt(before) != 'я')) {
+            return false;
+        }
+        s.setLength(s.length() - longest1.length());
+        return true;
+    }
+
+    private static boolean removeLongest(StringBuilder s, int limit, String[] suffixes) {
+        String longest = longestSuffix(s, limit, suffixes);
+        if (longest == null) {
+            return false;
+        }
+        s.setLength(s.length() - longest.length());
+        return true;
+    }
+
+    private static String longestSuffix(StringBuilder s, int limit, String[] suffixes) {
+        String longest = null;
+        for (String suffix : suffixes) {
+            int start = s.length() - suffix.length();
+            if (start >= limit && (longest == null || suffix.length() > longest.length())
+                    && endsWith(s, suffix)) {
+                longest = suffix;
+            }
+        }
+        return longest;
+    }
+
+    private static boolean undoubleN(StringBuilder s, int limit) {
+        int length = s.length();
+        if (length - 2 >= limit && s.charAt(length - 1) == 'н' && s.charAt(length - 2) == 'н') {
+            s.setLength(length - 1);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean endsWith(StringBuilder s, String suffix) {
+        int offset = s.length() - suffix.length();
+        for (int i = 0; i < suffix.length(); i++) {
+            if (s.charAt(offset + i) != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // R2: после первой согласной, следующей за гласной, внутри R1 (R1 считается так же от начала RV)
+    private static int region2(String word, int rv) {
+        int position = rv;
+        for (int step = 0; step < 3; step++) {
+            boolean wantVowel = step == 1;
+            while (position < word.length() && isVowel(word.charAt(position)) != wantVowel) {
+                position++;
+            }
+            if (position >= word.length()) {
+                return word.length();
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+}
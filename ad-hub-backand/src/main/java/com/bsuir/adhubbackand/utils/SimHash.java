@@ -0,0 +1,50 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 64-битный SimHash (Charikar): тексты с почти одинаковым набором признаков получают
+ * отпечатки, различающиеся в немногих битах, поэтому близость текстов сводится
+ * к расстоянию Хэмминга между отпечатками.
+ * <p>
+ * Признаки - слова (с весом по числу повторов) и пары соседних слов, так что перестановка
+ * и замена отдельных слов меняют отпечаток слабо, а другой текст - сильно.
+ */
+public final class SimHash {
+
+    private SimHash() {
+    }
+
+    public static long of(List<String> words) {
+        Map<String, Integer> weights = new HashMap<>();
+        for (int i = 0; i < words.size(); i++) {
+            weights.merge(words.get(i), 1, Integer::sum);
+            if (i + 1 < words.size()) {
+                weights.merge(words.get(i) + ' ' + words.get(i + 1), 1, Integer::sum);
+            }
+        }
+
+        int[] votes = new int[Long.SIZE];
+        for (Map.Entry<String, Integer> feature : weights.entrySet()) {
+            long hash = Hashing.hash64(feature.getKey());
+            int weight = feature.getValue();
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += (hash >>> bit & 1) != 0 ? weight : -weight;
+            }
+        }
+
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+}
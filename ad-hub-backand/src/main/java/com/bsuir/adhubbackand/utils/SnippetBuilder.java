@@ -0,0 +1,138 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Короткий фрагмент описания с подсветкой найденных слов. Найденные слова определяются
+ * по сохраненным основам и их смещениям (ads.search_terms / ads.search_offsets), поэтому
+ * разбирается только текст внутри окна фрагмента, а не все описание.
+ * <p>
+ * Текст экранируется для HTML, найденные слова оборачиваются в &lt;em&gt;.
+ */
+public final class SnippetBuilder {
+
+    private static final String ELLIPSIS = "…";
+    private static final String HIGHLIGHT_OPEN = "<em>";
+    private static final String HIGHLIGHT_CLOSE = "</em>";
+    // Сколько символов показывать перед первым найденным словом окна
+    private static final int LEADING_CONTEXT = 30;
+
+    private SnippetBuilder() {
+    }
+
+    /**
+     * @param description      исходное описание
+     * @param descriptionTerms основы слов описания в порядке следования
+     * @param offsets          смещения этих слов в описании
+     * @param queryStems       основы, которые нужно подсветить
+     * @param maxLength        примерная длина фрагмента в символах
+     */
+    public static String build(String description, String[] descriptionTerms, int[] offsets,
+                               Set<String> queryStems, int maxLength) {
+        if (description == null || description.isEmpty()) {
+            return description;
+        }
+        // Индекс не соответствует тексту (например, еще не переиндексирован) - без подсветки
+        if (descriptionTerms.length != offsets.length
+                || (offsets.length > 0 && offsets[offsets.length - 1] >= description.length())) {
+            return plain(description, maxLength);
+        }
+
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < descriptionTerms.length; i++) {
+            if (queryStems.contains(descriptionTerms[i])) {
+                matches.add(offsets[i]);
+            }
+        }
+        if (matches.isEmpty()) {
+            return plain(description, maxLength);
+        }
+
+        // Окно длиной maxLength с наибольшим числом совпадений (два указателя по смещениям)
+        int bestStart = matches.get(0);
+        int bestCount = 0;
+        int left = 0;
+        for (int right = 0; right < matches.size(); right++) {
+            while (matches.get(right) - matches.get(left) > maxLength - LEADING_CONTEXT) {
+                left++;
+            }
+            if (right - left + 1 > bestCount) {
+                bestCount = right - left + 1;
+                bestStart = matches.get(left);
+            }
+        }
+
+        int start = wordStart(description, Math.max(0, bestStart - LEADING_CONTEXT));
+        int end = wordEnd(description, Math.min(description.length(), start + maxLength));
+
+        StringBuilder snippet = new StringBuilder(end - start + 32);
+        if (start > 0) {
+            snippet.append(ELLIPSIS);
+        }
+        int position = start;
+        for (int match : matches) {
+            if (match < start) {
+                continue;
+            }
+            int matchEnd = tokenEnd(description, match);
+            if (matchEnd > end) {
+                break;
+            }
+            snippet.append(HtmlUtils.htmlEscape(description.substring(position, match)))
+                    .append(HIGHLIGHT_OPEN)
+                    .append(HtmlUtils.htmlEscape(description.substring(match, matchEnd)))
+                    .append(HIGHLIGHT_CLOSE);
+            position = matchEnd;
+        }
+        snippet.append(HtmlUtils.htmlEscape(description.substring(position, end)));
+        if (end < description.length()) {
+            snippet.append(ELLIPSIS);
+        }
+        return snippet.toString();
+    }
+
+    private static String plain(String description, int maxLength) {
+        if (description.length() <= maxLength) {
+            return HtmlUtils.htmlEscape(description);
+        }
+        return HtmlUtils.htmlEscape(description.substring(0, wordEnd(description, maxLength))) + ELLIPSIS;
+    }
+
+    private static int tokenEnd(String text, int start) {
+        int position = start;
+        while (position < text.length() && Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    // Начало фрагмента не разрезает слово: сдвигаемся к ближайшему началу слова справа
+    private static int wordStart(String text, int position) {
+        if (position == 0) {
+            return position;
+        }
+        if (Character.isLetterOrDigit(text.charAt(position - 1))) {
+            position = tokenEnd(text, position);
+        }
+        while (position < text.length() && !Character.isLetterOrDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    // Конец фрагмента не разрезает слово: отступаем к концу предыдущего слова
+    private static int wordEnd(String text, int position) {
+        if (position >= text.length()) {
+            return text.length();
+        }
+        int end = position;
+        while (end > 0 && Character.isLetterOrDigit(text.charAt(end)) && Character.isLetterOrDigit(text.charAt(end - 1))) {
+            end--;
+        }
+        return end > 0 ? end : position;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Алгоритм Space-Saving (Metwally et al.): приближенный поиск самых частых элементов потока
+ * в фиксированной памяти. Хранит не более capacity счетчиков; новый элемент при заполнении
+ * вытесняет элемент с минимальным счетчиком и наследует его значение как ошибку.
+ * Любой элемент с частотой больше N/capacity гарантированно присутствует среди счетчиков.
+ * <p>
+ * Не потокобезопасен.
+ */
+public class SpaceSaving<K> {
+
+    public record Entry<K>(K key, long count, long error) {
+    }
+
+    private static final class Counter<K> {
+        private final K key;
+        private long count;
+        private long error;
+        private long sequence;
+
+        private Counter(K key) {
+            this.key = key;
+        }
+    }
+
+    private static final Comparator<Counter<?>> BY_COUNT = Comparator
+            .comparingLong((Counter<?> counter) -> counter.count)
+            .thenComparingLong(counter -> counter.sequence);
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final TreeSet<Counter<K>> byCount = new TreeSet<>(BY_COUNT);
+    private long sequence;
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(K key, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter<>(key);
+            } else {
+                Counter<K> evicted = byCount.pollFirst();
+                counters.remove(evicted.key);
+                counter = new Counter<>(key);
+                counter.count = evicted.count;
+                counter.error = evicted.count;
+            }
+            counters.put(key, counter);
+        } else {
+            byCount.remove(counter);
+        }
+
+        counter.count += weight;
+        counter.sequence = sequence++;
+        byCount.add(counter);
+    }
+
+    /**
+     * Все отслеживаемые элементы по убыванию счетчика.
+     */
+    public List<Entry<K>> entries() {
+        List<Entry<K>> result = new ArrayList<>(counters.size());
+        for (Counter<K> counter : byCount.descendingSet()) {
+            result.add(new Entry<>(counter.key, counter.count, counter.error));
+        }
+        return result;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+}
@@ -0,0 +1,101 @@
+package com.bsuir.adhubbackand.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Преобразования для запросов, набранных "не той" письменностью: транслитерация
+ * кириллица/латиница ("самсунг" - "samsung") и смена раскладки клавиатуры
+ * ЙЦУКЕН/QWERTY ("ыфьыгтп" - "samsung"). Ожидается текст в нижнем регистре.
+ */
+public final class Transliteration {
+
+    private static final String QWERTY = "`qwertyuiop[]asdfghjkl;'zxcvbnm,.";
+    private static final String JCUKEN = "ёйцукенгшщзхъфывапролджэячсмитьбю";
+
+    private static final Map<Character, String> CYRILLIC_TO_LATIN = new HashMap<>();
+    private static final Map<Character, Character> LAYOUT_SWITCH = new HashMap<>();
+
+    // Многобуквенные сочетания проверяются раньше одиночных букв
+    private static final String[][] LATIN_TO_CYRILLIC = {
+            {"shch", "щ"}, {"sch", "щ"}, {"zh", "ж"}, {"kh", "х"}, {"ts", "ц"}, {"ch", "ч"},
+            {"sh", "ш"}, {"yu", "ю"}, {"ya", "я"}, {"yo", "е"}, {"ph", "ф"},
+            {"a", "а"}, {"b", "б"}, {"c", "к"}, {"d", "д"}, {"e", "е"}, {"f", "ф"}, {"g", "г"},
+            {"h", "х"}, {"i", "и"}, {"j", "дж"}, {"k", "к"}, {"l", "л"}, {"m", "м"}, {"n", "н"},
+            {"o", "о"}, {"p", "п"}, {"q", "к"}, {"r", "р"}, {"s", "с"}, {"t", "т"}, {"u", "у"},
+            {"v", "в"}, {"w", "в"}, {"x", "кс"}, {"y", "и"}, {"z", "з"}
+    };
+
+    static {
+        String[][] cyrillic = {
+                {"а", "a"}, {"б", "b"}, {"в", "v"}, {"г", "g"}, {"д", "d"}, {"е", "e"}, {"ё", "e"},
+                {"ж", "zh"}, {"з", "z"}, {"и", "i"}, {"й", "y"}, {"к", "k"}, {"л", "l"}, {"м", "m"},
+                {"н", "n"}, {"о", "o"}, {"п", "p"}, {"р", "r"}, {"с", "s"}, {"т", "t"}, {"у", "u"},
+                {"ф", "f"}, {"х", "h"}, {"ц", "ts"}, {"ч", "ch"}, {"ш", "sh"}, {"щ", "sch"}, {"ъ", ""},
+                {"ы", "y"}, {"ь", ""}, {"э", "e"}, {"ю", "yu"}, {"я", "ya"}, {"і", "i"}, {"ў", "u"}
+        };
+        for (String[] pair : cyrillic) {
+            CYRILLIC_TO_LATIN.put(pair[0].charAt(0), pair[1]);
+        }
+        for (int i = 0; i < QWERTY.length(); i++) {
+            LAYOUT_SWITCH.put(QWERTY.charAt(i), JCUKEN.charAt(i));
+            LAYOUT_SWITCH.put(JCUKEN.charAt(i), QWERTY.charAt(i));
+        }
+    }
+
+    private Transliteration() {
+    }
+
+    public static boolean containsCyrillic(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeBlock.of(text.charAt(i)) == Character.UnicodeBlock.CYRILLIC) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static String toLatin(String text) {
+        StringBuilder result = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = CYRILLIC_TO_LATIN.get(c);
+            if (replacement != null) {
+                result.append(replacement);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    public static String toCyrillic(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        int i = 0;
+        outer:
+        while (i < text.length()) {
+            for (String[] pair : LATIN_TO_CYRILLIC) {
+                if (text.startsWith(pair[0], i)) {
+                    result.append(pair[1]);
+                    i += pair[0].length();
+                    continue outer;
+                }
+            }
+            result.append(text.charAt(i));
+            i++;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Тот же набор клавиш в другой раскладке. Символы, которых нет на основных клавишах, не меняются.
+     */
+    public static String switchLayout(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            result.append(LAYOUT_SWITCH.getOrDefault(c, c));
+        }
+        return result.toString();
+    }
+}
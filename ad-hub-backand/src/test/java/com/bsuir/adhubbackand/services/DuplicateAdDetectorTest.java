@@ -0,0 +1,107 @@
+package com.bsuir.adhubbackand.services;
+
+import com.bsuir.adhubbackand.model.entities.Ad;
+import com.bsuir.adhubbackand.model.entities.Category;
+import com.bsuir.adhubbackand.model.entities.User;
+import com.bsuir.adhubbackand.model.enums.AdStatus;
+import com.bsuir.adhubbackand.repositories.AdRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DuplicateAdDetectorTest {
+
+    private static final String TERMS = "продава велосипед горн стелс навигатор рам алюмини колес тормоз дисков "
+            + "пробег небольш состоян отличн торг уместн самовывоз центр город";
+
+    private AdRepository adRepository;
+    private DuplicateAdDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        adRepository = mock(AdRepository.class);
+        detector = new DuplicateAdDetector(adRepository, 30, 6, 2, 9);
+    }
+
+    @Test
+    void newAdWithoutDuplicatesHasNone() {
+        Ad ad = ad(null, 1L, 10L, TERMS);
+
+        assertTrue(detector.findDuplicates(ad).isEmpty());
+    }
+
+    @Test
+    void newAdWithoutTextHasNone() {
+        Ad ad = ad(null, 1L, 10L, null);
+
+        assertTrue(detector.findDuplicates(ad).isEmpty());
+    }
+
+    @Test
+    void newAdRepostingOwnLiveAdIsRepost() {
+        detector.register(ad(5L, 1L, 10L, TERMS));
+        when(adRepository.findStatusesAndTitlesByIds(any()))
+                .thenReturn(Collections.singletonList(new Object[]{5L, AdStatus.ACTIVE, "Велосипед"}));
+
+        List<DuplicateAdDetector.Duplicate> duplicates = detector.findDuplicates(ad(null, 1L, 10L, TERMS));
+
+        assertEquals(1, duplicates.size());
+        assertEquals(5L, duplicates.get(0).adId());
+        assertEquals(0, duplicates.get(0).distance());
+        assertTrue(duplicates.get(0).sameUser());
+        assertTrue(detector.findRepost(duplicates).isPresent());
+    }
+
+    @Test
+    void otherUsersAdInOtherCategoryIsNotDuplicate() {
+        detector.register(ad(5L, 2L, 20L, TERMS));
+
+        assertTrue(detector.findDuplicates(ad(null, 1L, 10L, TERMS)).isEmpty());
+    }
+
+    @Test
+    void deletedAdIsNotDuplicate() {
+        detector.register(ad(5L, 1L, 10L, TERMS));
+        when(adRepository.findStatusesAndTitlesByIds(any()))
+                .thenReturn(Collections.singletonList(new Object[]{5L, AdStatus.DELETED, "Велосипед"}));
+
+        assertTrue(detector.findDuplicates(ad(null, 1L, 10L, TERMS)).isEmpty());
+    }
+
+    @Test
+    void savedAdsAreKeyedById() {
+        detector.register(ad(5L, 1L, 10L, TERMS));
+        detector.register(ad(6L, 2L, 10L, TERMS));
+        when(adRepository.findStatusesAndTitlesByIds(any())).thenReturn(List.of(
+                new Object[]{5L, AdStatus.ACTIVE, "Велосипед"},
+                new Object[]{6L, AdStatus.ON_MODERATION, "Велосипед"}));
+
+        Map<Long, List<DuplicateAdDetector.Duplicate>> duplicates = detector.findDuplicates(List.of(
+                ad(5L, 1L, 10L, TERMS), ad(7L, 3L, 30L, "совсем друг текст")));
+
+        assertEquals(Set.of(5L), duplicates.keySet());
+        assertEquals(1, duplicates.get(5L).size());
+        assertEquals(6L, duplicates.get(5L).get(0).adId());
+        assertFalse(duplicates.get(5L).get(0).sameUser());
+    }
+
+    private static Ad ad(Long id, Long userId, Long categoryId, String searchTerms) {
+        return Ad.builder()
+                .id(id)
+                .user(User.builder().id(userId).build())
+                .category(Category.builder().id(categoryId).build())
+                .searchTerms(searchTerms)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompletionTrieTest {
+
+    private static final Map<String, CompletionTrie.Completion> ENTRIES = Map.of(
+            "велосипед", new CompletionTrie.Completion("Велосипед", 10),
+            "велосипед детский", new CompletionTrie.Completion("Велосипед детский", 4),
+            "велосипедки", new CompletionTrie.Completion("Велосипедки", 1),
+            "вело", new CompletionTrie.Completion("Вело", 2),
+            "ваза", new CompletionTrie.Completion("Ваза", 7),
+            "телефон", new CompletionTrie.Completion("Телефон", 20)
+    );
+
+    @Test
+    void completesPrefixByWeightDescending() {
+        CompletionTrie trie = CompletionTrie.build(ENTRIES, 10);
+
+        assertEquals(List.of("Велосипед", "Велосипед детский", "Вело", "Велосипедки"), trie.complete("вел", 10));
+        assertEquals(List.of("Велосипед", "Ваза", "Велосипед детский", "Вело", "Велосипедки"),
+                trie.complete("в", 10));
+    }
+
+    @Test
+    void prefixEndingInsideCompressedEdge() {
+        CompletionTrie trie = CompletionTrie.build(ENTRIES, 10);
+
+        assertEquals(List.of("Телефон"), trie.complete("теле", 10));
+        assertEquals(List.of("Велосипед детский"), trie.complete("велосипед д", 10));
+        assertEquals(List.of("Телефон"), trie.complete("телефон", 10));
+    }
+
+    @Test
+    void unknownPrefixHasNoCompletions() {
+        CompletionTrie trie = CompletionTrie.build(ENTRIES, 10);
+
+        assertTrue(trie.complete("тело", 10).isEmpty());
+        assertTrue(trie.complete("телефоны", 10).isEmpty());
+        assertTrue(trie.complete("х", 10).isEmpty());
+    }
+
+    @Test
+    void resultsAreCappedByLimitAndTopK() {
+        CompletionTrie trie = CompletionTrie.build(ENTRIES, 3);
+
+        assertEquals(List.of("Телефон", "Велосипед"), trie.complete("", 2));
+        assertEquals(List.of("Велосипед", "Велосипед детский", "Вело"), trie.complete("вел", 10));
+    }
+
+    @Test
+    void emptyTermsAreIgnored() {
+        Map<String, CompletionTrie.Completion> entries = new HashMap<>();
+        entries.put("", new CompletionTrie.Completion("", 100));
+        entries.put("ваза", new CompletionTrie.Completion("Ваза", 1));
+
+        CompletionTrie trie = CompletionTrie.build(entries, 5);
+
+        assertEquals(1, trie.size());
+        assertEquals(List.of("Ваза"), trie.complete("", 5));
+        assertTrue(CompletionTrie.build(Map.of(), 5).complete("в", 5).isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashTest {
+
+    private static final double MINSK_LAT = 53.9006;
+    private static final double MINSK_LON = 27.5590;
+
+    @Test
+    void encodesKnownPoint() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    void nearbyPointsShareCellPrefix() {
+        String hash = GeoHash.encode(MINSK_LAT, MINSK_LON, 9);
+        String nearby = GeoHash.encode(MINSK_LAT + 0.00001, MINSK_LON + 0.00001, 9);
+
+        assertEquals(hash.substring(0, 7), nearby.substring(0, 7));
+    }
+
+    @Test
+    void coverContainsEveryPointWithinRadius() {
+        double radiusKm = 5;
+        List<String> cells = GeoHash.coverCircle(MINSK_LAT, MINSK_LON, radiusKm, 32, 9);
+
+        assertTrue(cells.size() <= 32);
+        for (int bearing = 0; bearing < 360; bearing += 15) {
+            double lat = MINSK_LAT + radiusKm * 0.99 / 111.32 * Math.cos(Math.toRadians(bearing));
+            double lon = MINSK_LON + radiusKm * 0.99 / (111.32 * Math.cos(Math.toRadians(MINSK_LAT)))
+                    * Math.sin(Math.toRadians(bearing));
+            String hash = GeoHash.encode(lat, lon, 9);
+            assertTrue(cells.stream().anyMatch(hash::startsWith), "Точка вне покрытия: " + hash);
+        }
+    }
+
+    @Test
+    void tinyRadiusCoverIsNotFinerThanStoredHashes() {
+        String stored = GeoHash.encode(MINSK_LAT, MINSK_LON, 9);
+
+        List<String> cells = GeoHash.coverCircle(MINSK_LAT, MINSK_LON, 0.001, 32, 9);
+
+        assertTrue(cells.stream().allMatch(cell -> cell.length() <= 9));
+        assertTrue(cells.stream().anyMatch(cell -> stored.compareTo(cell) >= 0
+                && stored.compareTo(cell + GeoHash.RANGE_END_SUFFIX) < 0));
+    }
+
+    @Test
+    void distanceBetweenMinskAndBrest() {
+        assertEquals(326, GeoHash.distanceKm(MINSK_LAT, MINSK_LON, 52.0976, 23.7341), 5);
+    }
+}
@@ -0,0 +1,107 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HammingIndexTest {
+
+    @Test
+    void findsFingerprintsWithinRadius() {
+        HammingIndex index = new HammingIndex(6, 9);
+        long base = 0x0123456789abcdefL;
+        index.put(1, base);
+        index.put(2, base ^ 0b111111L);
+        index.put(3, base ^ 0b1111111L);
+
+        List<HammingIndex.Match> matches = index.search(base, 6);
+
+        assertEquals(List.of(new HammingIndex.Match(1, 0), new HammingIndex.Match(2, 6)), matches);
+    }
+
+    @Test
+    void searchRadiusIsCappedByIndexRadius() {
+        HammingIndex index = new HammingIndex(2, 4);
+        index.put(1, 0L);
+        index.put(2, 0b111L);
+
+        assertEquals(Set.of(1L), ids(index.search(0L, 10)));
+        assertTrue(index.search(0b1L, 0).isEmpty());
+    }
+
+    @Test
+    void putReplacesAndRemoveDeletes() {
+        HammingIndex index = new HammingIndex(3, 5);
+        index.put(1, 0L);
+        index.put(1, -1L);
+
+        assertEquals(1, index.size());
+        assertTrue(index.search(0L, 3).isEmpty());
+        assertEquals(Set.of(1L), ids(index.search(-1L, 3)));
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(0, index.size());
+        assertTrue(index.search(-1L, 3).isEmpty());
+    }
+
+    @Test
+    void matchesBruteForceAcrossGrowthAndRemovals() {
+        Random random = new Random(42);
+        long[] centers = random.longs(100).toArray();
+        HammingIndex index = new HammingIndex(6, 8);
+        Map<Long, Long> expected = new HashMap<>();
+
+        // Больше начальной емкости, чтобы индекс несколько раз вырос
+        for (int step = 0; step < 20_000; step++) {
+            long id = random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                long fingerprint = flipBits(centers[random.nextInt(centers.length)], random.nextInt(9), random);
+                index.put(id, fingerprint);
+                expected.put(id, fingerprint);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+
+        for (int query = 0; query < 500; query++) {
+            long fingerprint = flipBits(centers[random.nextInt(centers.length)], random.nextInt(4), random);
+            int radius = random.nextInt(7);
+            Set<Long> bruteForce = expected.entrySet().stream()
+                    .filter(entry -> Long.bitCount(entry.getValue() ^ fingerprint) <= radius)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toCollection(TreeSet::new));
+
+            assertEquals(bruteForce, ids(index.search(fingerprint, radius)));
+        }
+    }
+
+    @Test
+    void rejectsTooFewBlocks() {
+        assertThrows(IllegalArgumentException.class, () -> new HammingIndex(6, 6));
+    }
+
+    private static long flipBits(long value, int bits, Random random) {
+        for (int i = 0; i < bits; i++) {
+            value ^= 1L << random.nextInt(Long.SIZE);
+        }
+        return value;
+    }
+
+    private static Set<Long> ids(List<HammingIndex.Match> matches) {
+        return matches.stream().map(HammingIndex.Match::id).collect(Collectors.toCollection(TreeSet::new));
+    }
+}
@@ -0,0 +1,49 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RussianStemmerTest {
+
+    @Test
+    void nounFormsShareStem() {
+        assertSameStem("велосипед", "велосипед", "велосипеды", "велосипедов", "велосипедами");
+        assertSameStem("квартир", "квартира", "квартиры", "квартиру");
+        assertSameStem("коляск", "коляска", "коляски");
+    }
+
+    @Test
+    void adjectiveFormsShareStem() {
+        assertSameStem("красив", "красивая", "красивый", "красивые");
+        assertEquals("детск", RussianStemmer.stem("детская"));
+    }
+
+    @Test
+    void verbAndReflexiveEndingsAreRemoved() {
+        assertSameStem("прода", "продаю", "продается");
+    }
+
+    @Test
+    void participleEndingIsRemoved() {
+        assertEquals("бегущ", RussianStemmer.stem("бегущий"));
+    }
+
+    @Test
+    void wordsWithoutRussianVowelsAreUnchanged() {
+        assertEquals("iphone", RussianStemmer.stem("iphone"));
+        assertEquals("123", RussianStemmer.stem("123"));
+        assertEquals("в", RussianStemmer.stem("в"));
+    }
+
+    @Test
+    void shortWordsKeepTheirVowel() {
+        assertEquals("и", RussianStemmer.stem("и"));
+    }
+
+    private static void assertSameStem(String expected, String... words) {
+        for (String word : words) {
+            assertEquals(expected, RussianStemmer.stem(word), word);
+        }
+    }
+}
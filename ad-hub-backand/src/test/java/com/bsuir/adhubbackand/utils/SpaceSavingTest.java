@@ -0,0 +1,78 @@
+package com.bsuir.adhubbackand.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsExactlyWhileUnderCapacity() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(3);
+        sketch.offer("a", 1);
+        sketch.offer("b", 5);
+        sketch.offer("a", 2);
+
+        assertEquals(List.of(new SpaceSaving.Entry<>("b", 5, 0), new SpaceSaving.Entry<>("a", 3, 0)),
+                sketch.entries());
+    }
+
+    @Test
+    void newKeyEvictsMinimumAndInheritsItsCountAsError() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        sketch.offer("a", 5);
+        sketch.offer("b", 2);
+        sketch.offer("c", 1);
+
+        assertEquals(List.of(new SpaceSaving.Entry<>("a", 5, 0), new SpaceSaving.Entry<>("c", 3, 2)),
+                sketch.entries());
+        assertEquals(2, sketch.size());
+    }
+
+    @Test
+    void frequentKeysSurviveLongTail() {
+        SpaceSaving<Integer> sketch = new SpaceSaving<>(10);
+        Random random = new Random(7);
+        long total = 0;
+        for (int i = 0; i < 10_000; i++) {
+            // Каждый третий элемент - 0 или 1, остальные - длинный хвост редких значений
+            int key = i % 3 == 0 ? i % 2 : 2 + random.nextInt(1_000);
+            sketch.offer(key, 1);
+            total++;
+        }
+
+        List<SpaceSaving.Entry<Integer>> entries = sketch.entries();
+        assertEquals(10, entries.size());
+        assertEquals(Set.of(0, 1), Set.of(entries.get(0).key(), entries.get(1).key()));
+        for (SpaceSaving.Entry<Integer> entry : entries) {
+            assertTrue(entry.error() <= total / 10, "error is bounded by N / capacity");
+            assertTrue(entry.count() - entry.error() >= 0);
+        }
+    }
+
+    @Test
+    void entriesAreOrderedByCountDescending() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(4);
+        sketch.offer("a", 2);
+        sketch.offer("b", 7);
+        sketch.offer("c", 4);
+        sketch.offer("d", 1);
+
+        List<SpaceSaving.Entry<String>> entries = sketch.entries();
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i - 1).count() >= entries.get(i).count());
+        }
+        assertEquals("b", entries.get(0).key());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving<String>(0));
+    }
+}